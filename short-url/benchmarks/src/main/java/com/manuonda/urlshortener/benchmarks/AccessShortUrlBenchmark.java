@@ -0,0 +1,116 @@
+package com.manuonda.urlshortener.benchmarks;
+
+import com.manuonda.urlshortener.config.HotKeyProperties;
+import com.manuonda.urlshortener.config.ShortKeyFilterProperties;
+import com.manuonda.urlshortener.domain.entities.ShortUrl;
+import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import com.manuonda.urlshortener.domain.models.ShortUrlStatus;
+import com.manuonda.urlshortener.service.EntityMapper;
+import com.manuonda.urlshortener.service.HotKeyTracker;
+import com.manuonda.urlshortener.service.ShortKeyFilter;
+import com.manuonda.urlshortener.service.ShortUrlService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ShortUrlService#accessShortUrl} per tier, CPU cost only: the cache tiers and the repository
+ * are in-memory fakes ({@link InMemoryUrlCacheService}, {@link InMemoryShortUrlRepository}) and the
+ * transaction manager does nothing. What is measured is the code around them: tier selection, short
+ * key filter, DTO mapping, accessibility checks and the hot key tracker.
+ *
+ * tier: near = pinned / near cache hit, redis = lookup script hit, database = cache miss, row found.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccessShortUrlBenchmark {
+
+    private static final String SHORT_KEY = "Qm7xT2";
+
+    @Param({"near", "redis", "database"})
+    public String tier;
+
+    private ShortUrlService shortUrlService;
+
+    @Setup
+    public void setUp() {
+        ShortUrl shortUrl = new ShortUrl();
+        shortUrl.setId(2_000_317L);
+        shortUrl.setShortKey(SHORT_KEY);
+        shortUrl.setOriginalUrl("https://www.sivalabs.in/spring-boot-jooq-tutorial-getting-started");
+        shortUrl.setIsPrivate(false);
+        shortUrl.setExpiresAt(Instant.now().plus(Duration.ofDays(30)));
+        shortUrl.setClickCount(15_234L);
+        shortUrl.setCreatedAt(Instant.now());
+        shortUrl.setMaxClicks(0);
+        shortUrl.setStatus(ShortUrlStatus.ACTIVE);
+
+        EntityMapper entityMapper = new EntityMapper();
+        InMemoryUrlCacheService urlCacheService = new InMemoryUrlCacheService();
+        switch (tier) {
+            case "near" -> urlCacheService.local.put(SHORT_KEY, entityMapper.toShortUrlCacheDto(shortUrl));
+            case "redis" -> urlCacheService.redis.put(SHORT_KEY, entityMapper.toShortUrlCacheDto(shortUrl));
+            case "database" -> { }
+            default -> throw new IllegalArgumentException("Unknown tier " + tier);
+        }
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ShortKeyFilter shortKeyFilter = new ShortKeyFilter(null, null, null,
+                new ShortKeyFilterProperties(true, 1_000_000, 0.01, Duration.ofHours(6), "benchmarks:created",
+                        Duration.ofSeconds(30), Duration.ofMinutes(1), 100_000, Duration.ofSeconds(30)),
+                meterRegistry);
+        HotKeyTracker hotKeyTracker = new HotKeyTracker(urlCacheService,
+                new HotKeyProperties(true, 100, 20, 4096, 4, Duration.ofSeconds(10)));
+
+        shortUrlService = new ShortUrlService(InMemoryShortUrlRepository.of(Map.of(SHORT_KEY, shortUrl)),
+                entityMapper, null, null, urlCacheService, null, shortKeyFilter, null, null,
+                new TransactionTemplate(new NoOpTransactionManager()), null, null, null, hotKeyTracker, meterRegistry);
+        if (accessShortUrl().isEmpty()) {
+            throw new IllegalStateException("Short URL not redirected on tier " + tier);
+        }
+    }
+
+    @Benchmark
+    public Optional<ShortUrlDto> accessShortUrl() {
+        return shortUrlService.accessShortUrl(SHORT_KEY, null);
+    }
+
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.manuonda.urlshortener.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class of benchmarks.jar: the JMH command line (same options as org.openjdk.jmh.Main),
+ * with the gc profiler always added, so every result also reports the allocation rate
+ * (gc.alloc.rate, and gc.alloc.rate.norm in bytes per operation).
+ *
+ * {@code java -jar target/benchmarks.jar} runs everything;
+ * {@code java -jar target/benchmarks.jar AccessShortUrl -p tier=near} one benchmark and parameter;
+ * {@code -rf json -rff result.json} keeps the results for comparison between commits.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        boolean gcRequested = commandLine.getProfilers().stream()
+                .anyMatch(profiler -> profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName()));
+        if (!gcRequested) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,31 @@
+package com.manuonda.urlshortener.benchmarks;
+
+import com.manuonda.urlshortener.domain.entities.ShortUrl;
+import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * {@link ShortUrlRepository} backed by a map, for the queries of the redirect path only
+ * (findByShortKey, existsByShortKey); any other method throws. A dynamic proxy: the interface
+ * inherits dozens of JpaRepository methods.
+ */
+final class InMemoryShortUrlRepository {
+
+    private InMemoryShortUrlRepository() {
+    }
+
+    static ShortUrlRepository of(Map<String, ShortUrl> rows) {
+        return (ShortUrlRepository) Proxy.newProxyInstance(ShortUrlRepository.class.getClassLoader(),
+                new Class<?>[]{ShortUrlRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByShortKey" -> Optional.ofNullable(rows.get((String) args[0]));
+                    case "existsByShortKey" -> rows.containsKey((String) args[0]);
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryShortUrlRepository" + rows.keySet();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,98 @@
+package com.manuonda.urlshortener.benchmarks;
+
+import com.manuonda.urlshortener.config.ClickCountingProperties;
+import com.manuonda.urlshortener.config.ClickSyncProperties;
+import com.manuonda.urlshortener.config.NearCacheProperties;
+import com.manuonda.urlshortener.config.RedisCircuitBreakerProperties;
+import com.manuonda.urlshortener.config.RedisConfig;
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import com.manuonda.urlshortener.service.RedisCircuitBreaker;
+import com.manuonda.urlshortener.service.UrlCacheService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link UrlCacheService} whose tiers are maps: {@code local} stands for the pinned entries and the
+ * near cache, {@code redis} for Redis (lookup script and click counters). The methods of the
+ * redirect path are overridden; the templates underneath use a connection factory that is never
+ * started, so anything else fails instead of reaching a Redis.
+ *
+ * cacheShortUrl does not store: each benchmark keeps hitting the tier it was set up for.
+ */
+class InMemoryUrlCacheService extends UrlCacheService {
+
+    final Map<String, ShortUrlCacheDto> local = new ConcurrentHashMap<>();
+    final Map<String, ShortUrlCacheDto> redis = new ConcurrentHashMap<>();
+    final Map<String, LongAdder> clicks = new ConcurrentHashMap<>();
+
+    InMemoryUrlCacheService() {
+        this(new StringRedisTemplate(new LettuceConnectionFactory()), new SimpleMeterRegistry());
+    }
+
+    private InMemoryUrlCacheService(StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
+        super(new RedisConfig().redisTemplate(stringRedisTemplate.getRequiredConnectionFactory(),
+                        new RedisConfig().objectMapper(),
+                        new ShortUrlCacheProperties(ShortUrlCacheProperties.Format.BINARY, ShortUrlCacheProperties.Layout.KEYS)),
+                stringRedisTemplate,
+                new RedisConfig().objectMapper(),
+                new NearCacheProperties(false, 1, Duration.ofMinutes(1), "benchmarks:invalidations"),
+                new ShortUrlCacheProperties(ShortUrlCacheProperties.Format.BINARY, ShortUrlCacheProperties.Layout.KEYS),
+                new RedisCircuitBreaker(stringRedisTemplate, circuitBreakerProperties(), meterRegistry),
+                circuitBreakerProperties(),
+                new ClickCountingProperties(ClickCountingProperties.Mode.EXACT, Duration.ofMillis(250), 100_000),
+                new ClickSyncProperties(1000, Duration.ofMinutes(5), 1),
+                meterRegistry);
+    }
+
+    private static RedisCircuitBreakerProperties circuitBreakerProperties() {
+        return new RedisCircuitBreakerProperties(false, 5, Duration.ofSeconds(5), 100_000);
+    }
+
+    @Override
+    public ShortUrlCacheDto getLocalShortUrl(String shortKey) {
+        return local.get(shortKey);
+    }
+
+    @Override
+    public ClickLookup fetchAndRegisterClick(String shortKey) {
+        ShortUrlCacheDto cacheDto = redis.get(shortKey);
+        if (cacheDto == null) {
+            return new ClickLookup(null, false, false);
+        }
+        count(shortKey, 1);
+        return new ClickLookup(cacheDto, true, false);
+    }
+
+    @Override
+    public boolean tryRegisterClick(String shortKey, long maxClicks) {
+        count(shortKey, 1);
+        return true;
+    }
+
+    @Override
+    public void revertClick(ClickLookup lookup) {
+        count(lookup.shortUrl().shortKey(), -1);
+    }
+
+    @Override
+    public void cacheShortUrl(String shortKey, ShortUrlCacheDto cacheDto) {
+    }
+
+    @Override
+    public void invalidateShortUrlCache(String shortKey) {
+        local.remove(shortKey);
+        redis.remove(shortKey);
+    }
+
+    private void count(String shortKey, long delta) {
+        clicks.computeIfAbsent(shortKey, k -> new LongAdder()).add(delta);
+    }
+}
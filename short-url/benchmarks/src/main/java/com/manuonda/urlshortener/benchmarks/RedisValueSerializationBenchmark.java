@@ -0,0 +1,73 @@
+package com.manuonda.urlshortener.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manuonda.urlshortener.config.RedisConfig;
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Value serializer of the RedisTemplate built by {@link RedisConfig} (shorturl:* entries), in both
+ * formats. deserialize includes the conversion UrlCacheService applies to JSON values (a Map,
+ * converted with the ObjectMapper). The connection factory is never started: no Redis needed.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedisValueSerializationBenchmark {
+
+    @Param({"BINARY", "JSON"})
+    public ShortUrlCacheProperties.Format format;
+
+    private ObjectMapper objectMapper;
+    private RedisSerializer<Object> serializer;
+    private ShortUrlCacheDto entry;
+    private byte[] serialized;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        RedisConfig redisConfig = new RedisConfig();
+        objectMapper = redisConfig.objectMapper();
+        serializer = (RedisSerializer<Object>) redisConfig.redisTemplate(new LettuceConnectionFactory(), objectMapper,
+                        new ShortUrlCacheProperties(format, ShortUrlCacheProperties.Layout.KEYS))
+                .getValueSerializer();
+        entry = new ShortUrlCacheDto(2_000_317L, "Qm7xT2", "https://www.sivalabs.in/spring-boot-jooq-tutorial-getting-started",
+                false, Instant.now().truncatedTo(ChronoUnit.MILLIS).plus(Duration.ofDays(30)), 7L, 15_234L, 0);
+        serialized = serializer.serialize(entry);
+        if (!entry.equals(deserialize())) {
+            throw new IllegalStateException("Round trip mismatch for " + format);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(entry);
+    }
+
+    @Benchmark
+    public ShortUrlCacheDto deserialize() {
+        Object value = serializer.deserialize(serialized);
+        return value instanceof ShortUrlCacheDto cacheDto ? cacheDto : objectMapper.convertValue(value, ShortUrlCacheDto.class);
+    }
+}
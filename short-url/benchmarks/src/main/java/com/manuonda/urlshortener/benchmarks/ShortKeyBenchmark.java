@@ -0,0 +1,36 @@
+package com.manuonda.urlshortener.benchmarks;
+
+import com.manuonda.urlshortener.service.RandomUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RandomUtils#generateRandomShortKey()}: single thread, and 4 threads sharing its
+ * SecureRandom (contended when keys are generated concurrently, e.g. the random key strategy).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortKeyBenchmark {
+
+    @Benchmark
+    public String generateRandomShortKey() {
+        return RandomUtils.generateRandomShortKey();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String generateRandomShortKeyContended() {
+        return RandomUtils.generateRandomShortKey();
+    }
+}
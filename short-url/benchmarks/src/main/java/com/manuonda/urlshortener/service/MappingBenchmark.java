@@ -0,0 +1,74 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.domain.entities.ShortUrl;
+import com.manuonda.urlshortener.domain.entities.User;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import com.manuonda.urlshortener.domain.models.ShortUrlStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DTO mapping of the redirect path: {@link EntityMapper#toShortUrlDto} and
+ * {@link EntityMapper#toShortUrlCacheDto} (database tier) and
+ * {@link ShortUrlService#convertCacheDtoToDto} (cache tiers). In this package for the latter,
+ * which is package-private.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+
+    private final EntityMapper entityMapper = new EntityMapper();
+    private ShortUrl shortUrl;
+    private ShortUrlCacheDto cacheDto;
+
+    @Setup
+    public void setUp() {
+        User user = new User();
+        user.setId(7L);
+        user.setName("Admin");
+        shortUrl = new ShortUrl();
+        shortUrl.setId(2_000_317L);
+        shortUrl.setShortKey("Qm7xT2");
+        shortUrl.setOriginalUrl("https://www.sivalabs.in/spring-boot-jooq-tutorial-getting-started");
+        shortUrl.setIsPrivate(false);
+        shortUrl.setExpiresAt(Instant.now().plus(Duration.ofDays(30)));
+        shortUrl.setCreatedBy(user);
+        shortUrl.setClickCount(15_234L);
+        shortUrl.setCreatedAt(Instant.now());
+        shortUrl.setMaxClicks(0);
+        shortUrl.setStatus(ShortUrlStatus.ACTIVE);
+        cacheDto = entityMapper.toShortUrlCacheDto(shortUrl);
+    }
+
+    @Benchmark
+    public ShortUrlDto toShortUrlDto() {
+        return entityMapper.toShortUrlDto(shortUrl);
+    }
+
+    @Benchmark
+    public ShortUrlCacheDto toShortUrlCacheDto() {
+        return entityMapper.toShortUrlCacheDto(shortUrl);
+    }
+
+    @Benchmark
+    public ShortUrlDto convertCacheDtoToDto() {
+        return ShortUrlService.convertCacheDtoToDto(cacheDto);
+    }
+}
@@ -0,0 +1,24 @@
+package com.manuonda.urlshortener.reactive;
+
+import com.manuonda.urlshortener.config.ClickSyncProperties;
+import com.manuonda.urlshortener.config.NearCacheProperties;
+import com.manuonda.urlshortener.config.RedirectProperties;
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+/**
+ * Reactive redirect tier: answers {@code /s/{shortKey}} next to (or in front of) the servlet
+ * application, sharing its Redis cache, click counters and database. The properties are those of the
+ * application, under the same names.
+ */
+@SpringBootApplication
+@EnableConfigurationProperties({ShortUrlCacheProperties.class, NearCacheProperties.class,
+        ClickSyncProperties.class, RedirectProperties.class})
+public class ReactiveRedirectApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveRedirectApplication.class, args);
+    }
+}
@@ -0,0 +1,53 @@
+package com.manuonda.urlshortener.reactive;
+
+import com.manuonda.urlshortener.config.RedirectProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@code /s/{shortKey}} with the status and Cache-Control of the servlet fast path (app.redirect.*).
+ */
+@RestController
+public class ReactiveRedirectController {
+
+    private static final int MAX_SHORT_KEY_LENGTH = 10;
+
+    private final ReactiveShortUrlService reactiveShortUrlService;
+    private final RedirectProperties properties;
+
+    public ReactiveRedirectController(ReactiveShortUrlService reactiveShortUrlService, RedirectProperties properties) {
+        this.reactiveShortUrlService = reactiveShortUrlService;
+        this.properties = properties;
+    }
+
+    @GetMapping("/s/{shortKey}")
+    Mono<ResponseEntity<Void>> redirect(@PathVariable String shortKey) {
+        if (!isValidShortKey(shortKey)) {
+            return Mono.just(ResponseEntity.notFound().build());
+        }
+        return reactiveShortUrlService.accessShortUrl(shortKey)
+                .map(shortUrl -> ResponseEntity.status(properties.status())
+                        .header(HttpHeaders.LOCATION, shortUrl.originalUrl())
+                        .header(HttpHeaders.CACHE_CONTROL, properties.cacheControl())
+                        .<Void>build())
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // same check as ShortUrlRedirectFilter: generated keys are alphanumeric ASCII
+    private static boolean isValidShortKey(String shortKey) {
+        if (shortKey.isEmpty() || shortKey.length() > MAX_SHORT_KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < shortKey.length(); i++) {
+            char c = shortKey.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
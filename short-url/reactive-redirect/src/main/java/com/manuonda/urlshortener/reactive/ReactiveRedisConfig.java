@@ -0,0 +1,34 @@
+package com.manuonda.urlshortener.reactive;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import com.manuonda.urlshortener.config.ShortUrlCacheSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+@Configuration
+public class ReactiveRedisConfig {
+
+    /**
+     * Short URL cache entries, written and read in the application's format (see RedisConfig).
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, Object> shortUrlRedisTemplate(ReactiveRedisConnectionFactory factory,
+                                                                       ShortUrlCacheProperties properties) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        RedisSerializer<Object> serializer = new ShortUrlCacheSerializer(
+                new GenericJackson2JsonRedisSerializer(objectMapper), properties.format());
+        RedisSerializationContext<String, Object> context = RedisSerializationContext
+                .<String, Object>newSerializationContext(RedisSerializer.string())
+                .value(serializer)
+                .build();
+        return new ReactiveRedisTemplate<>(factory, context);
+    }
+}
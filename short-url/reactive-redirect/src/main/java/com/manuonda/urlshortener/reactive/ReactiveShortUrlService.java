@@ -0,0 +1,247 @@
+package com.manuonda.urlshortener.reactive;
+
+import com.manuonda.urlshortener.config.ClickSyncProperties;
+import com.manuonda.urlshortener.config.NearCacheProperties;
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Non-blocking version of the Redis and database tiers of {@code ShortUrlService.accessShortUrl}, for
+ * anonymous redirects. Same keys, scripts and click semantics as {@code UrlCacheService} (keys layout,
+ * exact counting):
+ * hit  -> one script round trip reads the cached short URL, applies the click limit and counts the click;
+ *         not accessible (expired, private) -> the click is reverted; limit reached -> the entry is
+ *         invalidated (all instances, pub/sub);
+ * miss -> short_urls through R2DBC (active rows only), cached, then the click is checked and counted.
+ * Redis errors fall back to the database and fail open on the click limit, like the servlet path.
+ *
+ * Not ported: near cache and pinned hot keys, the short key filter, the circuit breaker, local click
+ * counting and click analytics; private links are not redirected (no user sessions on this tier).
+ */
+@Service
+public class ReactiveShortUrlService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveShortUrlService.class);
+
+    // key names of UrlCacheService
+    private static final String SHORT_URL_PREFIX = "shorturl:";
+    private static final String CLICKS_PREFIX = "clicks:";
+    private static final String LIMIT_PREFIX = "limit:";
+    private static final String CLICKS_DIRTY_KEY = "clicksync:dirty";
+    private static final Duration SHORT_URL_TTL = Duration.ofHours(1);
+    private static final long CLICK_LIMIT_REACHED = -1L;
+
+    // scripts of the application jar
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Object>> LOOKUP_AND_COUNT_SCRIPT =
+            (RedisScript) RedisScript.of(new ClassPathResource("scripts/lookup-and-count-click.lua"), List.class);
+    private static final RedisScript<Long> CHECK_AND_INCREMENT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/check-and-increment-clicks.lua"), Long.class);
+
+    private static final String SELECT_ACTIVE_SHORT_URL = """
+            SELECT id, short_key, original_url, is_private, expires_at, created_by, click_count, max_clicks
+            FROM short_urls
+            WHERE short_key = :shortKey AND status = 'ACTIVE'
+            """;
+
+    private final ReactiveRedisTemplate<String, Object> shortUrlRedisTemplate;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final DatabaseClient databaseClient;
+    private final String invalidationChannel;
+    private final int dirtyShards;
+
+    public ReactiveShortUrlService(ReactiveRedisTemplate<String, Object> shortUrlRedisTemplate,
+                                   ReactiveStringRedisTemplate stringRedisTemplate,
+                                   DatabaseClient databaseClient,
+                                   ShortUrlCacheProperties shortUrlCacheProperties,
+                                   NearCacheProperties nearCacheProperties,
+                                   ClickSyncProperties clickSyncProperties) {
+        if (shortUrlCacheProperties.layout() != ShortUrlCacheProperties.Layout.KEYS) {
+            throw new IllegalStateException("The reactive redirect tier supports app.short-url-cache.layout=keys only");
+        }
+        this.shortUrlRedisTemplate = shortUrlRedisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.databaseClient = databaseClient;
+        this.invalidationChannel = nearCacheProperties.invalidationChannel();
+        this.dirtyShards = clickSyncProperties.shards();
+    }
+
+    /**
+     * @return the short URL to redirect to, with its click counted; empty if unknown, not accessible
+     * or over its click limit
+     */
+    public Mono<ShortUrlCacheDto> accessShortUrl(String shortKey) {
+        return lookupAndRegisterClick(shortKey)
+                .flatMap(result -> result.isEmpty()
+                        ? accessShortUrlFromDatabase(shortKey)
+                        : accessCachedShortUrl(shortKey, result));
+    }
+
+    // {} on a miss, otherwise {metadata, clicks, limitFound}: see lookup-and-count-click.lua
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Mono<List<Object>> lookupAndRegisterClick(String shortKey) {
+        return shortUrlRedisTemplate.execute(LOOKUP_AND_COUNT_SCRIPT,
+                        List.of(SHORT_URL_PREFIX + shortKey, CLICKS_PREFIX + shortKey, LIMIT_PREFIX + shortKey,
+                                dirtyKey(shortKey)),
+                        List.of(shortKey, "1"),
+                        RedisElementWriter.from(RedisSerializer.string()),
+                        (RedisElementReader) RedisElementReader.from(RedisSerializer.byteArray()))
+                .next()
+                .defaultIfEmpty(List.of())
+                .onErrorResume(e -> {
+                    // nothing counted: the database tier registers the click
+                    logger.warn("Error fetching ShortUrl and registering click for shortKey {}: {}", shortKey, e.toString());
+                    return Mono.just(List.of());
+                });
+    }
+
+    private Mono<ShortUrlCacheDto> accessCachedShortUrl(String shortKey, List<Object> result) {
+        long clicks = (Long) result.get(1);
+        boolean limitFound = (Long) result.get(2) == 1L;
+        ShortUrlCacheDto cacheDto;
+        try {
+            cacheDto = (ShortUrlCacheDto) shortUrlRedisTemplate.getSerializationContext().getValueSerializationPair()
+                    .read(ByteBuffer.wrap((byte[]) result.get(0)));
+        } catch (Exception e) {
+            logger.error("Exception reading cached ShortUrl for shortKey {}", shortKey, e);
+            return (clicks >= 0 ? revertClick(shortKey) : Mono.<Void>empty())
+                    .then(accessShortUrlFromDatabase(shortKey));
+        }
+
+        long maxClicks = cacheDto.maxClicks() != null ? cacheDto.maxClicks() : 0;
+        Mono<Boolean> counted;
+        if (!limitFound && maxClicks > 0) {
+            // limit:{shortKey} was lost (e.g. evicted): restore it and apply it to this click
+            counted = setClickLimit(shortKey, maxClicks)
+                    .then(clicks > maxClicks ? revertClick(shortKey).thenReturn(false) : Mono.just(true));
+        } else {
+            counted = Mono.just(clicks != CLICK_LIMIT_REACHED);
+        }
+        return counted.flatMap(isCounted -> {
+            if (!isAccessible(cacheDto)) {
+                return isCounted ? revertClick(shortKey).then(Mono.empty()) : Mono.empty();
+            }
+            if (!isCounted) {
+                return invalidateShortUrlCache(shortKey).then(Mono.empty());
+            }
+            return Mono.just(cacheDto);
+        });
+    }
+
+    private Mono<ShortUrlCacheDto> accessShortUrlFromDatabase(String shortKey) {
+        return databaseClient.sql(SELECT_ACTIVE_SHORT_URL)
+                .bind("shortKey", shortKey)
+                .map((row, metadata) -> {
+                    LocalDateTime expiresAt = row.get("expires_at", LocalDateTime.class);
+                    return new ShortUrlCacheDto(
+                            row.get("id", Long.class),
+                            row.get("short_key", String.class),
+                            row.get("original_url", String.class),
+                            row.get("is_private", Boolean.class),
+                            // Instant is stored as UTC, as Hibernate does for the entity
+                            expiresAt != null ? expiresAt.toInstant(ZoneOffset.UTC) : null,
+                            row.get("created_by", Long.class),
+                            row.get("click_count", Long.class),
+                            row.get("max_clicks", Integer.class));
+                })
+                .one()
+                .flatMap(cacheDto -> cacheShortUrl(shortKey, cacheDto).then(registerClickIfAccessible(cacheDto)));
+    }
+
+    private Mono<ShortUrlCacheDto> registerClickIfAccessible(ShortUrlCacheDto cacheDto) {
+        if (!isAccessible(cacheDto)) {
+            return Mono.empty();
+        }
+        String shortKey = cacheDto.shortKey();
+        long maxClicks = cacheDto.maxClicks() != null ? cacheDto.maxClicks() : 0;
+        return tryRegisterClick(shortKey, maxClicks)
+                .flatMap(allowed -> allowed
+                        ? Mono.just(cacheDto)
+                        : invalidateShortUrlCache(shortKey).then(Mono.empty()));
+    }
+
+    private static boolean isAccessible(ShortUrlCacheDto cacheDto) {
+        if (cacheDto.expiresAt() != null && cacheDto.expiresAt().isBefore(Instant.now())) {
+            return false;
+        }
+        return !Boolean.TRUE.equals(cacheDto.isPrivate());
+    }
+
+    private Mono<Boolean> tryRegisterClick(String shortKey, long maxClicks) {
+        return stringRedisTemplate.execute(CHECK_AND_INCREMENT_SCRIPT,
+                        List.of(CLICKS_PREFIX + shortKey, LIMIT_PREFIX + shortKey, dirtyKey(shortKey)),
+                        List.of(shortKey, Long.toString(Math.max(maxClicks, 0))))
+                .next()
+                .map(result -> result != CLICK_LIMIT_REACHED)
+                .defaultIfEmpty(true)
+                .onErrorResume(e -> {
+                    // fail open: the limit is not enforced while Redis is unavailable
+                    logger.warn("Error while registering click for shortKey {}: {}", shortKey, e.toString());
+                    return Mono.just(true);
+                });
+    }
+
+    private Mono<Void> revertClick(String shortKey) {
+        return stringRedisTemplate.opsForValue().decrement(CLICKS_PREFIX + shortKey)
+                .onErrorResume(e -> {
+                    logger.warn("Error reverting click for shortKey {}: {}", shortKey, e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> setClickLimit(String shortKey, long maxClicks) {
+        return stringRedisTemplate.opsForValue().set(LIMIT_PREFIX + shortKey, Long.toString(maxClicks))
+                .onErrorResume(e -> {
+                    logger.warn("Error setting click limit for shortKey {}: {}", shortKey, e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> cacheShortUrl(String shortKey, ShortUrlCacheDto cacheDto) {
+        return shortUrlRedisTemplate.opsForValue().set(SHORT_URL_PREFIX + shortKey, cacheDto, SHORT_URL_TTL)
+                .onErrorResume(e -> {
+                    logger.warn("Exception caching ShortUrlCacheDto for shortKey {}: {}", shortKey, e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // the servlet instances drop their near cache and pinned entries on the invalidation message
+    private Mono<Void> invalidateShortUrlCache(String shortKey) {
+        return stringRedisTemplate.delete(SHORT_URL_PREFIX + shortKey)
+                .then(stringRedisTemplate.convertAndSend(invalidationChannel, shortKey))
+                .onErrorResume(e -> {
+                    logger.warn("Error invalidating ShortUrl cache for shortKey {}: {}", shortKey, e.toString());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    // UrlCacheService.dirtyKey
+    private String dirtyKey(String shortKey) {
+        return dirtyShards == 1
+                ? CLICKS_DIRTY_KEY
+                : CLICKS_DIRTY_KEY + ":" + Math.floorMod(shortKey.hashCode(), dirtyShards);
+    }
+}
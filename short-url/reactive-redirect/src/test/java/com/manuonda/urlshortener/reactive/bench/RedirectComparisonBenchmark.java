@@ -0,0 +1,102 @@
+package com.manuonda.urlshortener.reactive.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load on {@code GET /s/{shortKey}} of the servlet application and of the reactive redirect
+ * tier, side by side at increasing concurrency (both running, same Redis and database): throughput and
+ * latency percentiles per target and concurrency level, the two targets taking turns at each level.
+ *
+ * Not part of the test suite: run the main class (target/test-classes) with args
+ * servletBaseUrl reactiveBaseUrl shortKey [concurrencyLevels=64,256,1024] [seconds=15] [warmupSeconds=5].
+ */
+public class RedirectComparisonBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String servletBaseUrl = args[0];
+        String reactiveBaseUrl = args[1];
+        String shortKey = args[2];
+        int[] concurrencyLevels = Arrays.stream((args.length > 3 ? args[3] : "64,256,1024").split(","))
+                .mapToInt(Integer::parseInt).toArray();
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 15;
+        int warmupSeconds = args.length > 5 ? Integer.parseInt(args[5]) : 5;
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest servlet = HttpRequest.newBuilder(URI.create(servletBaseUrl + "/s/" + shortKey)).GET().build();
+        HttpRequest reactive = HttpRequest.newBuilder(URI.create(reactiveBaseUrl + "/s/" + shortKey)).GET().build();
+
+        System.out.printf("%-9s %11s %10s %9s %9s %9s %8s%n",
+                "target", "concurrency", "req/s", "p50 ms", "p99 ms", "p999 ms", "non-3xx");
+        for (int concurrency : concurrencyLevels) {
+            report("servlet", run(client, servlet, concurrency, warmupSeconds, seconds), concurrency, seconds);
+            report("reactive", run(client, reactive, concurrency, warmupSeconds, seconds), concurrency, seconds);
+        }
+    }
+
+    private static final class Result {
+        final long[] nanos = new long[4_000_000];
+        final AtomicInteger next = new AtomicInteger();
+        final LongAdder errors = new LongAdder();
+        int count;
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int warmupSeconds, int seconds)
+            throws Exception {
+        Result result = new Result();
+        long measureFrom = System.nanoTime() + Duration.ofSeconds(warmupSeconds).toNanos();
+        long deadline = measureFrom + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    long start;
+                    while ((start = System.nanoTime()) < deadline) {
+                        boolean redirected;
+                        try {
+                            redirected = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 3;
+                        } catch (Exception e) {
+                            redirected = false;
+                        }
+                        long end = System.nanoTime();
+                        if (start < measureFrom || end > deadline) {
+                            continue;
+                        }
+                        if (!redirected) {
+                            result.errors.increment();
+                        }
+                        int slot = result.next.getAndIncrement();
+                        if (slot < result.nanos.length) {
+                            result.nanos[slot] = end - start;
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        result.count = Math.min(result.next.get(), result.nanos.length);
+        Arrays.sort(result.nanos, 0, result.count);
+        return result;
+    }
+
+    private static void report(String target, Result result, int concurrency, int seconds) {
+        System.out.printf("%-9s %11d %10.0f %9.2f %9.2f %9.2f %8d%n", target, concurrency,
+                result.count / (double) seconds,
+                percentile(result, 0.50), percentile(result, 0.99), percentile(result, 0.999), result.errors.sum());
+    }
+
+    private static double percentile(Result result, double p) {
+        return result.count == 0 ? 0 : result.nanos[(int) Math.min(result.count - 1, result.count * p)] / 1_000_000.0;
+    }
+}
@@ -21,6 +21,15 @@ public record ApplicationProperties(
         @DefaultValue("true")
         boolean validateOriginalUrl,
         @DefaultValue("10")
-        int pageSize
+        int pageSize,
+        @DefaultValue("cursor")
+        PaginationMode paginationMode
 ) {
+
+    public enum PaginationMode {
+        /** page number + count query, cost grows with the page depth */
+        OFFSET,
+        /** (created_at, id) keyset, constant cost at any depth, no count query */
+        CURSOR
+    }
 }
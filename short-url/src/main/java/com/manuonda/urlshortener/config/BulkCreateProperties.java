@@ -0,0 +1,23 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Bulk short URL creation.
+ *
+ * @param batchSize rows whose keys are allocated together and inserted with one JDBC batch
+ *                  (one transaction); results are written back after each batch
+ */
+@ConfigurationProperties(prefix = "app.bulk-create")
+@Validated
+public record BulkCreateProperties(
+        @DefaultValue("500")
+        @Min(1)
+        @Max(10000)
+        int batchSize
+) {
+}
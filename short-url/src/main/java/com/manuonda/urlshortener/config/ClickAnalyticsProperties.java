@@ -0,0 +1,59 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Click analytics: redirect events buffered in memory and aggregated into per minute/hour/day rollups.
+ *
+ * @param enabled              when false redirects emit no events
+ * @param bufferSize           ring buffer capacity in events (rounded up to a power of two)
+ * @param samplingThreshold    buffer fill fraction above which events are sampled
+ * @param overloadSampleRate   above the threshold one event in this many is kept (and counted this many times)
+ * @param flushInterval        how often the buffer is drained and the rollups written
+ * @param countryTable         IPv4 range to country CSV (start,end,country) used for the country dimension
+ * @param minuteRetention      per-minute rollups older than this are deleted
+ * @param hourRetention        per-hour rollups older than this are deleted
+ * @param dayRetention         per-day rollups older than this are deleted
+ * @param maxPendingRows       rollup rows kept for retry while the database is failing, beyond that they are dropped
+ */
+@ConfigurationProperties(prefix = "app.click-analytics")
+@Validated
+public record ClickAnalyticsProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("65536")
+        @Min(1024)
+        @Max(1 << 24)
+        int bufferSize,
+        @DefaultValue("0.5")
+        @DecimalMin("0.1")
+        @DecimalMax("1.0")
+        double samplingThreshold,
+        @DefaultValue("10")
+        @Min(1)
+        int overloadSampleRate,
+        @DefaultValue("1s")
+        Duration flushInterval,
+        @NotBlank
+        @DefaultValue("classpath:geo/ip-country.csv")
+        String countryTable,
+        @DefaultValue("2d")
+        Duration minuteRetention,
+        @DefaultValue("90d")
+        Duration hourRetention,
+        @DefaultValue("400d")
+        Duration dayRetention,
+        @DefaultValue("100000")
+        @Min(1000)
+        int maxPendingRows
+) {
+}
@@ -0,0 +1,34 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * How redirects count clicks in Redis.
+ *
+ * @param mode           exact: every click is an atomic Redis increment | local: clicks of links without
+ *                       max_clicks are added up in process memory and flushed with INCRBY (links with a
+ *                       limit are always counted exactly)
+ * @param flushInterval  local mode: the counters are pushed to Redis this often (clicks of an instance
+ *                       that crashes in between are lost, a graceful shutdown flushes them)
+ * @param maxPendingKeys local mode: short keys aggregated between two flushes, clicks of further keys
+ *                       go to Redis directly
+ */
+@ConfigurationProperties(prefix = "app.click-counting")
+@Validated
+public record ClickCountingProperties(
+        @DefaultValue("exact")
+        Mode mode,
+        @DefaultValue("250ms")
+        Duration flushInterval,
+        @DefaultValue("100000")
+        @Min(1)
+        int maxPendingKeys
+) {
+
+    public enum Mode { EXACT, LOCAL }
+}
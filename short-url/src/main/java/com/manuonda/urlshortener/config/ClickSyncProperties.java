@@ -0,0 +1,33 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Click synchronization (Redis counters -> short_urls.click_count).
+ *
+ * @param chunkSize number of short keys read per SSCAN/MGET and written per batched UPDATE
+ * @param interval  period of the synchronization; each shard is synchronized by one instance per period
+ * @param shards    dirty short keys are split into this many sets, claimed by the running instances
+ *                  (1 = a single instance does all the work); can be changed between deployments
+ */
+@ConfigurationProperties(prefix = "app.click-sync")
+@Validated
+public record ClickSyncProperties(
+        @DefaultValue("1000")
+        @Min(1)
+        @Max(10000)
+        int chunkSize,
+        @DefaultValue("5m")
+        Duration interval,
+        @DefaultValue("1")
+        @Min(1)
+        @Max(1024)
+        int shards
+) {
+}
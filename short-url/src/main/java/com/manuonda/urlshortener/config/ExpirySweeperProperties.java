@@ -0,0 +1,58 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Background removal of expired short URLs and their Redis keys.
+ *
+ * @param enabled            when false (default) expired short URLs are only rejected at read time and kept
+ * @param mode               move the rows to short_urls_archive with their final click count (default), or
+ *                           delete them for good (opt-in: the rows and their click counts are lost)
+ * @param interval           delay between two sweeps
+ * @param grace              a short URL is swept once it has been expired for this long
+ * @param chunkSize          rows selected, removed (one transaction) and unlinked from Redis per chunk
+ * @param pauseBetweenChunks sleep between two chunks, keeps the sweep from saturating the database
+ * @param maxChunksPerRun    chunks per sweep at most, the rest waits for the next one
+ * @param busyPoolThreshold  fraction of active database connections above which the sweep backs off
+ */
+@ConfigurationProperties(prefix = "app.expiry-sweeper")
+@Validated
+public record ExpirySweeperProperties(
+        @DefaultValue("false")
+        boolean enabled,
+        @NotNull
+        @DefaultValue("archive")
+        Mode mode,
+        @DefaultValue("10m")
+        Duration interval,
+        @DefaultValue("1h")
+        Duration grace,
+        @DefaultValue("500")
+        @Min(1)
+        @Max(10000)
+        int chunkSize,
+        @DefaultValue("200ms")
+        Duration pauseBetweenChunks,
+        @DefaultValue("100")
+        @Min(1)
+        int maxChunksPerRun,
+        @DefaultValue("0.5")
+        @DecimalMin("0.0")
+        @DecimalMax("1.0")
+        double busyPoolThreshold
+) {
+
+    public enum Mode {
+        DELETE,
+        ARCHIVE
+    }
+}
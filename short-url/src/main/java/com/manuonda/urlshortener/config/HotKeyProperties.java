@@ -0,0 +1,43 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Heavy hitter tracking: the most clicked short keys are pinned in process memory.
+ *
+ * @param enabled         when false no key is tracked nor pinned
+ * @param topK            number of hottest keys pinned
+ * @param minClicks       decayed click estimate a key needs to be pinned
+ * @param sketchWidth     counters per Count-Min sketch row (error ~ clicks per period / width)
+ * @param sketchDepth     Count-Min sketch rows (error probability ~ e^-depth)
+ * @param refreshInterval the top-K is recomputed, the pinned entries reloaded and the sketch halved this often
+ */
+@ConfigurationProperties(prefix = "app.hot-keys")
+@Validated
+public record HotKeyProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("100")
+        @Min(1)
+        @Max(10000)
+        int topK,
+        @DefaultValue("20")
+        @Min(1)
+        long minClicks,
+        @DefaultValue("4096")
+        @Min(64)
+        int sketchWidth,
+        @DefaultValue("4")
+        @Min(1)
+        @Max(16)
+        int sketchDepth,
+        @DefaultValue("10s")
+        Duration refreshInterval
+) {
+}
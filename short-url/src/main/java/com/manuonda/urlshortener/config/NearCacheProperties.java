@@ -0,0 +1,33 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Near cache (in-process tier) that sits in front of Redis for short URL lookups.
+ *
+ * @param enabled             turns the local tier on/off
+ * @param maximumSize         max number of entries (Caffeine applies W-TinyLFU admission)
+ * @param expireAfterWrite    TTL per entry, bounds staleness if an invalidation message is lost
+ * @param invalidationChannel Redis pub/sub channel used to invalidate across instances
+ */
+@ConfigurationProperties(prefix = "app.near-cache")
+@Validated
+public record NearCacheProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("10000")
+        @Min(1)
+        long maximumSize,
+        @DefaultValue("60s")
+        Duration expireAfterWrite,
+        @NotBlank
+        @DefaultValue("shorturl:invalidations")
+        String invalidationChannel
+) {
+}
@@ -0,0 +1,30 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Cache of the home page listing of public short URLs (Redis, shared by every instance).
+ *
+ * @param enabled when false every home page hit queries the database
+ * @param pages   pages 1..pages are cached (cursor pagination: the first page and the pages reached from it
+ *                by its next links)
+ * @param ttl     upper bound of staleness for data not covered by the create/delete
+ *                invalidation (e.g. click counts)
+ */
+@ConfigurationProperties(prefix = "app.public-listing-cache")
+@Validated
+public record PublicListingCacheProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("3")
+        @Min(1)
+        int pages,
+        @DefaultValue("5m")
+        Duration ttl
+) {
+}
@@ -0,0 +1,32 @@
+package com.manuonda.urlshortener.config;
+
+import com.manuonda.urlshortener.service.ClickAnalyticsService;
+import com.manuonda.urlshortener.service.ShortUrlService;
+import com.manuonda.urlshortener.web.ShortUrlRedirectFilter;
+import com.manuonda.urlshortener.web.controller.SecurityUtils;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class RedirectFilterConfig {
+
+    /**
+     * Redirect fast path on /s/*, right after the Spring Security filter chain
+     * (disabled with app.redirect.fast-path=false: HomeController answers instead).
+     */
+    @Bean
+    public FilterRegistrationBean<ShortUrlRedirectFilter> shortUrlRedirectFilter(
+            ShortUrlService shortUrlService,
+            ClickAnalyticsService clickAnalyticsService,
+            SecurityUtils securityUtils,
+            RedirectProperties properties) {
+        FilterRegistrationBean<ShortUrlRedirectFilter> registration = new FilterRegistrationBean<>(
+                new ShortUrlRedirectFilter(shortUrlService, clickAnalyticsService, securityUtils, properties));
+        registration.addUrlPatterns("/s/*");
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        registration.setEnabled(properties.fastPath());
+        return registration;
+    }
+}
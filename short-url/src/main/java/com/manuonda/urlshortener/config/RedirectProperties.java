@@ -0,0 +1,34 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Short URL redirects ({@code /s/{shortKey}}).
+ *
+ * @param fastPath     serve redirects from a servlet filter in front of the DispatcherServlet;
+ *                     when false HomeController handles them
+ * @param status       3xx status of the fast path (302/307 let every click reach the server,
+ *                     301/308 may be cached by browsers and proxies according to cacheControl)
+ * @param cacheControl Cache-Control header of the fast path redirects
+ */
+@ConfigurationProperties(prefix = "app.redirect")
+@Validated
+public record RedirectProperties(
+        @DefaultValue("true")
+        boolean fastPath,
+        @DefaultValue("302")
+        int status,
+        @NotBlank
+        @DefaultValue("no-store")
+        String cacheControl
+) {
+
+    @AssertTrue(message = "app.redirect.status must be 301, 302, 303, 307 or 308")
+    public boolean isRedirectStatus() {
+        return status == 301 || status == 302 || status == 303 || status == 307 || status == 308;
+    }
+}
@@ -0,0 +1,34 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker around the Redis calls of the short URL cache (degraded mode).
+ *
+ * @param enabled             when false every call goes to Redis and fails on its own timeout
+ * @param failureThreshold    consecutive connection failures / timeouts that open the circuit
+ * @param probeInterval       while open, Redis is pinged this often; the circuit closes on the first
+ *                            answer, once the pending invalidations and clicks are written back
+ * @param maxPendingClickKeys short keys whose clicks are counted in memory while open, clicks of
+ *                            further keys are dropped (shorturl.redis.pending_clicks.dropped)
+ */
+@ConfigurationProperties(prefix = "app.redis-circuit-breaker")
+@Validated
+public record RedisCircuitBreakerProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("5")
+        @Min(1)
+        int failureThreshold,
+        @DefaultValue("5s")
+        Duration probeInterval,
+        @DefaultValue("100000")
+        @Min(1)
+        int maxPendingClickKeys
+) {
+}
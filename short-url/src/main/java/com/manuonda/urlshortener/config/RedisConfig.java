@@ -2,14 +2,23 @@ package com.manuonda.urlshortener.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.manuonda.urlshortener.domain.models.PublicListingPage;
+import com.manuonda.urlshortener.service.NearCacheInvalidationListener;
+import com.manuonda.urlshortener.service.PublicListingService;
+import com.manuonda.urlshortener.service.ShortKeyCreatedListener;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -42,7 +51,9 @@ public class RedisConfig {
    @Bean
    public RedisCacheManager cacheManager(
            RedisConnectionFactory factory,
-           GenericJackson2JsonRedisSerializer jackson2JsonRedisSerializer) {
+           GenericJackson2JsonRedisSerializer jackson2JsonRedisSerializer,
+           ObjectMapper objectMapper,
+           PublicListingCacheProperties publicListingCacheProperties) {
 
       // Configuración de caché
       RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig();
@@ -55,15 +66,24 @@ public class RedisConfig {
                       .fromSerializer(jackson2JsonRedisSerializer)) // Usa el serializer bean
               .disableCachingNullValues();
 
-      return RedisCacheManager.builder(factory)
+      // Listado público: serializer tipado (PublicListingPage), el genérico devuelve Maps
+      RedisCacheConfiguration publicListingConfiguration = redisCacheConfiguration
+              .entryTtl(publicListingCacheProperties.ttl())
+              .serializeValuesWith(RedisSerializationContext.SerializationPair
+                      .fromSerializer(new Jackson2JsonRedisSerializer<>(objectMapper, PublicListingPage.class)));
+
+      // clear() con SCAN en lotes en lugar de KEYS (no bloquea Redis)
+      return RedisCacheManager.builder(RedisCacheWriter.nonLockingRedisCacheWriter(factory, BatchStrategies.scan(1000)))
               .cacheDefaults(redisCacheConfiguration)
+              .withCacheConfiguration(PublicListingService.CACHE_NAME, publicListingConfiguration)
               .build();
    }
 
    @Bean
    public RedisTemplate<String, Object> redisTemplate(
            RedisConnectionFactory factory,
-           ObjectMapper objectMapper) {
+           ObjectMapper objectMapper,
+           ShortUrlCacheProperties shortUrlCacheProperties) {
 
       RedisTemplate<String,Object> redisTemplate = new RedisTemplate<>();
       redisTemplate.setConnectionFactory(factory);
@@ -76,10 +96,31 @@ public class RedisConfig {
       GenericJackson2JsonRedisSerializer jackson2JsonRedisSerializer =
               new GenericJackson2JsonRedisSerializer(objectMapper);
 
-      redisTemplate.setValueSerializer(jackson2JsonRedisSerializer);
+      // ShortUrlCacheDto en formato binario compacto (lee también las entradas JSON existentes)
+      redisTemplate.setValueSerializer(
+              new ShortUrlCacheSerializer(jackson2JsonRedisSerializer, shortUrlCacheProperties.format()));
       redisTemplate.setHashValueSerializer(jackson2JsonRedisSerializer);
       redisTemplate.afterPropertiesSet();
 
       return redisTemplate;
    }
-}
\ No newline at end of file
+
+   // Suscripción al canal de invalidaciones del near cache (coherencia entre instancias)
+   // y al canal de claves creadas (filtro de claves de cada instancia).
+   @Bean
+   public RedisMessageListenerContainer redisMessageListenerContainer(
+           RedisConnectionFactory factory,
+           NearCacheInvalidationListener nearCacheInvalidationListener,
+           NearCacheProperties nearCacheProperties,
+           ShortKeyCreatedListener shortKeyCreatedListener,
+           ShortKeyFilterProperties shortKeyFilterProperties) {
+
+      RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+      container.setConnectionFactory(factory);
+      container.addMessageListener(nearCacheInvalidationListener,
+              new ChannelTopic(nearCacheProperties.invalidationChannel()));
+      container.addMessageListener(shortKeyCreatedListener,
+              new ChannelTopic(shortKeyFilterProperties.createdChannel()));
+      return container;
+   }
+}
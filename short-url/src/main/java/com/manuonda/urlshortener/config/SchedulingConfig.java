@@ -0,0 +1,38 @@
+package com.manuonda.urlshortener.config;
+
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Two schedulers, so long database jobs never delay the frequent ones.
+ *
+ * {@code taskScheduler} (spring.task.scheduling.*) runs the short periodic jobs: pending click flush,
+ * analytics flush, circuit breaker probe, hot keys refresh, key pool refill, filter catch-up.
+ * {@link #MAINTENANCE_SCHEDULER} runs the jobs that scan or rewrite large tables (expiry sweep, key
+ * filter rebuild, click sync, rollup retention), one thread each so they never wait on one another.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String MAINTENANCE_SCHEDULER = "maintenanceScheduler";
+
+    private static final int MAINTENANCE_JOBS = 4;
+
+    // declaring a TaskScheduler bean turns off the auto-configured one: this is it, same properties
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(MAINTENANCE_SCHEDULER)
+    public ThreadPoolTaskScheduler maintenanceScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(MAINTENANCE_JOBS);
+        scheduler.setThreadNamePrefix("maintenance-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+}
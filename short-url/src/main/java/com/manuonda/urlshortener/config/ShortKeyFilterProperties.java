@@ -0,0 +1,57 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Rejection of unknown short keys before they reach the database.
+ *
+ * @param enabled                  when false every cache miss goes to the database
+ * @param expectedInsertions       minimum number of keys the Bloom filter is sized for
+ *                                 (a rebuild sizes it for twice the current row count if larger)
+ * @param falsePositiveProbability target false positive rate at {@code expectedInsertions}
+ * @param rebuildInterval          the filter is rebuilt from short_urls this often (drops deleted keys,
+ *                                 resizes as the table grows, repairs lost creation messages)
+ * @param createdChannel           Redis pub/sub channel used to add new keys on every instance
+ * @param catchUpInterval          keys created since the last load are read from short_urls this often,
+ *                                 and in the background whenever a creation message reveals a gap
+ * @param catchUpOverlap           a catch-up reads the rows created since the previous one minus this
+ *                                 margin (creation transactions still open, clock skew between instances)
+ * @param negativeCacheMaximumSize max number of keys remembered as missing
+ * @param negativeCacheTtl         how long a key confirmed missing by the database is rejected
+ */
+@ConfigurationProperties(prefix = "app.short-key-filter")
+@Validated
+public record ShortKeyFilterProperties(
+        @DefaultValue("true")
+        boolean enabled,
+        @DefaultValue("1000000")
+        @Min(1000)
+        long expectedInsertions,
+        @DefaultValue("0.01")
+        @DecimalMin("0.0001")
+        @DecimalMax("0.5")
+        double falsePositiveProbability,
+        @DefaultValue("6h")
+        Duration rebuildInterval,
+        @NotBlank
+        @DefaultValue("shorturl:created")
+        String createdChannel,
+        @DefaultValue("30s")
+        Duration catchUpInterval,
+        @DefaultValue("1m")
+        Duration catchUpOverlap,
+        @DefaultValue("100000")
+        @Min(1)
+        long negativeCacheMaximumSize,
+        @DefaultValue("30s")
+        Duration negativeCacheTtl
+) {
+}
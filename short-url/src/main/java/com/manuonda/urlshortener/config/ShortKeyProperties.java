@@ -0,0 +1,61 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Short key allocation.
+ *
+ * @param strategy which {@code ShortKeyGenerator} is used (random by default, the only one that
+ *                 needs no setup)
+ * @param secret   key of the permutation applied to sequence values, required by the sequence
+ *                 strategy (no default: whoever knows it can enumerate the keys); changing it
+ *                 changes the keys generated from then on (never the existing ones)
+ * @param pool     pre-generated key pool used by the pool strategy
+ */
+@ConfigurationProperties(prefix = "app.short-key")
+@Validated
+public record ShortKeyProperties(
+        @DefaultValue("random")
+        Strategy strategy,
+        String secret,
+        @Valid
+        @DefaultValue
+        Pool pool
+) {
+
+    public enum Strategy {
+        /** random key + existsByShortKey retry loop */
+        RANDOM,
+        /** block-reserved sequence + keyed permutation, no uniqueness lookups */
+        SEQUENCE,
+        /** pre-validated keys popped from a Redis set refilled in background */
+        POOL
+    }
+
+    /**
+     * @param lowWatermark refill when the pool holds fewer keys than this
+     * @param targetSize   size the refiller tops the pool up to
+     * @param batchSize    keys generated, validated (one query) and added (one SADD) per batch
+     * @param refillInterval delay between two refill checks
+     */
+    public record Pool(
+            @DefaultValue("10000")
+            @Min(1)
+            int lowWatermark,
+            @DefaultValue("50000")
+            @Min(1)
+            int targetSize,
+            @DefaultValue("1000")
+            @Min(1)
+            int batchSize,
+            @DefaultValue("10s")
+            Duration refillInterval
+    ) {
+    }
+}
@@ -0,0 +1,37 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.NotNull;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+/**
+ * Redis entries of the short URLs.
+ *
+ * @param format encoding of new entries; both formats are always readable, so json can be kept
+ *               while instances that only read JSON are still running (rolling upgrade)
+ * @param layout keys: shorturl:/clicks:/limit: string keys per short URL; hash: one url:{shortKey}
+ *               hash holding metadata, click counter and limit (existing keys are migrated at startup).
+ *               Every instance must use the same layout
+ */
+@ConfigurationProperties(prefix = "app.short-url-cache")
+@Validated
+public record ShortUrlCacheProperties(
+        @NotNull
+        @DefaultValue("binary")
+        Format format,
+        @NotNull
+        @DefaultValue("keys")
+        Layout layout
+) {
+
+    public enum Format {
+        BINARY,
+        JSON
+    }
+
+    public enum Layout {
+        KEYS,
+        HASH
+    }
+}
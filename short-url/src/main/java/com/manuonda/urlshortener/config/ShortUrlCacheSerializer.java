@@ -0,0 +1,226 @@
+package com.manuonda.urlshortener.config;
+
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Value serializer of the short URL cache: {@link ShortUrlCacheDto} in a compact binary format,
+ * anything else (and every value when the format is JSON) through the JSON serializer.
+ * Values are read in either format, so entries written by older instances stay readable.
+ *
+ * Binary layout, version 1:
+ * <pre>
+ * magic (0xC5, never the first byte of JSON) | version | presence bits (varint) | present fields
+ *   bit 0 id           zigzag varint
+ *   bit 1 shortKey     varint length + UTF-8
+ *   bit 2 originalUrl  varint length + UTF-8
+ *   bit 3 isPrivate    1 byte
+ *   bit 4 expiresAt    zigzag varint epoch seconds + varint nanos
+ *   bit 5 createdById  zigzag varint
+ *   bit 6 clickCount   zigzag varint
+ *   bit 7 maxClicks    zigzag varint
+ * </pre>
+ * Null fields are left out. New fields take the next bit and are appended, so a reader ignores the
+ * fields it does not know (trailing bytes) and reads those missing from older entries as null.
+ * An incompatible change bumps the version: entries of an unknown version fail to decode, which
+ * the cache treats as a miss (reloaded from the database).
+ */
+public class ShortUrlCacheSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte VERSION = 1;
+
+    private static final int ID = 1;
+    private static final int SHORT_KEY = 1 << 1;
+    private static final int ORIGINAL_URL = 1 << 2;
+    private static final int IS_PRIVATE = 1 << 3;
+    private static final int EXPIRES_AT = 1 << 4;
+    private static final int CREATED_BY_ID = 1 << 5;
+    private static final int CLICK_COUNT = 1 << 6;
+    private static final int MAX_CLICKS = 1 << 7;
+
+    // magic, version, presence, 5 longs (varints up to 10 bytes), nanos, isPrivate, 2 string lengths
+    private static final int MAX_FIXED_SIZE = 2 + 10 + 5 * 10 + 5 + 1 + 2 * 5;
+
+    private final RedisSerializer<Object> json;
+    private final ShortUrlCacheProperties.Format format;
+
+    public ShortUrlCacheSerializer(RedisSerializer<Object> json, ShortUrlCacheProperties.Format format) {
+        this.json = json;
+        this.format = format;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (format == ShortUrlCacheProperties.Format.BINARY && value instanceof ShortUrlCacheDto dto) {
+            return encode(dto);
+        }
+        return json.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == MAGIC) {
+            return decode(bytes);
+        }
+        return json.deserialize(bytes);
+    }
+
+    public static byte[] encode(ShortUrlCacheDto dto) {
+        byte[] shortKey = dto.shortKey() != null ? dto.shortKey().getBytes(StandardCharsets.UTF_8) : null;
+        byte[] originalUrl = dto.originalUrl() != null ? dto.originalUrl().getBytes(StandardCharsets.UTF_8) : null;
+        int presence = (dto.id() != null ? ID : 0)
+                | (shortKey != null ? SHORT_KEY : 0)
+                | (originalUrl != null ? ORIGINAL_URL : 0)
+                | (dto.isPrivate() != null ? IS_PRIVATE : 0)
+                | (dto.expiresAt() != null ? EXPIRES_AT : 0)
+                | (dto.createdById() != null ? CREATED_BY_ID : 0)
+                | (dto.clickCount() != null ? CLICK_COUNT : 0)
+                | (dto.maxClicks() != null ? MAX_CLICKS : 0);
+
+        Writer out = new Writer(MAX_FIXED_SIZE
+                + (shortKey != null ? shortKey.length : 0) + (originalUrl != null ? originalUrl.length : 0));
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeVarLong(presence);
+        if (dto.id() != null) {
+            out.writeZigZag(dto.id());
+        }
+        if (shortKey != null) {
+            out.writeBytes(shortKey);
+        }
+        if (originalUrl != null) {
+            out.writeBytes(originalUrl);
+        }
+        if (dto.isPrivate() != null) {
+            out.writeByte(dto.isPrivate() ? (byte) 1 : (byte) 0);
+        }
+        if (dto.expiresAt() != null) {
+            out.writeZigZag(dto.expiresAt().getEpochSecond());
+            out.writeVarLong(dto.expiresAt().getNano());
+        }
+        if (dto.createdById() != null) {
+            out.writeZigZag(dto.createdById());
+        }
+        if (dto.clickCount() != null) {
+            out.writeZigZag(dto.clickCount());
+        }
+        if (dto.maxClicks() != null) {
+            out.writeZigZag(dto.maxClicks());
+        }
+        return out.toByteArray();
+    }
+
+    public static ShortUrlCacheDto decode(byte[] bytes) {
+        if (bytes.length < 3 || bytes[0] != MAGIC) {
+            throw new SerializationException("Not a binary ShortUrlCacheDto");
+        }
+        if (bytes[1] != VERSION) {
+            throw new SerializationException("Unsupported ShortUrlCacheDto format version " + bytes[1]);
+        }
+        try {
+            Reader in = new Reader(bytes, 2);
+            long presence = in.readVarLong();
+            Long id = (presence & ID) != 0 ? in.readZigZag() : null;
+            String shortKey = (presence & SHORT_KEY) != 0 ? in.readString() : null;
+            String originalUrl = (presence & ORIGINAL_URL) != 0 ? in.readString() : null;
+            Boolean isPrivate = (presence & IS_PRIVATE) != 0 ? in.readByte() != 0 : null;
+            Instant expiresAt = (presence & EXPIRES_AT) != 0
+                    ? Instant.ofEpochSecond(in.readZigZag(), in.readVarLong())
+                    : null;
+            Long createdById = (presence & CREATED_BY_ID) != 0 ? in.readZigZag() : null;
+            Long clickCount = (presence & CLICK_COUNT) != 0 ? in.readZigZag() : null;
+            Integer maxClicks = (presence & MAX_CLICKS) != 0 ? Math.toIntExact(in.readZigZag()) : null;
+            return new ShortUrlCacheDto(id, shortKey, originalUrl, isPrivate, expiresAt, createdById,
+                    clickCount, maxClicks);
+        } catch (IndexOutOfBoundsException | ArithmeticException | DateTimeException e) {
+            // truncated input, or lengths / numbers out of range
+            throw new SerializationException("Corrupt binary ShortUrlCacheDto", e);
+        }
+    }
+
+    private static final class Writer {
+        private final byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeByte(byte value) {
+            buffer[position++] = value;
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeZigZag(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        void writeBytes(byte[] value) {
+            writeVarLong(value.length);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            position += value.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("Malformed varint in binary ShortUrlCacheDto");
+        }
+
+        long readZigZag() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() {
+            int length = Math.toIntExact(readVarLong());
+            if (length < 0 || length > buffer.length - position) {
+                throw new SerializationException("Truncated binary ShortUrlCacheDto");
+            }
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.manuonda.urlshortener.config;
+
+import jakarta.validation.constraints.Min;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+
+/**
+ * Original URL existence check (enabled with {@code app.validate-original-url}).
+ *
+ * @param async              create the short URL as PENDING_VALIDATION and activate it when the
+ *                           check completes (it answers 404 until then); when false (default) the
+ *                           check runs before the insert
+ * @param maxConcurrency     checks in flight at the same time, the rest wait for a slot
+ * @param connectTimeout     HTTP connect timeout
+ * @param requestTimeout     HTTP request timeout (HEAD)
+ * @param hostCacheTtl       how long a reachable host is trusted without a new check
+ * @param hostCacheMaximumSize max number of hosts remembered
+ * @param pendingRetryAfter  PENDING_VALIDATION rows older than this are checked again
+ *                           (the instance that created them may have stopped before finishing)
+ */
+@ConfigurationProperties(prefix = "app.url-validation")
+@Validated
+public record UrlValidationProperties(
+        @DefaultValue("false")
+        boolean async,
+        @DefaultValue("50")
+        @Min(1)
+        int maxConcurrency,
+        @DefaultValue("3s")
+        Duration connectTimeout,
+        @DefaultValue("5s")
+        Duration requestTimeout,
+        @DefaultValue("10m")
+        Duration hostCacheTtl,
+        @DefaultValue("10000")
+        @Min(1)
+        long hostCacheMaximumSize,
+        @DefaultValue("2m")
+        Duration pendingRetryAfter
+) {
+}
@@ -3,6 +3,7 @@ package com.manuonda.urlshortener.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.CsrfConfigurer;
@@ -28,7 +29,7 @@ public class WebSecurityConfig {
                         .requestMatchers("/error","/webjars/**","/js/**","/images/**",
                                 "/","/short-urls","/s/**","/register","/login"
                         ).permitAll()
-                        .requestMatchers("/my-urls").authenticated()
+                        .requestMatchers("/my-urls","/api/**").authenticated()
                         .requestMatchers("/admin/**").hasRole("ADMIN")
                         .anyRequest().permitAll()
                 )
@@ -36,6 +37,8 @@ public class WebSecurityConfig {
                         .loginPage("/login")
                         .defaultSuccessUrl("/")
                         .permitAll())
+                // API clients (bulk creation) authenticate with HTTP Basic
+                .httpBasic(Customizer.withDefaults())
                 .logout(logout ->logout.logoutUrl("/logout")
                         .logoutSuccessUrl("/")
                         .permitAll());
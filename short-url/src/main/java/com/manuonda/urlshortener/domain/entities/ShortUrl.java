@@ -1,5 +1,6 @@
 package com.manuonda.urlshortener.domain.entities;
 
+import com.manuonda.urlshortener.domain.models.ShortUrlStatus;
 import jakarta.persistence.*;
 import org.hibernate.annotations.ColumnDefault;
 
@@ -42,6 +43,11 @@ public class ShortUrl {
     @Column(name="max_clicks")
     private Integer maxClicks;
 
+    @ColumnDefault("'ACTIVE'")
+    @Column(name = "status", nullable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private ShortUrlStatus status = ShortUrlStatus.ACTIVE;
+
 
     public Long getId() {
         return id;
@@ -122,4 +128,12 @@ public class ShortUrl {
     public void setMaxClicks(Integer maxClicks) {
         this.maxClicks = maxClicks;
     }
-}
\ No newline at end of file
+
+    public ShortUrlStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(ShortUrlStatus status) {
+        this.status = status;
+    }
+}
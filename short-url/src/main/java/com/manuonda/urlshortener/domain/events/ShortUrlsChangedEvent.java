@@ -0,0 +1,9 @@
+package com.manuonda.urlshortener.domain.events;
+
+/**
+ * Published when short URLs are created, activated (validation completed) or deleted.
+ *
+ * @param publicListingAffected false when the public listing (public ACTIVE short URLs) did not change
+ */
+public record ShortUrlsChangedEvent(boolean publicListingAffected) {
+}
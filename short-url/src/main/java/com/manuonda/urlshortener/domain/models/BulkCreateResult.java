@@ -0,0 +1,27 @@
+package com.manuonda.urlshortener.domain.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one row of a bulk creation: either the created short URL or the error.
+ *
+ * @param line position of the row in the request (1-based, CSV header excluded)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkCreateResult(
+        long line,
+        String originalUrl,
+        String shortKey,
+        String shortUrl,
+        ShortUrlStatus status,
+        String error
+) {
+    public static BulkCreateResult created(long line, String originalUrl, String shortKey, String shortUrl,
+                                           ShortUrlStatus status) {
+        return new BulkCreateResult(line, originalUrl, shortKey, shortUrl, status, null);
+    }
+
+    public static BulkCreateResult failed(long line, String originalUrl, String error) {
+        return new BulkCreateResult(line, originalUrl, null, null, null, error);
+    }
+}
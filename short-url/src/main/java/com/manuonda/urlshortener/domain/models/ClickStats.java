@@ -0,0 +1,32 @@
+package com.manuonda.urlshortener.domain.models;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Click analytics of one short URL, read from the rollup tables.
+ *
+ * @param recordedClicks clicks recorded by the analytics pipeline (within the day rollup retention,
+ *                       sampled events counted with their weight)
+ * @param perMinute      last hour, one bucket per minute with clicks
+ * @param perHour        last 24 hours, one bucket per hour with clicks
+ * @param perDay         last 30 days, one bucket per day with clicks
+ * @param referrers      top referrer hosts of the last 30 days ("direct" when there was no Referer)
+ * @param agentClasses   clicks of the last 30 days per user agent class (desktop, mobile, tablet, bot, unknown)
+ * @param countries      top countries of the last 30 days ("--" when unknown)
+ */
+public record ClickStats(
+        String shortKey,
+        long recordedClicks,
+        List<Bucket> perMinute,
+        List<Bucket> perHour,
+        List<Bucket> perDay,
+        Map<String, Long> referrers,
+        Map<String, Long> agentClasses,
+        Map<String, Long> countries
+) {
+
+    public record Bucket(Instant start, long clicks) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.manuonda.urlshortener.domain.models;
+
+/**
+ * Entry of the heavy hitter top-K.
+ *
+ * @param estimatedClicks decayed click estimate (Count-Min sketch, halved every refresh)
+ * @param pinned          true if its cache entry is held in process memory
+ */
+public record HotShortKey(String shortKey, long estimatedClicks, boolean pinned) {
+}
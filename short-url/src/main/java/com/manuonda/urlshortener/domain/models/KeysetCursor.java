@@ -0,0 +1,53 @@
+package com.manuonda.urlshortener.domain.models;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by (createdAt DESC, id DESC).
+ * Encoded in links as an opaque URL-safe token.
+ *
+ * @param before true to read the rows newer than the position (previous page),
+ *               false to read the older ones (next page)
+ */
+public record KeysetCursor(Instant createdAt, long id, boolean before) {
+
+    /** Start of the listing: every row is older. */
+    public static final KeysetCursor FIRST = new KeysetCursor(Instant.parse("9999-12-31T23:59:59Z"), Long.MAX_VALUE, false);
+
+    /**
+     * @param after  token of the last row of the current page (next page), may be null
+     * @param before token of the first row of the current page (previous page), may be null
+     * @return the cursor, {@link #FIRST} when none is given or the token is invalid (including a
+     * position outside the listing, which the database could not compare)
+     */
+    public static KeysetCursor parse(String after, String before) {
+        try {
+            if (after != null && !after.isBlank()) {
+                return decode(after, false);
+            }
+            if (before != null && !before.isBlank()) {
+                return decode(before, true);
+            }
+        } catch (RuntimeException e) {
+            // tampered or outdated link: start over
+        }
+        return FIRST;
+    }
+
+    public static String encode(Instant createdAt, Long id) {
+        String value = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static KeysetCursor decode(String token, boolean before) {
+        String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = value.indexOf('|');
+        Instant createdAt = Instant.parse(value.substring(0, separator));
+        if (createdAt.isBefore(Instant.EPOCH) || createdAt.isAfter(FIRST.createdAt())) {
+            throw new IllegalArgumentException("Cursor out of range: " + createdAt);
+        }
+        return new KeysetCursor(createdAt, Long.parseLong(value.substring(separator + 1)), before);
+    }
+}
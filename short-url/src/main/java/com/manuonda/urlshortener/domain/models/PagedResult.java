@@ -12,7 +12,9 @@ public record PagedResult<T>(
         boolean isFirst,
         boolean isLast,
         boolean hasNext,
-        boolean hasPrevious) {
+        boolean hasPrevious,
+        String previousCursor,
+        String nextCursor) {
 
     public static <T> PagedResult<T> from(Page<T> page) {
         return new PagedResult<>(
@@ -23,6 +25,27 @@ public record PagedResult<T>(
                 page.isFirst(),
                 page.isLast(),
                 page.hasNext(),
-                page.hasPrevious());
+                page.hasPrevious(),
+                null,
+                null);
+    }
+
+    /**
+     * Keyset page: no page number nor total pages (totalPages is -1),
+     * totalElements is an estimate or -1 when unknown.
+     */
+    public static <T> PagedResult<T> keyset(List<T> data, boolean hasNext, boolean hasPrevious,
+                                            String previousCursor, String nextCursor, long totalElements) {
+        return new PagedResult<>(
+                data,
+                0,
+                -1,
+                totalElements,
+                !hasPrevious,
+                !hasNext,
+                hasNext,
+                hasPrevious,
+                previousCursor,
+                nextCursor);
     }
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.manuonda.urlshortener.domain.models;
+
+import java.time.Instant;
+
+/**
+ * Page of the public listing with the time it was read from the database
+ * (Last-Modified / ETag of the home page).
+ */
+public record PublicListingPage(PagedResult<ShortUrlDto> shortUrls, Instant loadedAt) {
+}
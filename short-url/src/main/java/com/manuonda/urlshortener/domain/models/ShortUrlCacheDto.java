@@ -10,6 +10,7 @@ import java.time.Instant;
  * Serializable sin problemas de Jackson
  *
  * @JsonTypeInfo asegura que Jackson siempre incluya el tipo como propiedad @class en la serialización
+ * (formato JSON; por defecto se guarda en binario, ver ShortUrlCacheSerializer)
  */
 @JsonTypeInfo(
         use = JsonTypeInfo.Id.CLASS,
@@ -10,5 +10,6 @@ import java.time.Instant;
 public record ShortUrlDto(Long id, String shortKey, String originalUrl,
                           Boolean isPrivate, Instant expiresAt,
                           UserDto createdBy, Long clickCount,
-                          Instant createdAt, Integer maxClicks) implements Serializable {
+                          Instant createdAt, Integer maxClicks,
+                          ShortUrlStatus status) implements Serializable {
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.manuonda.urlshortener.domain.models;
+
+public enum ShortUrlStatus {
+    ACTIVE,
+    PENDING_VALIDATION,
+    INVALID
+}
@@ -1,7 +1,9 @@
 package com.manuonda.urlshortener.repositorys;
 
 import com.manuonda.urlshortener.domain.entities.ShortUrl;
+import com.manuonda.urlshortener.domain.models.ShortUrlStatus;
 import jakarta.persistence.Entity;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
@@ -9,8 +11,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.config.JpaRepositoryNameSpaceHandler;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.nio.channels.FileChannel;
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,6 +37,9 @@ public interface ShortUrlRepository extends JpaRepository<ShortUrl, Long> {
 
    boolean existsByShortKey(String shortKey);
 
+   @Query("select su.shortKey from ShortUrl su where su.shortKey in :shortKeys")
+   List<String> findExistingShortKeys(Collection<String> shortKeys);
+
    Optional<ShortUrl>  findByShortKey(String shortKey);
 
     Page<ShortUrl> findByCreatedById(Long userId, Pageable pageable);
@@ -39,11 +47,75 @@ public interface ShortUrlRepository extends JpaRepository<ShortUrl, Long> {
    @Modifying
    void deleteByIdInAndCreatedById(List<Long> ids, Long userId);
 
+   @Query("select su.shortKey from ShortUrl su where su.id in :ids and su.createdBy.id = :userId")
+   List<String> findShortKeysByIdInAndCreatedById(List<Long> ids, Long userId);
+
    @Query("select u from ShortUrl u left join fetch u.createdBy")
    Page<ShortUrl> findAllShortUrls(Pageable pageable);
 
 
-   @Query("select su from ShortUrl su left join fetch su.createdBy where su.isPrivate = false")
+   // Public listing: public and ACTIVE only (pending or invalid short URLs are not redirected)
+
+   @Query("""
+           select su from ShortUrl su left join fetch su.createdBy
+           where su.isPrivate = false and su.status = com.manuonda.urlshortener.domain.models.ShortUrlStatus.ACTIVE
+           """)
    Page<ShortUrl> findPublicShortUrls(Pageable pageable);
 
+   // Keyset pagination, (createdAt, id) cursor. The redundant createdAt bound keeps the index
+   // range scan tight; "older" walks (created_at DESC, id DESC), "newer" walks it backwards.
+
+   @Query("""
+           select su from ShortUrl su left join fetch su.createdBy
+           where su.isPrivate = false and su.status = com.manuonda.urlshortener.domain.models.ShortUrlStatus.ACTIVE
+             and su.createdAt <= :createdAt and (su.createdAt < :createdAt or su.id < :id)
+           order by su.createdAt desc, su.id desc
+           """)
+   List<ShortUrl> findPublicShortUrlsOlderThan(Instant createdAt, Long id, Limit limit);
+
+   @Query("""
+           select su from ShortUrl su left join fetch su.createdBy
+           where su.isPrivate = false and su.status = com.manuonda.urlshortener.domain.models.ShortUrlStatus.ACTIVE
+             and su.createdAt >= :createdAt and (su.createdAt > :createdAt or su.id > :id)
+           order by su.createdAt asc, su.id asc
+           """)
+   List<ShortUrl> findPublicShortUrlsNewerThan(Instant createdAt, Long id, Limit limit);
+
+   @Query("""
+           select su from ShortUrl su left join fetch su.createdBy
+           where su.createdBy.id = :userId
+             and su.createdAt <= :createdAt and (su.createdAt < :createdAt or su.id < :id)
+           order by su.createdAt desc, su.id desc
+           """)
+   List<ShortUrl> findUserShortUrlsOlderThan(Long userId, Instant createdAt, Long id, Limit limit);
+
+   @Query("""
+           select su from ShortUrl su left join fetch su.createdBy
+           where su.createdBy.id = :userId
+             and su.createdAt >= :createdAt and (su.createdAt > :createdAt or su.id > :id)
+           order by su.createdAt asc, su.id asc
+           """)
+   List<ShortUrl> findUserShortUrlsNewerThan(Long userId, Instant createdAt, Long id, Limit limit);
+
+   @Query("""
+           select su from ShortUrl su left join fetch su.createdBy
+           where su.createdAt <= :createdAt and (su.createdAt < :createdAt or su.id < :id)
+           order by su.createdAt desc, su.id desc
+           """)
+   List<ShortUrl> findAllShortUrlsOlderThan(Instant createdAt, Long id, Limit limit);
+
+   @Query("""
+           select su from ShortUrl su left join fetch su.createdBy
+           where su.createdAt >= :createdAt and (su.createdAt > :createdAt or su.id > :id)
+           order by su.createdAt asc, su.id asc
+           """)
+   List<ShortUrl> findAllShortUrlsNewerThan(Instant createdAt, Long id, Limit limit);
+
+   List<ShortUrl> findTop100ByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(ShortUrlStatus status, Instant createdAt);
+
+   @Modifying
+   @Transactional
+   @Query("update ShortUrl su set su.status = :newStatus where su.shortKey = :shortKey and su.status = :currentStatus")
+   int updateStatus(String shortKey, ShortUrlStatus currentStatus, ShortUrlStatus newStatus);
+
 }
@@ -0,0 +1,129 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.manuonda.urlshortener.service.UrlCacheService.CLICKS_PREFIX;
+import static com.manuonda.urlshortener.service.UrlCacheService.HASH_PREFIX;
+import static com.manuonda.urlshortener.service.UrlCacheService.LIMIT_PREFIX;
+import static com.manuonda.urlshortener.service.UrlCacheService.SHORT_URL_PREFIX;
+
+/**
+ * Moves the shorturl:/clicks:/limit: keys of every short URL into its url:{shortKey} hash when the
+ * hash layout is enabled. Runs once (first instance to start), walking the keyspace with SCAN and
+ * moving each chunk with pipelined calls of an atomic script. Redirects keep working meanwhile:
+ * counters incremented in the hash before their key is moved are added up, not overwritten.
+ * Delete {@value #MIGRATED_KEY} to run it again (e.g. after instances on the old layout were left running).
+ */
+@Service
+public class CacheLayoutMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheLayoutMigration.class);
+
+    static final String MIGRATED_KEY = "cachelayout:hash:migrated";
+    private static final String LOCK_KEY = "cachelayout:hash:migrating";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(30);
+    private static final int CHUNK_SIZE = 500;
+    private static final RedisScript<Long> MIGRATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/migrate-to-hash-layout.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ShortUrlCacheProperties properties;
+
+    public CacheLayoutMigration(StringRedisTemplate stringRedisTemplate, ShortUrlCacheProperties properties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateToHashLayout() {
+        if (properties.layout() != ShortUrlCacheProperties.Layout.HASH) {
+            return;
+        }
+        try {
+            if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(MIGRATED_KEY))
+                    || !Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                        .setIfAbsent(LOCK_KEY, Instant.now().toString(), LOCK_TTL))) {
+                return;
+            }
+            long start = System.nanoTime();
+            long migrated = migrate();
+            stringRedisTemplate.opsForValue().set(MIGRATED_KEY, Instant.now().toString());
+            stringRedisTemplate.delete(LOCK_KEY);
+            logger.info("Cache layout migration done: {} short URLs moved to hashes in {} ms",
+                    migrated, Duration.ofNanos(System.nanoTime() - start).toMillis());
+        } catch (Exception e) {
+            // the lock expires, the next instance to start retries (moving a key twice is harmless)
+            logger.error("Error migrating short URL cache to the hash layout", e);
+        }
+    }
+
+    private long migrate() {
+        String sha = stringRedisTemplate.execute((RedisCallback<String>) connection ->
+                connection.scriptingCommands().scriptLoad(MIGRATE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8)));
+        ScanOptions options = ScanOptions.scanOptions().count(CHUNK_SIZE).build();
+        Set<String> chunk = new LinkedHashSet<>();
+        long migrated = 0;
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String shortKey = shortKeyOf(cursor.next());
+                if (shortKey != null) {
+                    chunk.add(shortKey);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        migrated += migrateChunk(sha, chunk);
+                    }
+                }
+            }
+        }
+        return migrated + migrateChunk(sha, chunk);
+    }
+
+    // null for keys that are not part of the old layout
+    private static String shortKeyOf(String key) {
+        for (String prefix : List.of(SHORT_URL_PREFIX, CLICKS_PREFIX, LIMIT_PREFIX)) {
+            if (key.startsWith(prefix)) {
+                return key.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+
+    private long migrateChunk(String sha, Set<String> shortKeys) {
+        if (shortKeys.isEmpty()) {
+            return 0;
+        }
+        byte[] now = Long.toString(Instant.now().getEpochSecond()).getBytes(StandardCharsets.UTF_8);
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String shortKey : shortKeys) {
+                connection.scriptingCommands().evalSha(sha, ReturnType.INTEGER, 4,
+                        bytes(SHORT_URL_PREFIX + shortKey), bytes(CLICKS_PREFIX + shortKey),
+                        bytes(LIMIT_PREFIX + shortKey), bytes(HASH_PREFIX + shortKey), now);
+            }
+            return null;
+        });
+        shortKeys.clear();
+        return results.stream().filter(result -> Long.valueOf(1L).equals(result)).count();
+    }
+
+    private static byte[] bytes(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+}
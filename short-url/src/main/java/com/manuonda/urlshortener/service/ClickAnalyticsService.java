@@ -0,0 +1,384 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ClickAnalyticsProperties;
+import com.manuonda.urlshortener.config.SchedulingConfig;
+import com.manuonda.urlshortener.domain.entities.ShortUrl;
+import com.manuonda.urlshortener.domain.models.ClickStats;
+import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Click analytics pipeline.
+ *
+ * Each redirect offers a click event (timestamp, short key and the raw Referer, User-Agent and client
+ * address) to a {@link ClickEventBuffer}: no allocation, no lock and no I/O on the request thread.
+ * When the buffer is filling up events are sampled (one in {@code overloadSampleRate} kept, counted
+ * with that weight), when it is full they are dropped; the request never waits.
+ *
+ * A scheduled writer drains the buffer, derives the dimensions (referrer host, user agent class,
+ * country from the local range table) and adds the aggregated clicks to the per minute, hour and day
+ * rollup tables with batched upserts in one transaction. If the write fails the aggregates are kept
+ * and retried on the next run (up to {@code maxPendingRows}).
+ */
+@Service
+public class ClickAnalyticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickAnalyticsService.class);
+
+    static final String DIRECT = "direct";
+    private static final int MAX_REFERRER_HOST_LENGTH = 100;
+    private static final int TOP_DIMENSIONS = 10;
+
+    private static final String UPSERT_MINUTE_SQL = """
+            INSERT INTO click_stats_minute (short_key, bucket_start, clicks) VALUES (?, ?, ?)
+            ON CONFLICT (short_key, bucket_start) DO UPDATE SET clicks = click_stats_minute.clicks + EXCLUDED.clicks
+            """;
+    private static final String UPSERT_HOUR_SQL = """
+            INSERT INTO click_stats_hour (short_key, bucket_start, clicks) VALUES (?, ?, ?)
+            ON CONFLICT (short_key, bucket_start) DO UPDATE SET clicks = click_stats_hour.clicks + EXCLUDED.clicks
+            """;
+    private static final String UPSERT_DAY_SQL = """
+            INSERT INTO click_stats_day (short_key, bucket_start, referrer_host, agent_class, country, clicks)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (short_key, bucket_start, referrer_host, agent_class, country)
+            DO UPDATE SET clicks = click_stats_day.clicks + EXCLUDED.clicks
+            """;
+
+    record BucketKey(String shortKey, long bucketStart) {
+    }
+
+    record DayKey(String shortKey, long bucketStart, String referrerHost, String agentClass, String country) {
+    }
+
+    // batches are written in key order so concurrent writers (other instances) lock rows in the same order
+    private static final Comparator<BucketKey> BUCKET_ORDER =
+            Comparator.comparing(BucketKey::shortKey).thenComparingLong(BucketKey::bucketStart);
+    private static final Comparator<DayKey> DAY_ORDER = Comparator.comparing(DayKey::shortKey)
+            .thenComparingLong(DayKey::bucketStart)
+            .thenComparing(DayKey::referrerHost)
+            .thenComparing(DayKey::agentClass)
+            .thenComparing(DayKey::country);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ShortUrlRepository shortUrlRepository;
+    private final ClickAnalyticsProperties properties;
+    private final ClickEventBuffer buffer;
+    private final int samplingThreshold;
+    private final CountryLookup countryLookup;
+
+    // aggregates not yet written (only touched by the writer)
+    private final Map<BucketKey, Long> pendingMinutes = new TreeMap<>(BUCKET_ORDER);
+    private final Map<BucketKey, Long> pendingHours = new TreeMap<>(BUCKET_ORDER);
+    private final Map<DayKey, Long> pendingDays = new TreeMap<>(DAY_ORDER);
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder droppedRows = new LongAdder();
+    private final Timer flushTimer;
+
+    public ClickAnalyticsService(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 ShortUrlRepository shortUrlRepository,
+                                 ClickAnalyticsProperties properties,
+                                 ResourceLoader resourceLoader,
+                                 MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shortUrlRepository = shortUrlRepository;
+        this.properties = properties;
+        this.buffer = new ClickEventBuffer(properties.bufferSize());
+        this.samplingThreshold = (int) (buffer.capacity() * properties.samplingThreshold());
+        this.countryLookup = loadCountryTable(resourceLoader, properties.countryTable());
+        this.flushTimer = Timer.builder("shorturl.analytics.flush.duration").register(meterRegistry);
+        registerMetrics(meterRegistry);
+    }
+
+    private static CountryLookup loadCountryTable(ResourceLoader resourceLoader, String location) {
+        try {
+            CountryLookup lookup = CountryLookup.load(resourceLoader.getResource(location));
+            logger.info("Country table {} loaded: {} ranges", location, lookup.size());
+            return lookup;
+        } catch (Exception e) {
+            // analytics keep working, every country is reported as unknown
+            logger.error("Error loading country table {}", location, e);
+            return CountryLookup.empty();
+        }
+    }
+
+    /**
+     * shorturl.analytics.events{outcome=recorded|sampled_out|dropped}, shorturl.analytics.buffer.size
+     * and shorturl.analytics.dropped_rows (aggregates discarded after repeated write failures).
+     */
+    private void registerMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("shorturl.analytics.events", recorded, LongAdder::sum)
+                .tags("outcome", "recorded").register(meterRegistry);
+        FunctionCounter.builder("shorturl.analytics.events", sampledOut, LongAdder::sum)
+                .tags("outcome", "sampled_out").register(meterRegistry);
+        FunctionCounter.builder("shorturl.analytics.events", dropped, LongAdder::sum)
+                .tags("outcome", "dropped").register(meterRegistry);
+        FunctionCounter.builder("shorturl.analytics.dropped_rows", droppedRows, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("shorturl.analytics.buffer.size", buffer, ClickEventBuffer::size)
+                .description("Click events waiting to be aggregated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a redirect. Never blocks: the event is sampled when the buffer is filling up and
+     * dropped when it is full.
+     */
+    public void recordClick(String shortKey, HttpServletRequest request) {
+        if (!properties.enabled()) {
+            return;
+        }
+        int weight = 1;
+        if (buffer.size() >= samplingThreshold) {
+            if (ThreadLocalRandom.current().nextInt(properties.overloadSampleRate()) != 0) {
+                sampledOut.increment();
+                return;
+            }
+            weight = properties.overloadSampleRate();
+        }
+        if (buffer.offer(System.currentTimeMillis(), shortKey, request.getHeader(HttpHeaders.REFERER),
+                request.getHeader(HttpHeaders.USER_AGENT), request.getRemoteAddr(), weight)) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Drains the buffer and adds the aggregated clicks to the rollup tables.
+     */
+    @Scheduled(fixedDelayString = "${app.click-analytics.flush-interval:1s}")
+    public synchronized void flush() {
+        if (!properties.enabled()) {
+            return;
+        }
+        flushTimer.record(() -> {
+            int drained = buffer.drain(this::aggregate, buffer.capacity());
+            if (pendingMinutes.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(tx -> writeRollups());
+                logger.debug("Click analytics flushed: {} events, {} minute/{} hour/{} day rows",
+                        drained, pendingMinutes.size(), pendingHours.size(), pendingDays.size());
+                clearPending();
+            } catch (Exception e) {
+                logger.error("Error writing click rollups ({} day rows pending)", pendingDays.size(), e);
+                int pendingRows = pendingMinutes.size() + pendingHours.size() + pendingDays.size();
+                if (pendingRows > properties.maxPendingRows()) {
+                    droppedRows.add(pendingRows);
+                    clearPending();
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private void aggregate(long timestamp, String shortKey, String referrer, String userAgent,
+                           String clientIp, int weight) {
+        long minute = timestamp - Math.floorMod(timestamp, 60_000L);
+        long hour = timestamp - Math.floorMod(timestamp, 3_600_000L);
+        long day = timestamp - Math.floorMod(timestamp, 86_400_000L);
+        pendingMinutes.merge(new BucketKey(shortKey, minute), (long) weight, Long::sum);
+        pendingHours.merge(new BucketKey(shortKey, hour), (long) weight, Long::sum);
+        pendingDays.merge(new DayKey(shortKey, day, referrerHost(referrer), agentClass(userAgent),
+                countryLookup.country(clientIp)), (long) weight, Long::sum);
+    }
+
+    private void writeRollups() {
+        jdbcTemplate.batchUpdate(UPSERT_MINUTE_SQL, bucketArgs(pendingMinutes));
+        jdbcTemplate.batchUpdate(UPSERT_HOUR_SQL, bucketArgs(pendingHours));
+        List<Object[]> dayArgs = new ArrayList<>(pendingDays.size());
+        pendingDays.forEach((key, clicks) -> dayArgs.add(new Object[]{
+                key.shortKey(), toTimestamp(key.bucketStart()), key.referrerHost(), key.agentClass(),
+                key.country(), clicks}));
+        jdbcTemplate.batchUpdate(UPSERT_DAY_SQL, dayArgs);
+    }
+
+    private static List<Object[]> bucketArgs(Map<BucketKey, Long> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        rows.forEach((key, clicks) -> args.add(new Object[]{key.shortKey(), toTimestamp(key.bucketStart()), clicks}));
+        return args;
+    }
+
+    private void clearPending() {
+        pendingMinutes.clear();
+        pendingHours.clear();
+        pendingDays.clear();
+    }
+
+    /**
+     * Deletes the rollups older than their retention.
+     */
+    @Scheduled(fixedRate = 1, timeUnit = TimeUnit.HOURS, scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public void purgeExpiredRollups() {
+        if (!properties.enabled()) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            int minutes = jdbcTemplate.update("DELETE FROM click_stats_minute WHERE bucket_start < ?",
+                    toTimestamp(now.minus(properties.minuteRetention())));
+            int hours = jdbcTemplate.update("DELETE FROM click_stats_hour WHERE bucket_start < ?",
+                    toTimestamp(now.minus(properties.hourRetention())));
+            int days = jdbcTemplate.update("DELETE FROM click_stats_day WHERE bucket_start < ?",
+                    toTimestamp(now.minus(properties.dayRetention())));
+            logger.debug("Expired click rollups deleted: {} minute, {} hour, {} day rows", minutes, hours, days);
+        } catch (Exception e) {
+            logger.error("Error deleting expired click rollups", e);
+        }
+    }
+
+    /**
+     * @return the stats of the short URL, empty when it does not exist or the user may not see them
+     * (private short URLs: owner and admins only)
+     */
+    @Transactional(readOnly = true)
+    public Optional<ClickStats> getClickStats(String shortKey, Long userId, boolean admin) {
+        Optional<ShortUrl> shortUrl = shortUrlRepository.findByShortKey(shortKey);
+        if (shortUrl.isEmpty() || !canSeeStats(shortUrl.get(), userId, admin)) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        Instant monthAgo = now.minus(30, ChronoUnit.DAYS);
+        Long recordedClicks = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(clicks), 0) FROM click_stats_day WHERE short_key = ?", Long.class, shortKey);
+        return Optional.of(new ClickStats(
+                shortKey,
+                recordedClicks != null ? recordedClicks : 0,
+                buckets("SELECT bucket_start, clicks FROM click_stats_minute"
+                        + " WHERE short_key = ? AND bucket_start >= ? ORDER BY bucket_start", shortKey, now.minus(Duration.ofHours(1))),
+                buckets("SELECT bucket_start, clicks FROM click_stats_hour"
+                        + " WHERE short_key = ? AND bucket_start >= ? ORDER BY bucket_start", shortKey, now.minus(Duration.ofDays(1))),
+                buckets("SELECT bucket_start, SUM(clicks) FROM click_stats_day"
+                        + " WHERE short_key = ? AND bucket_start >= ? GROUP BY bucket_start ORDER BY bucket_start", shortKey, monthAgo),
+                breakdown("referrer_host", shortKey, monthAgo),
+                breakdown("agent_class", shortKey, monthAgo),
+                breakdown("country", shortKey, monthAgo)
+        ));
+    }
+
+    private static boolean canSeeStats(ShortUrl shortUrl, Long userId, boolean admin) {
+        if (admin || !Boolean.TRUE.equals(shortUrl.getIsPrivate())) {
+            return true;
+        }
+        return shortUrl.getCreatedBy() != null && Objects.equals(shortUrl.getCreatedBy().getId(), userId);
+    }
+
+    private List<ClickStats.Bucket> buckets(String sql, String shortKey, Instant from) {
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new ClickStats.Bucket(
+                rs.getObject(1, LocalDateTime.class).toInstant(ZoneOffset.UTC), rs.getLong(2)),
+                shortKey, toTimestamp(from));
+    }
+
+    // column is one of the fixed dimension names above, never user input
+    private Map<String, Long> breakdown(String column, String shortKey, Instant from) {
+        Map<String, Long> clicks = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT " + column + ", SUM(clicks) AS total FROM click_stats_day"
+                        + " WHERE short_key = ? AND bucket_start >= ? GROUP BY " + column
+                        + " ORDER BY total DESC LIMIT " + TOP_DIMENSIONS,
+                (RowCallbackHandler) rs -> clicks.put(rs.getString(1), rs.getLong(2)), shortKey, toTimestamp(from));
+        return clicks;
+    }
+
+    // rollup buckets are stored as UTC TIMESTAMP values
+    private static LocalDateTime toTimestamp(long epochMillis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000L), 0, ZoneOffset.UTC);
+    }
+
+    private static LocalDateTime toTimestamp(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    /**
+     * @return lower-cased host of the Referer URL, {@value #DIRECT} when absent or unparsable
+     */
+    static String referrerHost(String referrer) {
+        if (referrer == null || referrer.isBlank()) {
+            return DIRECT;
+        }
+        int start = referrer.indexOf("://");
+        start = start < 0 ? 0 : start + 3;
+        int end = start;
+        while (end < referrer.length() && "/?#".indexOf(referrer.charAt(end)) < 0) {
+            end++;
+        }
+        // authority without user info and port
+        int userInfo = referrer.lastIndexOf('@', end - 1);
+        if (userInfo >= start) {
+            start = userInfo + 1;
+        }
+        int port = referrer.indexOf(':', start);
+        if (port >= 0 && port < end) {
+            end = port;
+        }
+        if (end == start) {
+            return DIRECT;
+        }
+        return referrer.substring(start, Math.min(end, start + MAX_REFERRER_HOST_LENGTH)).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return desktop, mobile, tablet, bot or unknown
+     */
+    static String agentClass(String userAgent) {
+        if (userAgent == null || userAgent.isBlank()) {
+            return "unknown";
+        }
+        String ua = userAgent.toLowerCase(Locale.ROOT);
+        if (ua.contains("bot") || ua.contains("crawl") || ua.contains("spider") || ua.contains("slurp")
+                || ua.startsWith("curl") || ua.startsWith("wget") || ua.contains("python")
+                || ua.contains("httpclient") || ua.startsWith("java") || ua.contains("preview")) {
+            return "bot";
+        }
+        if (ua.contains("ipad") || ua.contains("tablet") || (ua.contains("android") && !ua.contains("mobile"))) {
+            return "tablet";
+        }
+        if (ua.contains("mobi") || ua.contains("iphone") || ua.contains("android")) {
+            return "mobile";
+        }
+        return "desktop";
+    }
+}
@@ -0,0 +1,105 @@
+package com.manuonda.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of click events: many producers (request threads), one consumer.
+ *
+ * Events are stored in preallocated parallel arrays, so offering one allocates nothing. A producer
+ * claims a sequence with a CAS on {@code head}, fills the slot and publishes it by storing its
+ * sequence in {@code published}. When the buffer is full the event is rejected instead of waiting.
+ */
+final class ClickEventBuffer {
+
+    @FunctionalInterface
+    interface Consumer {
+        void accept(long timestamp, String shortKey, String referrer, String userAgent, String clientIp, int weight);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final long[] timestamps;
+    private final String[] shortKeys;
+    private final String[] referrers;
+    private final String[] userAgents;
+    private final String[] clientIps;
+    private final int[] weights;
+    // sequence + 1 of the event a slot holds once it is fully written
+    private final AtomicLongArray published;
+
+    // next sequence to claim (producers)
+    private final AtomicLong head = new AtomicLong();
+    // next sequence to read (consumer), producers read it to detect a full buffer
+    private volatile long tail;
+
+    ClickEventBuffer(int requestedCapacity) {
+        this.capacity = Integer.highestOneBit(Math.max(requestedCapacity - 1, 1)) << 1;
+        this.mask = capacity - 1;
+        this.timestamps = new long[capacity];
+        this.shortKeys = new String[capacity];
+        this.referrers = new String[capacity];
+        this.userAgents = new String[capacity];
+        this.clientIps = new String[capacity];
+        this.weights = new int[capacity];
+        this.published = new AtomicLongArray(capacity);
+    }
+
+    /**
+     * @return false when the buffer is full (the event is not stored)
+     */
+    boolean offer(long timestamp, String shortKey, String referrer, String userAgent, String clientIp, int weight) {
+        long sequence;
+        do {
+            sequence = head.get();
+            if (sequence - tail >= capacity) {
+                return false;
+            }
+        } while (!head.compareAndSet(sequence, sequence + 1));
+        int slot = (int) sequence & mask;
+        timestamps[slot] = timestamp;
+        shortKeys[slot] = shortKey;
+        referrers[slot] = referrer;
+        userAgents[slot] = userAgent;
+        clientIps[slot] = clientIp;
+        weights[slot] = weight;
+        published.setRelease(slot, sequence + 1);
+        return true;
+    }
+
+    /**
+     * Hands up to {@code max} events to the consumer in order, stopping at the first slot that is
+     * claimed but not yet written. Must only be called by one thread at a time.
+     *
+     * @return number of events consumed
+     */
+    int drain(Consumer consumer, int max) {
+        long sequence = tail;
+        int drained = 0;
+        while (drained < max) {
+            int slot = (int) sequence & mask;
+            if (published.getAcquire(slot) != sequence + 1) {
+                break;
+            }
+            consumer.accept(timestamps[slot], shortKeys[slot], referrers[slot], userAgents[slot],
+                    clientIps[slot], weights[slot]);
+            shortKeys[slot] = null;
+            referrers[slot] = null;
+            userAgents[slot] = null;
+            clientIps[slot] = null;
+            sequence++;
+            drained++;
+            // frees the slot for producers
+            tail = sequence;
+        }
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, head.get() - tail);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,441 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ClickSyncProperties;
+import com.manuonda.urlshortener.config.SchedulingConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.manuonda.urlshortener.service.UrlCacheService.CLICKS_PREFIX;
+import static com.manuonda.urlshortener.service.UrlCacheService.dirtyKey;
+import static com.manuonda.urlshortener.service.UrlCacheService.dirtyShardKey;
+
+/**
+ * Synchronizes click counters from Redis to short_urls.click_count.
+ *
+ * Only keys marked dirty by {@link UrlCacheService#incrementAndGetClickCount(String)} are visited:
+ * the dirty set is renamed to a processing set, walked with SSCAN in chunks, each chunk is read
+ * in one round trip ({@link UrlCacheService#getClickCounts}) and written with a single batched
+ * UPDATE ... FROM (VALUES ...).
+ *
+ * Safe with several instances: the dirty keys are split in shards, and a shard is synchronized by
+ * the instance holding its Redis lease (SET NX PX, one interval long, extended after every chunk),
+ * so each shard is synchronized once per period. Running instances announce themselves in a sorted
+ * set; each one claims its share of the shards (shards / live instances, from an offset given by
+ * its rank), so the work spreads as replicas are added. A crashed instance's shards are picked up
+ * once its lease expires, its unfinished processing set first.
+ */
+@Service
+public class ClickSyncService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickSyncService.class);
+
+    static final String CLICKS_PROCESSING_KEY = "clicksync:processing";
+    private static final String SEEDED_KEY = "clicksync:seeded";
+    private static final String LEASE_PREFIX = "clicksync:lease:";
+    // live instances, scored by their last run (epoch millis)
+    private static final String INSTANCES_KEY = "clicksync:instances";
+    // shard count the dirty sets were written with, to move them when it changes
+    private static final String SHARDS_KEY = "clicksync:shards";
+    private static final String RESHARD_LEASE_KEY = LEASE_PREFIX + "reshard";
+    private static final RedisScript<Long> ACQUIRE_LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/acquire-lease.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/release-lease.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final UrlCacheService urlCacheService;
+    private final JdbcTemplate jdbcTemplate;
+    private final ClickSyncProperties properties;
+    private final String instanceId;
+
+    // progress / lag metrics
+    private final Timer syncTimer;
+    private final AtomicLong backlog = new AtomicLong();
+    // keys of the shards synchronized by the current/last run
+    private final AtomicLong runTotal = new AtomicLong();
+    private final AtomicLong processedInRun = new AtomicLong();
+    private final AtomicInteger claimedShards = new AtomicInteger();
+    private final AtomicReference<Instant> lastSuccess = new AtomicReference<>(Instant.now());
+
+    public ClickSyncService(StringRedisTemplate stringRedisTemplate,
+                            UrlCacheService urlCacheService,
+                            JdbcTemplate jdbcTemplate,
+                            ClickSyncProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.urlCacheService = urlCacheService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.instanceId = hostName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+        this.syncTimer = Timer.builder("shorturl.clicksync.duration").register(meterRegistry);
+        Gauge.builder("shorturl.clicksync.backlog", backlog, AtomicLong::get)
+                .description("Dirty short keys waiting to be synchronized, all shards (measured after each run)")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.clicksync.progress", this, ClickSyncService::progress)
+                .description("Fraction of the current run already written (1 when idle)")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.clicksync.lag", lastSuccess,
+                        last -> Duration.between(last.get(), Instant.now()).toSeconds())
+                .baseUnit("seconds")
+                .description("Seconds since the last successful synchronization")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.clicksync.shards", claimedShards, AtomicInteger::get)
+                .description("Shards synchronized by this instance in the current/last run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counters written before dirty tracking existed are not in the dirty set:
+     * seed it once (first instance to start) with a cursor-based SCAN of clicks:*.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedDirtySetFromExistingCounters() {
+        try {
+            Boolean first = stringRedisTemplate.opsForValue().setIfAbsent(SEEDED_KEY, Instant.now().toString());
+            if (!Boolean.TRUE.equals(first)) {
+                return;
+            }
+            ScanOptions options = ScanOptions.scanOptions()
+                    .match(CLICKS_PREFIX + "*")
+                    .count(properties.chunkSize())
+                    .build();
+            List<String> chunk = new ArrayList<>(properties.chunkSize());
+            long seeded = 0;
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                while (cursor.hasNext()) {
+                    chunk.add(cursor.next().substring(CLICKS_PREFIX.length()));
+                    if (chunk.size() == properties.chunkSize()) {
+                        seeded += markDirty(chunk);
+                    }
+                }
+            }
+            seeded += markDirty(chunk);
+            logger.info("Dirty set seeded with {} existing click counters", seeded);
+        } catch (Exception e) {
+            logger.error("Error seeding click dirty set", e);
+        }
+    }
+
+    /**
+     * After a change of app.click-sync.shards, moves the keys of the dirty/processing sets that no
+     * longer exist (e.g. clicksync:dirty when going from 1 shard to 4) to their new shard.
+     * Done once, by the first instance started with the new shard count.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reshardDirtySets() {
+        try {
+            String stored = stringRedisTemplate.opsForValue().get(SHARDS_KEY);
+            int previous = stored != null ? Integer.parseInt(stored) : 1;
+            if (previous == properties.shards()
+                    || !acquireLease(RESHARD_LEASE_KEY, properties.interval())) {
+                return;
+            }
+            Set<String> current = new HashSet<>();
+            for (int shard = 0; shard < properties.shards(); shard++) {
+                current.add(dirtyShardKey(shard, properties.shards()));
+                current.add(processingKey(shard, properties.shards()));
+            }
+            long moved = 0;
+            for (int shard = 0; shard < previous; shard++) {
+                for (String key : List.of(dirtyShardKey(shard, previous), processingKey(shard, previous))) {
+                    if (!current.contains(key)) {
+                        moved += moveToCurrentShards(key);
+                    }
+                }
+            }
+            stringRedisTemplate.opsForValue().set(SHARDS_KEY, Integer.toString(properties.shards()));
+            releaseLease(RESHARD_LEASE_KEY);
+            logger.info("Click dirty sets resharded from {} to {} shards: {} short keys moved",
+                    previous, properties.shards(), moved);
+        } catch (Exception e) {
+            // the lease expires, the next instance to start retries
+            logger.error("Error resharding click dirty sets", e);
+        }
+    }
+
+    // renamed first: keys still added to it (instances on the old shard count) are not lost by the DEL;
+    // a leftover :moving set is a previous attempt that failed half way
+    private long moveToCurrentShards(String key) {
+        String moving = key + ":moving";
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(moving))) {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+                return 0;
+            }
+            stringRedisTemplate.renameIfAbsent(key, moving);
+        }
+        ScanOptions options = ScanOptions.scanOptions().count(properties.chunkSize()).build();
+        List<String> chunk = new ArrayList<>(properties.chunkSize());
+        long moved = 0;
+        try (Cursor<String> cursor = stringRedisTemplate.opsForSet().scan(moving, options)) {
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == properties.chunkSize()) {
+                    moved += markDirty(chunk);
+                }
+            }
+        }
+        moved += markDirty(chunk);
+        stringRedisTemplate.delete(moving);
+        return moved;
+    }
+
+    // one pipelined SADD per shard
+    private int markDirty(List<String> shortKeys) {
+        int size = shortKeys.size();
+        if (size > 0) {
+            Map<String, List<String>> byShard = new HashMap<>();
+            shortKeys.forEach(shortKey -> byShard
+                    .computeIfAbsent(dirtyKey(shortKey, properties.shards()), k -> new ArrayList<>()).add(shortKey));
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                byShard.forEach((dirtyKey, keys) -> stringConnection.sAdd(dirtyKey, keys.toArray(String[]::new)));
+                return null;
+            });
+            shortKeys.clear();
+        }
+        return size;
+    }
+
+    /**
+     * Scheduled task to synchronize click counts from Redis to the database (every app.click-sync.interval):
+     * synchronizes the shards this instance claims.
+     */
+    @Scheduled(fixedRateString = "${app.click-sync.interval:5m}", scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public void synchronizeClicksToDatabase() {
+        syncTimer.record(this::runSync);
+    }
+
+    private void runSync() {
+        try {
+            Claim claim = claim();
+            runTotal.set(0);
+            processedInRun.set(0);
+            claimedShards.set(0);
+            int updated = 0;
+            boolean failed = false;
+            // own share first, then the following shards if some of it is leased by another instance
+            for (int i = 0; i < properties.shards() && claimedShards.get() < claim.share(); i++) {
+                int shard = (claim.start() + i) % properties.shards();
+                if (!acquireLease(leaseKey(shard), properties.interval())) {
+                    continue;
+                }
+                claimedShards.incrementAndGet();
+                try {
+                    updated += syncShard(shard);
+                } catch (Exception e) {
+                    failed = true;
+                    // another instance may retry it within this period
+                    releaseLease(leaseKey(shard));
+                    logger.error("Error durante sincronización de clics (shard {})", shard, e);
+                }
+            }
+            if (!failed) {
+                lastSuccess.set(Instant.now());
+            }
+            countBacklog();
+            if (claimedShards.get() > 0) {
+                logger.info("Sincronización completada ({} shards). {} claves procesadas, {} filas actualizadas.",
+                        claimedShards.get(), processedInRun.get(), updated);
+            }
+        } catch (Exception e) {
+            logger.error("Error durante sincronización de clics", e);
+        }
+    }
+
+    /**
+     * @param start first shard to try, rank of this instance * share
+     * @param share shards this instance synchronizes per run, ceil(shards / live instances)
+     */
+    private record Claim(int start, int share) {
+    }
+
+    // heartbeat in the instances set, then this instance's rank among the live ones
+    private Claim claim() {
+        long now = System.currentTimeMillis();
+        long expired = now - properties.interval().multipliedBy(3).toMillis();
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            stringConnection.zAdd(INSTANCES_KEY, now, instanceId);
+            stringConnection.zRemRangeByScore(INSTANCES_KEY, 0, expired);
+            stringConnection.zRank(INSTANCES_KEY, instanceId);
+            stringConnection.zCard(INSTANCES_KEY);
+            return null;
+        });
+        long rank = results.get(2) != null ? (Long) results.get(2) : 0;
+        long live = Math.max(1, results.get(3) != null ? (Long) results.get(3) : 1);
+        int shards = properties.shards();
+        int share = (int) Math.min(shards, (shards + live - 1) / live);
+        return new Claim((int) (rank * share % shards), share);
+    }
+
+    /**
+     * Synchronizes one shard, extending its lease after every chunk.
+     * @return number of rows updated
+     */
+    private int syncShard(int shard) {
+        String dirtyKey = dirtyShardKey(shard, properties.shards());
+        String processingKey = processingKey(shard, properties.shards());
+        // A leftover processing set means the previous run died half way: finish it first,
+        // the current dirty set is picked up on the next run.
+        if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(processingKey))) {
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(dirtyKey))) {
+                logger.debug("No hay clics para sincronizar (shard {}).", shard);
+                return 0;
+            }
+            stringRedisTemplate.renameIfAbsent(dirtyKey, processingKey);
+        }
+
+        Long pending = stringRedisTemplate.opsForSet().size(processingKey);
+        runTotal.addAndGet(pending != null ? pending : 0);
+        logger.info("Iniciando sincronización de clics a BD (shard {}, {} claves)...", shard, pending);
+
+        ScanOptions options = ScanOptions.scanOptions().count(properties.chunkSize()).build();
+        List<String> chunk = new ArrayList<>(properties.chunkSize());
+        int updated = 0;
+        try (Cursor<String> cursor = stringRedisTemplate.opsForSet().scan(processingKey, options)) {
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == properties.chunkSize()) {
+                    updated += flushChunk(chunk);
+                    if (!acquireLease(leaseKey(shard), properties.interval())) {
+                        throw new IllegalStateException("Lease of click sync shard " + shard + " lost");
+                    }
+                }
+            }
+        }
+        updated += flushChunk(chunk);
+
+        stringRedisTemplate.delete(processingKey);
+        return updated;
+    }
+
+    /**
+     * Read the counters of one chunk and write them with one batched UPDATE.
+     * @return number of rows updated
+     */
+    private int flushChunk(List<String> shortKeys) {
+        if (shortKeys.isEmpty()) {
+            return 0;
+        }
+        List<Long> counters = urlCacheService.readClickCounts(shortKeys);
+        List<Object> args = new ArrayList<>(shortKeys.size() * 2);
+        StringBuilder values = new StringBuilder();
+        for (int i = 0; i < shortKeys.size(); i++) {
+            Long clicks = counters.get(i);
+            if (clicks == null) {
+                continue;
+            }
+            if (!args.isEmpty()) {
+                values.append(", ");
+            }
+            values.append("(CAST(? AS VARCHAR), CAST(? AS BIGINT))");
+            args.add(shortKeys.get(i));
+            args.add(clicks);
+        }
+        processedInRun.addAndGet(shortKeys.size());
+        shortKeys.clear();
+        if (args.isEmpty()) {
+            return 0;
+        }
+        String sql = """
+                UPDATE short_urls AS su SET click_count = v.clicks
+                FROM (VALUES %s) AS v(short_key, clicks)
+                WHERE su.short_key = v.short_key AND su.click_count < v.clicks
+                """.formatted(values);
+        int updated = jdbcTemplate.update(sql, args.toArray());
+        logger.debug("Chunk sincronizado: {} filas actualizadas", updated);
+        return updated;
+    }
+
+    // leaves the instances set right away, so the others take over its share at their next run
+    @PreDestroy
+    void leaveInstances() {
+        try {
+            stringRedisTemplate.opsForZSet().remove(INSTANCES_KEY, instanceId);
+        } catch (Exception e) {
+            logger.debug("Could not leave click sync instances set: {}", e.toString());
+        }
+    }
+
+    private boolean acquireLease(String key, Duration duration) {
+        return Long.valueOf(1L).equals(stringRedisTemplate.execute(ACQUIRE_LEASE_SCRIPT, List.of(key),
+                instanceId, Long.toString(duration.toMillis())));
+    }
+
+    private void releaseLease(String key) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(key), instanceId);
+        } catch (Exception e) {
+            logger.debug("Could not release lease {}: {}", key, e.toString());
+        }
+    }
+
+    private static String leaseKey(int shard) {
+        return LEASE_PREFIX + shard;
+    }
+
+    private static String processingKey(int shard, int shards) {
+        return shards == 1 ? CLICKS_PROCESSING_KEY : CLICKS_PROCESSING_KEY + ":" + shard;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+
+    // SCARD of every dirty and processing set: what is left for the next runs, whoever claims them
+    private void countBacklog() {
+        try {
+            List<Object> sizes = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (int shard = 0; shard < properties.shards(); shard++) {
+                    stringConnection.sCard(dirtyShardKey(shard, properties.shards()));
+                    stringConnection.sCard(processingKey(shard, properties.shards()));
+                }
+                return null;
+            });
+            backlog.set(sizes.stream().mapToLong(size -> size != null ? (Long) size : 0).sum());
+        } catch (Exception e) {
+            // keeps the last value
+            logger.warn("Error counting the click sync backlog: {}", e.toString());
+        }
+    }
+
+    private double progress() {
+        long total = runTotal.get();
+        return total == 0 ? 1.0 : Math.min(1.0, (double) processedInRun.get() / total);
+    }
+}
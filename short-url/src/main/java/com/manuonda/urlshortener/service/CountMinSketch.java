@@ -0,0 +1,62 @@
+package com.manuonda.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Count-Min sketch of string frequencies: depth rows of width counters, an estimate is
+ * the minimum of the key's counter in every row (never below the true count, above it by at most
+ * total/width with high probability). Row indexes come from one 64-bit hash (double hashing).
+ */
+final class CountMinSketch {
+
+    private final int depth;
+    private final int widthMask;
+    private final AtomicLongArray counters;
+
+    CountMinSketch(int depth, int width) {
+        int roundedWidth = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.depth = depth;
+        this.widthMask = roundedWidth - 1;
+        this.counters = new AtomicLongArray(depth * roundedWidth);
+    }
+
+    /**
+     * Adds one occurrence.
+     * @return the key's estimate after the increment
+     */
+    long increment(String key) {
+        long hash = BloomFilter.hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    long estimate(String key) {
+        long hash = BloomFilter.hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, h1, h2)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter (exponential decay): old traffic weighs less at each period, so the
+     * estimates follow what is hot now. Increments racing with it may lose half their weight.
+     */
+    void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    private int index(int row, int h1, int h2) {
+        return row * (widthMask + 1) + ((h1 + row * h2) & widthMask);
+    }
+}
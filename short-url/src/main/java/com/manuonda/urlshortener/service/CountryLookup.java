@@ -0,0 +1,117 @@
+package com.manuonda.urlshortener.service;
+
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * IPv4 address to country code lookup from a local table of ranges (binary search, no I/O per lookup).
+ *
+ * The table is a CSV of {@code start,end,country} lines with dotted IPv4 addresses, '#' starts a comment
+ * (e.g. a GeoLite2/DB-IP "country lite" export). Addresses outside every range, IPv6 addresses and
+ * unparsable input map to {@link #UNKNOWN}.
+ */
+final class CountryLookup {
+
+    static final String UNKNOWN = "--";
+
+    private final long[] starts;
+    private final long[] ends;
+    private final String[] countries;
+
+    private CountryLookup(long[] starts, long[] ends, String[] countries) {
+        this.starts = starts;
+        this.ends = ends;
+        this.countries = countries;
+    }
+
+    static CountryLookup empty() {
+        return new CountryLookup(new long[0], new long[0], new String[0]);
+    }
+
+    static CountryLookup load(Resource table) throws IOException {
+        record Range(long start, long end, String country) {
+        }
+        List<Range> ranges = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(table.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                long start = fields.length == 3 ? parseIpv4(fields[0].strip()) : -1;
+                long end = fields.length == 3 ? parseIpv4(fields[1].strip()) : -1;
+                if (start < 0 || end < start || fields[2].strip().length() != 2) {
+                    throw new IOException("Invalid country range at line " + lineNo + " of " + table.getDescription());
+                }
+                ranges.add(new Range(start, end, fields[2].strip().toUpperCase()));
+            }
+        }
+        ranges.sort(Comparator.comparingLong(Range::start));
+        long[] starts = new long[ranges.size()];
+        long[] ends = new long[ranges.size()];
+        String[] countries = new String[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            starts[i] = ranges.get(i).start();
+            ends[i] = ranges.get(i).end();
+            countries[i] = ranges.get(i).country();
+        }
+        return new CountryLookup(starts, ends, countries);
+    }
+
+    String country(String ip) {
+        long address = parseIpv4(ip);
+        if (address < 0) {
+            return UNKNOWN;
+        }
+        int index = Arrays.binarySearch(starts, address);
+        if (index < 0) {
+            // range starting right before the address
+            index = -index - 2;
+        }
+        return index >= 0 && address <= ends[index] ? countries[index] : UNKNOWN;
+    }
+
+    int size() {
+        return starts.length;
+    }
+
+    /**
+     * @return the address as an unsigned 32 bit value, -1 when it is not a dotted IPv4 address
+     */
+    static long parseIpv4(String ip) {
+        if (ip == null) {
+            return -1;
+        }
+        long address = 0;
+        int octet = -1;
+        int dots = 0;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && dots < 3) {
+                address = (address << 8) | octet;
+                octet = -1;
+                dots++;
+            } else {
+                return -1;
+            }
+        }
+        return dots == 3 && octet >= 0 ? (address << 8) | octet : -1;
+    }
+}
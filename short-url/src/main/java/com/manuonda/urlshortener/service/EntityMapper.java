@@ -28,7 +28,8 @@ public class EntityMapper {
                 userDto,
                 shortUrl.getClickCount(),
                 shortUrl.getCreatedAt(),
-                shortUrl.getMaxClicks() != null ? shortUrl.getMaxClicks() : 0
+                shortUrl.getMaxClicks() != null ? shortUrl.getMaxClicks() : 0,
+                shortUrl.getStatus()
         );
     }
 
@@ -0,0 +1,233 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ExpirySweeperProperties;
+import com.manuonda.urlshortener.config.SchedulingConfig;
+import com.manuonda.urlshortener.domain.events.ShortUrlsChangedEvent;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Removes expired short URLs, which {@link ShortUrlService#accessShortUrl} only filters at read time.
+ *
+ * Each sweep walks the rows expired for longer than the grace period through the expires_at index,
+ * in chunks: a chunk is deleted (or moved to short_urls_archive) in one transaction, then its
+ * shorturl:/clicks:/limit: keys are removed with pipelined UNLINKs. The sweep sleeps between
+ * chunks, stops after maxChunksPerRun and backs off while the connection pool is busy, so it
+ * only uses spare database capacity; it runs on the maintenance scheduler, so its pauses never
+ * delay the frequent jobs. In archive mode the Redis click counts of a chunk are read before its
+ * transaction, so a slow Redis never stretches the time rows stay locked. Instances sweep
+ * concurrently without conflicting: the transaction claims the chunk's rows with FOR UPDATE SKIP
+ * LOCKED and only removes those, rows claimed by another instance are left to it, and the archive
+ * insert ignores a row archived already.
+ */
+@Service
+public class ExpirySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpirySweeper.class);
+
+    private static final String SELECT_EXPIRED_SQL = """
+            SELECT id, short_key, is_private FROM short_urls
+            WHERE expires_at < ? ORDER BY expires_at LIMIT ?
+            """;
+    // followed by one placeholder per id of the chunk
+    private static final String CLAIM_SQL = """
+            SELECT id FROM short_urls WHERE expires_at < ? AND id IN (%s)
+            FOR UPDATE SKIP LOCKED
+            """;
+    private static final String ARCHIVE_SQL = """
+            INSERT INTO short_urls_archive (id, short_key, original_url, is_private, expires_at, created_by,
+                                            click_count, created_at, max_clicks, status)
+            SELECT id, short_key, original_url, is_private, expires_at, created_by,
+                   GREATEST(click_count, ?), created_at, max_clicks, status
+            FROM short_urls WHERE id = ?
+            ON CONFLICT (id) DO NOTHING
+            """;
+    private static final String DELETE_SQL = "DELETE FROM short_urls WHERE id = ? AND expires_at < ?";
+
+    private record ExpiredRow(long id, String shortKey, boolean isPrivate) {
+    }
+
+    /**
+     * @param selected expired rows found
+     * @param claimed  rows of those locked by this instance (the others are being swept elsewhere)
+     * @param removed  rows deleted
+     */
+    private record SweptChunk(int selected, int claimed, int removed) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+    private final UrlCacheService urlCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExpirySweeperProperties properties;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final LongAdder sweptRows = new LongAdder();
+    private final LongAdder redisFailures = new LongAdder();
+    private final LongAdder backoffs = new LongAdder();
+    private final Timer sweepTimer;
+
+    public ExpirySweeper(JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate,
+                         DataSource dataSource,
+                         UrlCacheService urlCacheService,
+                         ApplicationEventPublisher eventPublisher,
+                         ExpirySweeperProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.dataSource = dataSource;
+        this.urlCacheService = urlCacheService;
+        this.eventPublisher = eventPublisher;
+        this.properties = properties;
+        this.sweepTimer = Timer.builder("shorturl.sweeper.duration").register(meterRegistry);
+        Gauge.builder("shorturl.sweeper.backlog", backlog, AtomicLong::get)
+                .description("Expired short URLs (past the grace period) not swept yet")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.sweeper.swept", sweptRows, LongAdder::sum)
+                .tags("mode", properties.mode().name().toLowerCase())
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.sweeper.redis_failures", redisFailures, LongAdder::sum)
+                .description("Chunks whose Redis keys could not be removed")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.sweeper.backoffs", backoffs, LongAdder::sum)
+                .description("Sweeps stopped early because the connection pool was busy")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.expiry-sweeper.interval:10m}",
+            fixedDelayString = "${app.expiry-sweeper.interval:10m}",
+            scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    public synchronized void sweep() {
+        if (!properties.enabled()) {
+            return;
+        }
+        sweepTimer.record(this::runSweep);
+    }
+
+    private void runSweep() {
+        try {
+            OffsetDateTime cutoff = Instant.now().minus(properties.grace()).atOffset(ZoneOffset.UTC);
+            Long expired = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM short_urls WHERE expires_at < ?", Long.class, cutoff);
+            backlog.set(expired != null ? expired : 0);
+            if (backlog.get() == 0) {
+                return;
+            }
+            logger.info("Sweeping {} expired short URLs ({})", backlog.get(), properties.mode());
+            long swept = 0;
+            for (int chunk = 0; chunk < properties.maxChunksPerRun(); chunk++) {
+                if (chunk > 0) {
+                    Thread.sleep(properties.pauseBetweenChunks());
+                }
+                if (databaseBusy()) {
+                    backoffs.increment();
+                    logger.info("Expiry sweep paused, database busy ({} swept, resuming next run)", swept);
+                    break;
+                }
+                SweptChunk sweptChunk = sweepChunk(cutoff);
+                swept += sweptChunk.removed();
+                // the rest is being swept by another instance
+                if (sweptChunk.selected() < properties.chunkSize() || sweptChunk.claimed() == 0) {
+                    break;
+                }
+            }
+            logger.info("Expiry sweep done: {} short URLs swept, {} left", swept, backlog.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("Error sweeping expired short URLs", e);
+        }
+    }
+
+    /**
+     * Claims and removes one chunk from the database (one transaction), then its Redis keys.
+     */
+    private SweptChunk sweepChunk(OffsetDateTime cutoff) {
+        List<ExpiredRow> rows = jdbcTemplate.query(SELECT_EXPIRED_SQL,
+                (rs, rowNum) -> new ExpiredRow(rs.getLong(1), rs.getString(2), rs.getBoolean(3)),
+                cutoff, properties.chunkSize());
+        if (rows.isEmpty()) {
+            return new SweptChunk(0, 0, 0);
+        }
+        // clicks not synchronized yet only exist in Redis: read outside the transaction holding the locks
+        List<Long> clicks = properties.mode() == ExpirySweeperProperties.Mode.ARCHIVE
+                ? urlCacheService.getClickCounts(rows.stream().map(ExpiredRow::shortKey).toList())
+                : null;
+        List<Object> claimArgs = new ArrayList<>(rows.size() + 1);
+        claimArgs.add(cutoff);
+        rows.forEach(row -> claimArgs.add(row.id()));
+        String claimSql = CLAIM_SQL.formatted(String.join(",", Collections.nCopies(rows.size(), "?")));
+
+        List<ExpiredRow> claimed = new ArrayList<>(rows.size());
+        int removed = transactionTemplate.execute(tx -> {
+            // locked until the commit: rows claimed by another instance are skipped
+            Set<Long> claimedIds = new HashSet<>(jdbcTemplate.queryForList(claimSql, Long.class, claimArgs.toArray()));
+            List<Object[]> archiveArgs = new ArrayList<>(claimedIds.size());
+            List<Object[]> deleteArgs = new ArrayList<>(claimedIds.size());
+            for (int i = 0; i < rows.size(); i++) {
+                ExpiredRow row = rows.get(i);
+                if (!claimedIds.contains(row.id())) {
+                    continue;
+                }
+                claimed.add(row);
+                if (clicks != null) {
+                    archiveArgs.add(new Object[]{clicks.get(i) != null ? clicks.get(i) : 0L, row.id()});
+                }
+                deleteArgs.add(new Object[]{row.id(), cutoff});
+            }
+            if (!archiveArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(ARCHIVE_SQL, archiveArgs);
+            }
+            int deleted = 0;
+            for (int count : jdbcTemplate.batchUpdate(DELETE_SQL, deleteArgs)) {
+                deleted += Math.max(count, 0);
+            }
+            return deleted;
+        });
+        if (claimed.isEmpty()) {
+            return new SweptChunk(rows.size(), 0, 0);
+        }
+        if (!urlCacheService.removeShortKeys(claimed.stream().map(ExpiredRow::shortKey).toList())) {
+            redisFailures.increment();
+        }
+        sweptRows.add(removed);
+        backlog.updateAndGet(pending -> Math.max(0, pending - claimed.size()));
+        if (claimed.stream().anyMatch(row -> !row.isPrivate())) {
+            eventPublisher.publishEvent(new ShortUrlsChangedEvent(true));
+        }
+        return new SweptChunk(rows.size(), claimed.size(), removed);
+    }
+
+    private boolean databaseBusy() {
+        if (dataSource instanceof HikariDataSource hikari && hikari.getHikariPoolMXBean() != null) {
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            return pool.getActiveConnections() > hikari.getMaximumPoolSize() * properties.busyPoolThreshold();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,110 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.HotKeyProperties;
+import com.manuonda.urlshortener.domain.models.HotShortKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming heavy hitter detection over successful redirects.
+ *
+ * Every click increments a Count-Min sketch; keys whose estimate reaches the admission threshold
+ * (the smallest top-K estimate of the last period) become candidates. Each refresh ranks the
+ * candidates, keeps the top-K above {@code minClicks}, pins their cache entries in
+ * {@link UrlCacheService} (reloaded from Redis, so changes are picked up) and halves the sketch so
+ * the ranking follows the current traffic. Pinned entries are dropped like near cache entries when
+ * the short URL is invalidated, and unpinned once the key leaves the top-K.
+ */
+@Service
+public class HotKeyTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotKeyTracker.class);
+
+    private final UrlCacheService urlCacheService;
+    private final HotKeyProperties properties;
+    private final CountMinSketch sketch;
+    private final int maxCandidates;
+
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private volatile long admissionThreshold;
+    private volatile List<HotShortKey> hotKeys = List.of();
+
+    public HotKeyTracker(UrlCacheService urlCacheService, HotKeyProperties properties) {
+        this.urlCacheService = urlCacheService;
+        this.properties = properties;
+        this.sketch = new CountMinSketch(properties.sketchDepth(), properties.sketchWidth());
+        this.maxCandidates = properties.topK() * 10;
+        this.admissionThreshold = properties.minClicks();
+    }
+
+    /**
+     * Counts a click of the key (successful redirect): depth atomic increments, plus a set insertion
+     * the first time a key crosses the admission threshold in a period.
+     */
+    public void recordClick(String shortKey) {
+        if (!properties.enabled()) {
+            return;
+        }
+        long estimate = sketch.increment(shortKey);
+        // contains() first: it is lock-free, add() locks a bin even when the key is already there
+        if (estimate >= admissionThreshold && !candidates.contains(shortKey) && candidates.size() < maxCandidates) {
+            candidates.add(shortKey);
+        }
+    }
+
+    /**
+     * @return the current top-K, hottest first
+     */
+    public List<HotShortKey> getHotKeys() {
+        return hotKeys;
+    }
+
+    @Scheduled(fixedDelayString = "${app.hot-keys.refresh-interval:10s}")
+    public synchronized void refresh() {
+        if (!properties.enabled()) {
+            return;
+        }
+        try {
+            record Ranked(String shortKey, long estimate) {
+            }
+            Set<String> tracked = new HashSet<>(candidates);
+            hotKeys.forEach(hot -> tracked.add(hot.shortKey()));
+            List<Ranked> top = tracked.stream()
+                    .map(shortKey -> new Ranked(shortKey, sketch.estimate(shortKey)))
+                    .filter(ranked -> ranked.estimate() >= properties.minClicks())
+                    .sorted(Comparator.comparingLong(Ranked::estimate).reversed())
+                    .limit(properties.topK())
+                    .toList();
+
+            // next period: counters are halved, so is the bar a key must reach to enter the top-K
+            long lowest = top.size() == properties.topK() ? top.get(top.size() - 1).estimate() : properties.minClicks();
+            admissionThreshold = Math.max(1, Math.max(lowest, properties.minClicks()) / 2);
+            sketch.decay();
+            candidates.clear();
+
+            // Redis unavailable: the pinned entries cannot be reloaded, keep them (invalidations still drop them)
+            if (!urlCacheService.isDegraded()) {
+                List<String> topKeys = top.stream().map(Ranked::shortKey).toList();
+                urlCacheService.pinShortUrls(urlCacheService.getShortUrlsFromRedis(topKeys));
+            }
+
+            List<HotShortKey> ranking = new ArrayList<>(top.size());
+            top.forEach(ranked -> ranking.add(new HotShortKey(ranked.shortKey(), ranked.estimate(),
+                    urlCacheService.isPinned(ranked.shortKey()))));
+            hotKeys = List.copyOf(ranking);
+            logger.debug("Hot keys refreshed: {} in top-K, {} pinned", ranking.size(),
+                    ranking.stream().filter(HotShortKey::pinned).count());
+        } catch (Exception e) {
+            logger.error("Error refreshing hot keys", e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.manuonda.urlshortener.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Receives invalidation messages published by any instance (including this one)
+ * and evicts the short key from the local near cache.
+ */
+@Component
+public class NearCacheInvalidationListener implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheInvalidationListener.class);
+
+    private final UrlCacheService urlCacheService;
+
+    public NearCacheInvalidationListener(UrlCacheService urlCacheService) {
+        this.urlCacheService = urlCacheService;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String shortKey = new String(message.getBody(), StandardCharsets.UTF_8);
+        logger.debug("Near cache invalidation received for shortKey {}", shortKey);
+        urlCacheService.evictLocal(shortKey);
+    }
+}
@@ -0,0 +1,168 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ShortKeyProperties;
+import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.manuonda.urlshortener.service.RandomUtils.generateRandomShortKey;
+
+/**
+ * Pops pre-validated unused keys from a Redis set (SPOP, O(1)) so creation never
+ * pays for key generation. A scheduled refiller tops the pool up in bulk when it
+ * drops below the low watermark: random keys are generated, checked against
+ * short_urls with one query per batch and added with one SADD. Only the instance
+ * holding the refill lease (SET NX PX, extended after every batch) refills, so
+ * instances never top the pool up together past its target size.
+ *
+ * If the pool is empty (or Redis is unavailable) it falls back to
+ * {@link RandomShortKeyGenerator}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.short-key.strategy", havingValue = "pool")
+public class PooledShortKeyGenerator implements ShortKeyGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledShortKeyGenerator.class);
+
+    static final String POOL_KEY = "shortkey:pool";
+    private static final String REFILL_LEASE_KEY = "shortkey:pool:refill-lease";
+    private static final RedisScript<Long> ACQUIRE_LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/acquire-lease.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/release-lease.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ShortUrlRepository shortUrlRepository;
+    private final ShortKeyProperties.Pool pool;
+    private final RandomShortKeyGenerator randomShortKeyGenerator;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final LongAdder poolFallbacks = new LongAdder();
+
+    public PooledShortKeyGenerator(StringRedisTemplate stringRedisTemplate,
+                                   ShortUrlRepository shortUrlRepository,
+                                   ShortKeyProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.shortUrlRepository = shortUrlRepository;
+        this.pool = properties.pool();
+        // not a bean with this strategy: the fallback, it registers shorturl.keygen.retries
+        this.randomShortKeyGenerator = new RandomShortKeyGenerator(shortUrlRepository, meterRegistry);
+        FunctionCounter.builder("shorturl.keygen.pool_fallbacks", poolFallbacks, LongAdder::sum)
+                .description("Keys generated randomly because the pool was empty or unreachable")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String nextKey() {
+        try {
+            String shortKey = stringRedisTemplate.opsForSet().pop(POOL_KEY);
+            if (shortKey != null) {
+                return shortKey;
+            }
+            logger.warn("Short key pool is empty, falling back to random key generation");
+        } catch (Exception e) {
+            logger.error("Error popping short key from pool, falling back to random key generation", e);
+        }
+        poolFallbacks.increment();
+        return randomShortKeyGenerator.nextKey();
+    }
+
+    @Override
+    public List<String> nextKeys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        try {
+            // SPOP with count: one round trip for the whole batch
+            List<String> popped = stringRedisTemplate.opsForSet().pop(POOL_KEY, count);
+            if (popped != null) {
+                keys.addAll(popped);
+            }
+        } catch (Exception e) {
+            logger.error("Error popping short keys from pool, falling back to random key generation", e);
+        }
+        while (keys.size() < count) {
+            keys.add(nextKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Tops the pool up to the target size when it is below the low watermark,
+     * unless another instance holds the refill lease. First run happens at startup.
+     */
+    @Scheduled(fixedDelayString = "${app.short-key.pool.refill-interval:10s}")
+    public synchronized void refill() {
+        boolean leased = false;
+        try {
+            Long size = stringRedisTemplate.opsForSet().size(POOL_KEY);
+            long current = size != null ? size : 0;
+            if (current >= pool.lowWatermark()) {
+                return;
+            }
+            if (!acquireLease()) {
+                return;
+            }
+            leased = true;
+            // re-read under the lease: another instance may have just refilled
+            size = stringRedisTemplate.opsForSet().size(POOL_KEY);
+            current = size != null ? size : 0;
+            long missing = pool.targetSize() - current;
+            long added = 0;
+            while (added < missing) {
+                added += addBatch((int) Math.min(pool.batchSize(), missing - added));
+                if (!acquireLease()) {
+                    logger.warn("Short key pool refill lease lost, stopping after {} keys", added);
+                    break;
+                }
+            }
+            logger.info("Short key pool refilled: {} -> {} keys", current, current + added);
+        } catch (Exception e) {
+            logger.error("Error refilling short key pool", e);
+        } finally {
+            if (leased) {
+                releaseLease();
+            }
+        }
+    }
+
+    private boolean acquireLease() {
+        return Long.valueOf(1L).equals(stringRedisTemplate.execute(ACQUIRE_LEASE_SCRIPT, List.of(REFILL_LEASE_KEY),
+                instanceId, Long.toString(pool.refillInterval().toMillis())));
+    }
+
+    private void releaseLease() {
+        try {
+            stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(REFILL_LEASE_KEY), instanceId);
+        } catch (Exception e) {
+            // expires on its own
+            logger.debug("Could not release short key pool refill lease: {}", e.toString());
+        }
+    }
+
+    private int addBatch(int count) {
+        Set<String> candidates = new HashSet<>(count);
+        while (candidates.size() < count) {
+            candidates.add(generateRandomShortKey());
+        }
+        shortUrlRepository.findExistingShortKeys(candidates).forEach(candidates::remove);
+        if (!candidates.isEmpty()) {
+            stringRedisTemplate.opsForSet().add(POOL_KEY, candidates.toArray(String[]::new));
+        }
+        // count what was generated, so a batch full of collisions cannot loop forever
+        return count;
+    }
+}
@@ -0,0 +1,147 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.ApplicationProperties;
+import com.manuonda.urlshortener.config.PublicListingCacheProperties;
+import com.manuonda.urlshortener.domain.events.ShortUrlsChangedEvent;
+import com.manuonda.urlshortener.domain.models.KeysetCursor;
+import com.manuonda.urlshortener.domain.models.PagedResult;
+import com.manuonda.urlshortener.domain.models.PublicListingPage;
+import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+
+/**
+ * Home page listing of public short URLs, with the first pages cached in Redis
+ * (RedisCacheManager, cache {@value #CACHE_NAME}) until a public short URL is created or deleted.
+ *
+ * With cursor pagination a page is cached under the position it starts after, so its entry is
+ * right whatever page number it is shown as. Only the positions reached by following the next
+ * links from the first page are cached: the cached pages themselves tell which ones they are.
+ */
+@Service
+public class PublicListingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublicListingService.class);
+
+    public static final String CACHE_NAME = "publicShortUrls";
+
+    private final ShortUrlService shortUrlService;
+    private final ApplicationProperties properties;
+    private final PublicListingCacheProperties cacheProperties;
+    private final CacheManager cacheManager;
+
+    public PublicListingService(ShortUrlService shortUrlService,
+                                ApplicationProperties properties,
+                                PublicListingCacheProperties cacheProperties,
+                                CacheManager cacheManager) {
+        this.shortUrlService = shortUrlService;
+        this.properties = properties;
+        this.cacheProperties = cacheProperties;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * @param page   page number (offset pagination)
+     * @param cursor position (cursor pagination)
+     * @return the page, from the cache when it is one of the cached pages
+     */
+    public PublicListingPage getPage(int page, KeysetCursor cursor) {
+        boolean cursorMode = properties.paginationMode() == ApplicationProperties.PaginationMode.CURSOR;
+        String cacheKey = cacheKey(cursorMode, page, cursor);
+        if (cacheKey == null) {
+            return load(cursorMode, page, cursor);
+        }
+        try {
+            return cache().get(cacheKey, () -> load(cursorMode, page, cursor));
+        } catch (Exception e) {
+            // Redis unavailable or unreadable entry: serve from the database
+            logger.error("Error reading public listing cache for {}", cacheKey, e);
+            return load(cursorMode, page, cursor);
+        }
+    }
+
+    private PublicListingPage load(boolean cursorMode, int page, KeysetCursor cursor) {
+        PagedResult<ShortUrlDto> shortUrls = cursorMode
+                ? shortUrlService.findPublicShortUrls(cursor, properties.pageSize())
+                : shortUrlService.findAllPublicShortUrls(page, properties.pageSize());
+        return new PublicListingPage(shortUrls, Instant.now());
+    }
+
+    // null when the page is not cached
+    private String cacheKey(boolean cursorMode, int page, KeysetCursor cursor) {
+        if (!cacheProperties.enabled()) {
+            return null;
+        }
+        if (cursorMode) {
+            return cursorCacheKey(cursor);
+        }
+        int pageNo = Math.max(page, 1);
+        return pageNo <= cacheProperties.pages() ? "offset:" + pageNo + ":" + properties.pageSize() : null;
+    }
+
+    /**
+     * The cursor's key if it is one of the first pages: the next link of the first page, of that
+     * page and so on (at most pages - 1 cached reads). Previous links are not cached.
+     */
+    private String cursorCacheKey(KeysetCursor cursor) {
+        if (cursor == KeysetCursor.FIRST) {
+            return cursorKey(cursor);
+        }
+        if (cursor.before()) {
+            return null;
+        }
+        KeysetCursor position = KeysetCursor.FIRST;
+        for (int pageNo = 2; pageNo <= cacheProperties.pages(); pageNo++) {
+            KeysetCursor previous = position;
+            String next;
+            try {
+                next = cache().get(cursorKey(previous), () -> load(true, 0, previous)).shortUrls().nextCursor();
+            } catch (Exception e) {
+                // Redis unavailable: not worth loading the previous pages to find out
+                logger.debug("Error reading public listing cache: {}", e.toString());
+                return null;
+            }
+            if (next == null) {
+                return null;
+            }
+            position = KeysetCursor.parse(next, null);
+            if (position.equals(cursor)) {
+                return cursorKey(position);
+            }
+        }
+        return null;
+    }
+
+    private String cursorKey(KeysetCursor cursor) {
+        return cursor == KeysetCursor.FIRST
+                ? "cursor:first:" + properties.pageSize()
+                : "cursor:after:" + KeysetCursor.encode(cursor.createdAt(), cursor.id()) + ":" + properties.pageSize();
+    }
+
+    /**
+     * Drops every cached page once the change is committed (immediately when there was no transaction),
+     * so a concurrent request cannot cache the listing as it was before the change.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShortUrlsChanged(ShortUrlsChangedEvent event) {
+        if (!cacheProperties.enabled() || !event.publicListingAffected()) {
+            return;
+        }
+        try {
+            cache().clear();
+            logger.debug("Public listing cache cleared");
+        } catch (Exception e) {
+            logger.error("Error clearing public listing cache", e);
+        }
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+}
@@ -0,0 +1,41 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.manuonda.urlshortener.service.RandomUtils.generateRandomShortKey;
+
+/**
+ * Original strategy: random key + existsByShortKey until a free one is found
+ * (one query per attempt, slower as the key space fills).
+ * The default: it needs no secret, so a fresh checkout starts as is.
+ */
+@Component
+@ConditionalOnProperty(name = "app.short-key.strategy", havingValue = "random", matchIfMissing = true)
+public class RandomShortKeyGenerator implements ShortKeyGenerator {
+
+    private final ShortUrlRepository shortUrlRepository;
+    private final LongAdder retries = new LongAdder();
+
+    public RandomShortKeyGenerator(ShortUrlRepository shortUrlRepository, MeterRegistry meterRegistry) {
+        this.shortUrlRepository = shortUrlRepository;
+        FunctionCounter.builder("shorturl.keygen.retries", retries, LongAdder::sum)
+                .description("Generated short keys that were already taken")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String nextKey() {
+        String shortKey = generateRandomShortKey();
+        while (shortUrlRepository.existsByShortKey(shortKey)) {
+            retries.increment();
+            shortKey = generateRandomShortKey();
+        }
+        return shortKey;
+    }
+}
@@ -5,7 +5,7 @@ import java.security.SecureRandom;
 public class RandomUtils {
 
 
-    private static final String ALPHANUMERIC_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+    static final String ALPHANUMERIC_CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
     private static final int DEFAULT_KEY_LENGTH = 6;
     private static final SecureRandom RANDOM = new SecureRandom();
 
@@ -0,0 +1,189 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.RedisCircuitBreakerProperties;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.lettuce.core.RedisConnectionException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnectionCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker of the Redis calls made by {@link UrlCacheService}.
+ *
+ * After failureThreshold consecutive connection failures or timeouts the circuit opens: calls fail
+ * immediately with {@link CircuitOpenException} instead of waiting for the Redis timeout, and the
+ * cache serves from the database and counts clicks in memory (degraded mode). Requests never probe
+ * Redis: a scheduled PING does, and on the first answer the recovery tasks write the pending state
+ * back before the circuit closes (and once more after, for the calls that raced the switch).
+ *
+ * Reported by the health endpoint (status DEGRADED while open) and shorturl.redis.* metrics.
+ */
+@Service
+public class RedisCircuitBreaker implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    public static final Status DEGRADED = new Status("DEGRADED", "Redis unavailable: served from the database, clicks counted in memory");
+
+    /**
+     * Thrown instead of calling Redis while the circuit is open (shared, no stack trace).
+     */
+    public static final class CircuitOpenException extends RuntimeException {
+        static final CircuitOpenException INSTANCE = new CircuitOpenException();
+
+        private CircuitOpenException() {
+            super("Redis circuit open", null, false, false);
+        }
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreakerProperties properties;
+    private final List<Runnable> recoveryTasks = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile boolean open;
+    private volatile Instant openedAt;
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    public RedisCircuitBreaker(StringRedisTemplate stringRedisTemplate,
+                               RedisCircuitBreakerProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.properties = properties;
+        Gauge.builder("shorturl.redis.degraded", this, breaker -> breaker.isOpen() ? 1 : 0)
+                .description("1 while the Redis circuit is open (degraded mode)")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.redis.failures", failures, LongAdder::sum)
+                .description("Redis calls failed by a connection error or timeout")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.redis.short_circuited", shortCircuited, LongAdder::sum)
+                .description("Redis calls skipped while the circuit was open")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.redis.circuit_opened", opened, LongAdder::sum)
+                .register(meterRegistry);
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @param task run with Redis reachable again, before the circuit closes (it must not go through
+     *             this breaker) and once more after; an exception keeps the circuit open
+     */
+    public void addRecoveryTask(Runnable task) {
+        recoveryTasks.add(task);
+    }
+
+    /**
+     * Runs a Redis call through the breaker.
+     * @throws CircuitOpenException while the circuit is open
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (open) {
+            shortCircuited.increment();
+            throw CircuitOpenException.INSTANCE;
+        }
+        try {
+            T result = call.get();
+            // read first: no write to the shared counter on the happy path
+            if (consecutiveFailures.get() != 0) {
+                consecutiveFailures.set(0);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            if (properties.enabled() && isUnavailable(e)) {
+                failures.increment();
+                if (consecutiveFailures.incrementAndGet() >= properties.failureThreshold()) {
+                    open(e);
+                }
+            }
+            throw e;
+        }
+    }
+
+    public void run(Runnable call) {
+        execute(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.redis-circuit-breaker.probe-interval:5s}")
+    public void probe() {
+        if (!open) {
+            return;
+        }
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) RedisConnectionCommands::ping);
+            recoveryTasks.forEach(Runnable::run);
+        } catch (Exception e) {
+            logger.debug("Redis still unavailable: {}", e.toString());
+            return;
+        }
+        close();
+        try {
+            recoveryTasks.forEach(Runnable::run);
+        } catch (Exception e) {
+            logger.error("Error writing back state after Redis recovery", e);
+        }
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder health = open
+                ? Health.status(DEGRADED).withDetail("mode", "degraded").withDetail("since", openedAt)
+                : Health.up().withDetail("mode", properties.enabled() ? "normal" : "breaker disabled");
+        return health.withDetail("shortCircuitedCalls", shortCircuited.sum()).build();
+    }
+
+    private synchronized void open(Exception cause) {
+        if (open) {
+            return;
+        }
+        open = true;
+        openedAt = Instant.now();
+        opened.increment();
+        logger.warn("Redis unavailable ({}): circuit open, degraded mode until a probe succeeds", cause.toString());
+    }
+
+    private synchronized void close() {
+        consecutiveFailures.set(0);
+        open = false;
+        logger.warn("Redis reachable again: circuit closed after {} s in degraded mode",
+                Duration.between(openedAt, Instant.now()).toSeconds());
+    }
+
+    // connection failures and timeouts, also when wrapped (pipelines, scripts); not data errors
+    private static boolean isUnavailable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RedisConnectionFailureException || cause instanceof QueryTimeoutException
+                    || cause instanceof RedisConnectionException || cause instanceof RedisCommandTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
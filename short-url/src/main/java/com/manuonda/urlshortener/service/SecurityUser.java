@@ -0,0 +1,31 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.domain.models.Role;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * Authenticated principal: carries the user id and role loaded at login so the
+ * current user can be resolved from the security context without querying users.
+ */
+public class SecurityUser extends User {
+
+    private final Long id;
+    private final Role role;
+
+    public SecurityUser(Long id, String email, String password, Role role) {
+        super(email, password, List.of(new SimpleGrantedAuthority(role.name())));
+        this.id = id;
+        this.role = role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+}
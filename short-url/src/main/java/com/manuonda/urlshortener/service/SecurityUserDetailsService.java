@@ -2,14 +2,11 @@ package com.manuonda.urlshortener.service;
 
 import com.manuonda.urlshortener.domain.entities.User;
 import com.manuonda.urlshortener.repositorys.UserRepository;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.Optional;
 
 
 @Service
@@ -28,10 +25,11 @@ public class SecurityUserDetailsService implements UserDetailsService {
                         ()-> new UsernameNotFoundException("Invalid username not found: " + username)
                 );
 
-        return new org.springframework.security.core.userdetails.User(
+        return new SecurityUser(
+                user.getId(),
                 user.getEmail(),
                 user.getPassword(),
-                List.of(new SimpleGrantedAuthority(user.getRole().name()))
+                user.getRole()
         );
 
     }
@@ -0,0 +1,161 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ShortKeyProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static com.manuonda.urlshortener.service.RandomUtils.ALPHANUMERIC_CHARACTERS;
+
+/**
+ * Collision-free short keys without uniqueness lookups.
+ *
+ * Numbers come from blocks reserved with one nextval('short_key_block_seq') per
+ * {@link #BLOCK_SIZE} keys, so several instances never hand out the same number.
+ * Each number goes through a keyed Feistel permutation (a bijection, so distinct
+ * numbers give distinct keys that are not guessable from their neighbours) and is
+ * base62 encoded to {@link #KEY_LENGTH} characters.
+ *
+ * Keys are 7 characters long while the random strategy produced 6, so the two
+ * key spaces never overlap and existing rows cannot collide with new keys.
+ *
+ * The permutation is only as secret as app.short-key.secret: when this strategy is
+ * selected, startup fails if it is missing or a known placeholder.
+ */
+@Component
+@ConditionalOnProperty(name = "app.short-key.strategy", havingValue = "sequence")
+public class SequenceShortKeyGenerator implements ShortKeyGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(SequenceShortKeyGenerator.class);
+
+    // Must match INCREMENT BY of short_key_block_seq (V6__create_short_key_block_seq.sql)
+    static final int BLOCK_SIZE = 1000;
+    static final int KEY_LENGTH = 7;
+    // 62^7 keys; the permutation works on 2^42 (> 62^7) and cycle-walks back into range
+    static final long KEY_SPACE = 3_521_614_606_208L;
+
+    private static final int HALF_BITS = 21;
+    private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+    private static final int ROUNDS = 4;
+
+    // sample values and the default of earlier versions
+    private static final Set<String> PLACEHOLDER_SECRETS = Set.of(
+            "change-me-short-key-secret", "change-me", "changeme", "secret", "short-key-secret");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long[] roundKeys;
+
+    private long next;
+    private long limit;
+
+    public SequenceShortKeyGenerator(JdbcTemplate jdbcTemplate, ShortKeyProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.roundKeys = deriveRoundKeys(checkSecret(properties.secret()));
+    }
+
+    static String checkSecret(String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException(
+                    "app.short-key.secret (SHORT_KEY_SECRET) is required by the sequence short key strategy");
+        }
+        if (PLACEHOLDER_SECRETS.contains(secret.trim().toLowerCase(Locale.ROOT))) {
+            throw new IllegalStateException(
+                    "app.short-key.secret (SHORT_KEY_SECRET) is a placeholder: short keys could be enumerated");
+        }
+        return secret;
+    }
+
+    @Override
+    public synchronized String nextKey() {
+        if (next >= limit) {
+            reserveBlock();
+        }
+        return encode(permute(next++));
+    }
+
+    @Override
+    public synchronized List<String> nextKeys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (next >= limit) {
+                reserveBlock();
+            }
+            keys.add(encode(permute(next++)));
+        }
+        return keys;
+    }
+
+    private void reserveBlock() {
+        Long start = jdbcTemplate.queryForObject("SELECT nextval('short_key_block_seq')", Long.class);
+        if (start == null || start + BLOCK_SIZE > KEY_SPACE) {
+            throw new IllegalStateException("Short key space exhausted");
+        }
+        next = start;
+        limit = start + BLOCK_SIZE;
+        logger.debug("Reserved short key block [{}, {})", next, limit);
+    }
+
+    /**
+     * Bijection on [0, KEY_SPACE).
+     */
+    long permute(long value) {
+        long x = value;
+        do {
+            x = feistel(x);
+        } while (x >= KEY_SPACE);
+        return x;
+    }
+
+    private long feistel(long x) {
+        long left = x >>> HALF_BITS;
+        long right = x & HALF_MASK;
+        for (int i = 0; i < ROUNDS; i++) {
+            long mixed = left ^ round(right, roundKeys[i]);
+            left = right;
+            right = mixed;
+        }
+        return (left << HALF_BITS) | right;
+    }
+
+    // splitmix64 finalizer keyed by the round key, truncated to one half
+    private static long round(long half, long key) {
+        long z = half * 0x9E3779B97F4A7C15L + key;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) & HALF_MASK;
+    }
+
+    static String encode(long value) {
+        char[] chars = new char[KEY_LENGTH];
+        for (int i = KEY_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHANUMERIC_CHARACTERS.charAt((int) (value % 62));
+            value /= 62;
+        }
+        return new String(chars);
+    }
+
+    private static long[] deriveRoundKeys(String secret) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(secret.getBytes(StandardCharsets.UTF_8));
+            ByteBuffer buffer = ByteBuffer.wrap(digest);
+            long[] keys = new long[ROUNDS];
+            for (int i = 0; i < ROUNDS; i++) {
+                keys[i] = buffer.getLong();
+            }
+            return keys;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.manuonda.urlshortener.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Receives the short keys created by any instance (including this one)
+ * and adds them to the local short key filter.
+ */
+@Component
+public class ShortKeyCreatedListener implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShortKeyCreatedListener.class);
+
+    private final ShortKeyFilter shortKeyFilter;
+
+    public ShortKeyCreatedListener(ShortKeyFilter shortKeyFilter) {
+        this.shortKeyFilter = shortKeyFilter;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        // creation counter value, then one key or several separated by newlines (bulk creation)
+        String shortKeys = new String(message.getBody(), StandardCharsets.UTF_8);
+        logger.debug("Created shortKeys received: {}", shortKeys);
+        shortKeyFilter.addCreated(shortKeys);
+    }
+}
@@ -0,0 +1,444 @@
+package com.manuonda.urlshortener.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manuonda.urlshortener.config.SchedulingConfig;
+import com.manuonda.urlshortener.config.ShortKeyFilterProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rejects unknown short keys without touching the database.
+ *
+ * A Bloom filter holds every existing short key (built from short_urls at startup and
+ * rebuilt periodically). Keys the filter lets through but the database does not know (false
+ * positives, deleted keys) are remembered in a short-TTL negative cache.
+ *
+ * New keys are added on creation on every instance through pub/sub, which may lose messages
+ * (reconnects, degraded mode) and races the first clicks. So a rejection is only final once the
+ * filter holds every key created so far: each creation increments a Redis counter after its
+ * commit and publishes the new value with its keys. A message that does not follow the last
+ * value the filter is known to hold reveals a gap, and the filter catches up in the background
+ * with the rows created since the last load (one range query on created_at). The catch-up also
+ * runs periodically. Until the filter is up to date again (or while Redis is unavailable) a
+ * Bloom or negative cache miss goes to the database: the request path never waits on Redis or
+ * on a catch-up.
+ *
+ * Until the first build completes every key is let through.
+ */
+@Service
+public class ShortKeyFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShortKeyFilter.class);
+
+    private static final int FETCH_SIZE = 10_000;
+
+    // incremented after each creation commit (single or bulk)
+    static final String CREATED_VERSION_KEY = "shorturl:created:version";
+    // first line of a creation message: the counter value of that creation (keys are base62)
+    static final String VERSION_PREFIX = "#";
+    private static final String SELECT_CREATED_SINCE_SQL = "SELECT short_key FROM short_urls WHERE created_at >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final ShortKeyFilterProperties properties;
+    private final Executor catchUpExecutor;
+    private final Cache<String, Boolean> negativeCache;
+
+    private volatile BloomFilter filter;
+    // filter being rebuilt: keys created meanwhile go to both
+    private volatile BloomFilter building;
+    private final AtomicLong insertions = new AtomicLong();
+    // the filter holds every key created up to this counter value (-1: unknown), and up to
+    // caughtUpTo (guarded by catchUpLock, shared by the catch-ups and the rebuild)
+    private final AtomicLong caughtUpVersion = new AtomicLong(-1);
+    private final Object catchUpLock = new Object();
+    private Instant caughtUpTo;
+    // highest counter value seen (messages, catch-ups)
+    private final AtomicLong knownVersion = new AtomicLong(-1);
+    private final AtomicBoolean catchUpPending = new AtomicBoolean();
+
+    private final LongAdder rejectedByFilter = new LongAdder();
+    private final LongAdder rejectedByNegativeCache = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder unverified = new LongAdder();
+    private final LongAdder catchUps = new LongAdder();
+
+    public ShortKeyFilter(JdbcTemplate jdbcTemplate,
+                          StringRedisTemplate stringRedisTemplate,
+                          RedisCircuitBreaker circuitBreaker,
+                          ShortKeyFilterProperties properties,
+                          @Qualifier(ScheduledAnnotationBeanPostProcessor.DEFAULT_TASK_SCHEDULER_BEAN_NAME)
+                          Executor catchUpExecutor,
+                          MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.circuitBreaker = circuitBreaker;
+        this.properties = properties;
+        this.catchUpExecutor = catchUpExecutor;
+        this.negativeCache = Caffeine.newBuilder()
+                .maximumSize(properties.negativeCacheMaximumSize())
+                .expireAfterWrite(properties.negativeCacheTtl())
+                .build();
+        registerMetrics(meterRegistry);
+        // creation messages may have been lost during the outage
+        circuitBreaker.addRecoveryTask(() -> {
+            if (!circuitBreaker.isOpen()) {
+                caughtUpVersion.set(-1);
+                requestCatchUp();
+            }
+        });
+    }
+
+    /**
+     * shorturl.keyfilter.rejections{reason}, shorturl.keyfilter.false_positives and the observed
+     * false positive rate (false positives / unknown keys that reached the filter), the misses let
+     * through unverified and the catch-ups.
+     */
+    private void registerMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("shorturl.keyfilter.rejections", rejectedByFilter, LongAdder::sum)
+                .tags("reason", "bloom").register(meterRegistry);
+        FunctionCounter.builder("shorturl.keyfilter.rejections", rejectedByNegativeCache, LongAdder::sum)
+                .tags("reason", "negative-cache").register(meterRegistry);
+        FunctionCounter.builder("shorturl.keyfilter.false_positives", falsePositives, LongAdder::sum)
+                .description("Unknown keys the Bloom filter let through to the database")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.keyfilter.unverified", unverified, LongAdder::sum)
+                .description("Filter misses sent to the database, the filter could not be proven up to date")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.keyfilter.catch_ups", catchUps, LongAdder::sum)
+                .description("Loads of the keys created since the previous load")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.keyfilter.false_positive_rate", this, ShortKeyFilter::falsePositiveRate)
+                .register(meterRegistry);
+        Gauge.builder("shorturl.keyfilter.size", insertions, AtomicLong::get)
+                .description("Keys inserted in the current Bloom filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false when the key certainly does not exist, true when the database has to be asked
+     */
+    public boolean mightExist(String shortKey) {
+        if (!properties.enabled() || !isRejected(shortKey)) {
+            return true;
+        }
+        // final only if the filter holds every key created so far
+        if (!isUpToDate()) {
+            unverified.increment();
+            requestCatchUp();
+            return true;
+        }
+        if (negativeCache.getIfPresent(shortKey) != null) {
+            rejectedByNegativeCache.increment();
+            return false;
+        }
+        BloomFilter current = filter;
+        if (current != null && !current.mightContain(shortKey)) {
+            rejectedByFilter.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private boolean isUpToDate() {
+        long version = caughtUpVersion.get();
+        return version >= 0 && knownVersion.get() <= version && !circuitBreaker.isOpen();
+    }
+
+    private boolean isRejected(String shortKey) {
+        if (negativeCache.getIfPresent(shortKey) != null) {
+            return true;
+        }
+        BloomFilter current = filter;
+        return current != null && !current.mightContain(shortKey);
+    }
+
+    /**
+     * The database confirmed the key does not exist: reject it for the negative cache TTL.
+     */
+    public void recordMissing(String shortKey) {
+        if (!properties.enabled()) {
+            return;
+        }
+        // a false positive only if the filter let the key through, not if it was sent unverified
+        BloomFilter current = filter;
+        if (current != null && current.mightContain(shortKey)) {
+            falsePositives.increment();
+        }
+        negativeCache.put(shortKey, Boolean.TRUE);
+    }
+
+    /**
+     * Adds a new (committed) key locally, moves the creation counter and publishes the key so the
+     * other instances add it too.
+     */
+    public void recordCreated(String shortKey) {
+        if (!properties.enabled()) {
+            return;
+        }
+        addLocal(shortKey);
+        Long version = incrementCreatedVersion();
+        try {
+            stringRedisTemplate.convertAndSend(properties.createdChannel(), message(version, shortKey));
+        } catch (Exception e) {
+            // other instances pick the key up on their next catch-up
+            logger.error("Error publishing created shortKey {}", shortKey, e);
+        }
+    }
+
+    /**
+     * Bulk variant of {@link #recordCreated(String)}: one message for all the keys (newline separated).
+     */
+    public void recordCreated(Collection<String> shortKeys) {
+        if (!properties.enabled() || shortKeys.isEmpty()) {
+            return;
+        }
+        shortKeys.forEach(this::addLocal);
+        Long version = incrementCreatedVersion();
+        try {
+            stringRedisTemplate.convertAndSend(properties.createdChannel(), message(version, String.join("\n", shortKeys)));
+        } catch (Exception e) {
+            logger.error("Error publishing {} created shortKeys", shortKeys.size(), e);
+        }
+    }
+
+    // the counter value first, when the increment succeeded
+    private static String message(Long version, String shortKeys) {
+        return version != null ? VERSION_PREFIX + version + "\n" + shortKeys : shortKeys;
+    }
+
+    /**
+     * Adds the keys of a creation message (from any instance, including this one). The filter
+     * stays up to date if the message carries the counter value following the one it holds;
+     * any other value means messages were lost or reordered, and a catch-up is started.
+     */
+    public void addCreated(String message) {
+        if (!properties.enabled()) {
+            return;
+        }
+        long version = -1;
+        for (String line : message.lines().toList()) {
+            if (line.startsWith(VERSION_PREFIX)) {
+                try {
+                    version = Long.parseLong(line.substring(VERSION_PREFIX.length()));
+                } catch (NumberFormatException e) {
+                    logger.debug("Invalid creation counter in message: {}", line);
+                }
+            } else {
+                addLocal(line);
+            }
+        }
+        if (version < 0) {
+            // sent while the counter was unavailable: the periodic catch-up covers it
+            return;
+        }
+        caughtUpVersion.compareAndSet(version - 1, version);
+        if (knownVersion.accumulateAndGet(version, Math::max) > caughtUpVersion.get()) {
+            requestCatchUp();
+        }
+    }
+
+    /**
+     * Adds a key to this instance only.
+     */
+    public void addLocal(String shortKey) {
+        negativeCache.invalidate(shortKey);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(shortKey);
+            insertions.incrementAndGet();
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(shortKey);
+        }
+    }
+
+    // null if it failed
+    private Long incrementCreatedVersion() {
+        try {
+            return circuitBreaker.execute(() -> stringRedisTemplate.opsForValue().increment(CREATED_VERSION_KEY));
+        } catch (Exception e) {
+            // the other instances pick the key up on their periodic catch-up
+            logger.warn("Error incrementing the short key creation counter: {}", e.toString());
+            return null;
+        }
+    }
+
+    // null while Redis is unavailable
+    private Long readCreatedVersion() {
+        try {
+            String version = circuitBreaker.execute(() -> stringRedisTemplate.opsForValue().get(CREATED_VERSION_KEY));
+            return version != null ? Long.parseLong(version) : 0L;
+        } catch (Exception e) {
+            logger.debug("Short key creation counter unavailable: {}", e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Periodic catch-up, also repairs the creations whose counter increment failed.
+     */
+    @Scheduled(initialDelayString = "${app.short-key-filter.catch-up-interval:30s}",
+            fixedDelayString = "${app.short-key-filter.catch-up-interval:30s}")
+    public void scheduledCatchUp() {
+        if (!properties.enabled() || filter == null) {
+            return;
+        }
+        Long version = readCreatedVersion();
+        catchUp(version != null ? version : -1, true);
+    }
+
+    /**
+     * Starts a catch-up in the background unless one is already pending.
+     */
+    private void requestCatchUp() {
+        if (filter == null || circuitBreaker.isOpen() || !catchUpPending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            catchUpExecutor.execute(() -> {
+                try {
+                    Long version = readCreatedVersion();
+                    if (version != null) {
+                        catchUp(version, false);
+                    }
+                } finally {
+                    catchUpPending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            catchUpPending.set(false);
+        }
+    }
+
+    /**
+     * Adds the keys created since the last load (minus the overlap margin).
+     * @param version creation counter read before the query (-1: unknown)
+     * @param always  load even if already caught up to {@code version}
+     */
+    private void catchUp(long version, boolean always) {
+        synchronized (catchUpLock) {
+            long before = caughtUpVersion.get();
+            if (caughtUpTo == null || (!always && version <= before && knownVersion.get() <= before)) {
+                return;
+            }
+            Instant start = Instant.now();
+            try {
+                jdbcTemplate.query(SELECT_CREATED_SINCE_SQL, (RowCallbackHandler) rs -> addCaughtUp(rs.getString(1)),
+                        caughtUpTo.minus(properties.catchUpOverlap()).atOffset(ZoneOffset.UTC));
+            } catch (Exception e) {
+                logger.warn("Error loading the short keys created since {}: {}", caughtUpTo, e.toString());
+                return;
+            }
+            caughtUpTo = start;
+            catchUps.increment();
+            if (version < 0) {
+                caughtUpVersion.set(-1);
+            } else if (version < before) {
+                // the counter never goes back unless Redis lost it: start over from its value
+                caughtUpVersion.set(version);
+                knownVersion.set(version);
+            } else {
+                // messages received meanwhile may have moved it further
+                caughtUpVersion.accumulateAndGet(version, Math::max);
+                knownVersion.accumulateAndGet(version, Math::max);
+            }
+        }
+    }
+
+    // rows of the overlap margin are already in the filter
+    private void addCaughtUp(String shortKey) {
+        BloomFilter current = filter;
+        if (!current.mightContain(shortKey)) {
+            addLocal(shortKey);
+        } else {
+            negativeCache.invalidate(shortKey);
+            BloomFilter next = building;
+            if (next != null) {
+                next.put(shortKey);
+            }
+        }
+    }
+
+    /**
+     * Builds a new filter from short_urls and swaps it in. First run happens at startup.
+     * Sized for twice the current row count (at least expectedInsertions) so it keeps its
+     * false positive rate until the next rebuild.
+     */
+    @Scheduled(fixedDelayString = "${app.short-key-filter.rebuild-interval:6h}",
+            scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        if (!properties.enabled()) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            // keys created from here on are either read by the scan or caught up later
+            Long version = readCreatedVersion();
+            Instant loadedFrom = Instant.now();
+            Long rows = jdbcTemplate.queryForObject("SELECT count(*) FROM short_urls", Long.class);
+            long expected = Math.max(properties.expectedInsertions(), 2 * (rows != null ? rows : 0));
+            BloomFilter next = BloomFilter.create(expected, properties.falsePositiveProbability());
+            building = next;
+            AtomicLong loaded = new AtomicLong();
+            // streamed with a cursor (fetch size inside a read-only transaction) instead of loading all keys
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement("SELECT short_key FROM short_urls");
+                ps.setFetchSize(FETCH_SIZE);
+                return ps;
+            }, rs -> {
+                next.put(rs.getString(1));
+                loaded.incrementAndGet();
+            });
+            synchronized (catchUpLock) {
+                filter = next;
+                building = null;
+                caughtUpVersion.set(version != null ? version : -1);
+                if (version != null && version < knownVersion.get()) {
+                    // keys created during the scan, or a counter Redis lost: caught up later either way
+                    requestCatchUp();
+                }
+                caughtUpTo = loadedFrom;
+            }
+            insertions.set(loaded.get());
+            logger.info("Short key filter rebuilt: {} keys, {} bits, {} ms",
+                    loaded.get(), next.bitCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            building = null;
+            // keep the previous filter (or none: every key goes to the database)
+            logger.error("Error rebuilding short key filter", e);
+        }
+    }
+
+    private double falsePositiveRate() {
+        long fp = falsePositives.sum();
+        long negatives = fp + rejectedByFilter.sum();
+        return negatives == 0 ? 0.0 : (double) fp / negatives;
+    }
+}
@@ -0,0 +1,28 @@
+package com.manuonda.urlshortener.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocates short keys for new short URLs.
+ * Implementation is selected with app.short-key.strategy.
+ */
+public interface ShortKeyGenerator {
+
+    /**
+     * @return a short key that is not used by any short URL
+     */
+    String nextKey();
+
+    /**
+     * Allocates several keys at once (bulk creation).
+     * @return {@code count} distinct unused short keys
+     */
+    default List<String> nextKeys(int count) {
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(nextKey());
+        }
+        return keys;
+    }
+}
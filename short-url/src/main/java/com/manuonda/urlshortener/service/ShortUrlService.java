@@ -2,28 +2,51 @@ package com.manuonda.urlshortener.service;
 
 
 import com.manuonda.urlshortener.domain.entities.ShortUrl;
+import com.manuonda.urlshortener.domain.events.ShortUrlsChangedEvent;
+import com.manuonda.urlshortener.domain.models.BulkCreateResult;
 import com.manuonda.urlshortener.domain.models.CreateShortUrlCmd;
+import com.manuonda.urlshortener.domain.models.KeysetCursor;
 import com.manuonda.urlshortener.domain.models.PagedResult;
 import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
 import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import com.manuonda.urlshortener.domain.models.ShortUrlStatus;
 import com.manuonda.urlshortener.domain.models.UserDto;
 import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
 import com.manuonda.urlshortener.repositorys.UserRepository;
 import com.manuonda.urlshortener.ApplicationProperties;
+import com.manuonda.urlshortener.config.BulkCreateProperties;
+import com.manuonda.urlshortener.config.UrlValidationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Types;
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
-import static com.manuonda.urlshortener.service.RandomUtils.generateRandomShortKey;
 import static java.time.temporal.ChronoUnit.DAYS;
 
 @Service
@@ -33,21 +56,85 @@ public class ShortUrlService {
 
     private static final Logger logger = LoggerFactory.getLogger(ShortUrlService.class);
 
+    private static final String BULK_INSERT_SQL = """
+            INSERT INTO short_urls (short_key, original_url, is_private, expires_at, created_by,
+                                    click_count, created_at, max_clicks, status)
+            VALUES (?, ?, ?, ?, ?, 0, ?, ?, ?)
+            """;
+
     private final ShortUrlRepository shortUrlRepository;
     private final EntityMapper entityMapper;
     private final ApplicationProperties properties;
     private final UserRepository userRepository;
     private final UrlCacheService urlCacheService;
+    private final ShortKeyGenerator shortKeyGenerator;
+    private final ShortKeyFilter shortKeyFilter;
+    private final UrlExistenceValidator urlExistenceValidator;
+    private final UrlValidationProperties urlValidationProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final BulkCreateProperties bulkCreateProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final HotKeyTracker hotKeyTracker;
+    // [tier][redirected ? 1 : 0], registered once: no meter lookup per redirect
+    private final Timer[][] redirectTimers;
 
     public ShortUrlService(ShortUrlRepository shortUrlRepository,
                            EntityMapper entityMapper,
                            ApplicationProperties properties,
-                           UserRepository userRepository, UrlCacheService urlCacheService) {
+                           UserRepository userRepository, UrlCacheService urlCacheService,
+                           ShortKeyGenerator shortKeyGenerator,
+                           ShortKeyFilter shortKeyFilter,
+                           UrlExistenceValidator urlExistenceValidator,
+                           UrlValidationProperties urlValidationProperties,
+                           TransactionTemplate transactionTemplate,
+                           JdbcTemplate jdbcTemplate,
+                           BulkCreateProperties bulkCreateProperties,
+                           ApplicationEventPublisher eventPublisher,
+                           HotKeyTracker hotKeyTracker,
+                           MeterRegistry meterRegistry) {
         this.shortUrlRepository = shortUrlRepository;
         this.entityMapper = entityMapper;
         this.properties = properties;
         this.userRepository = userRepository;
         this.urlCacheService = urlCacheService;
+        this.shortKeyGenerator = shortKeyGenerator;
+        this.shortKeyFilter = shortKeyFilter;
+        this.urlExistenceValidator = urlExistenceValidator;
+        this.urlValidationProperties = urlValidationProperties;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.bulkCreateProperties = bulkCreateProperties;
+        this.eventPublisher = eventPublisher;
+        this.hotKeyTracker = hotKeyTracker;
+        this.redirectTimers = registerRedirectTimers(meterRegistry);
+    }
+
+    /**
+     * Tier that answered a redirect lookup: local = pinned hot keys or near cache, filtered = unknown
+     * key rejected by the short key filter (no database query).
+     */
+    private enum Tier { LOCAL, REDIS, DATABASE, FILTERED }
+
+    private record Access(Tier tier, Optional<ShortUrlDto> shortUrl) {
+    }
+
+    /**
+     * shorturl.redirect{tier,result}: latency of accessShortUrl per answering tier; the database share
+     * of the count is the cache fallback rate. Histogram buckets are enabled in application.properties.
+     */
+    private static Timer[][] registerRedirectTimers(MeterRegistry meterRegistry) {
+        Timer[][] timers = new Timer[Tier.values().length][2];
+        for (Tier tier : Tier.values()) {
+            // a filtered key is never redirected
+            for (int redirected = 0; redirected < (tier == Tier.FILTERED ? 1 : 2); redirected++) {
+                timers[tier.ordinal()][redirected] = Timer.builder("shorturl.redirect")
+                        .description("Short key lookups of the redirect path, per answering tier")
+                        .tags("tier", tier.name().toLowerCase(), "result", redirected == 1 ? "redirected" : "not_found")
+                        .register(meterRegistry);
+            }
+        }
+        return timers;
     }
 
 
@@ -68,7 +155,12 @@ public class ShortUrlService {
     @Transactional
     public void deleteUserShortUrls(List<Long> ids, Long userId) {
         if (ids != null && !ids.isEmpty() && userId != null) {
+            List<String> shortKeys = shortUrlRepository.findShortKeysByIdInAndCreatedById(ids, userId);
             shortUrlRepository.deleteByIdInAndCreatedById(ids, userId);
+            // Drop deleted keys from Redis and from every instance's near cache
+            shortKeys.forEach(urlCacheService::invalidateShortUrlCache);
+            // handled after commit (deleted rows may have been public)
+            eventPublisher.publishEvent(new ShortUrlsChangedEvent(!shortKeys.isEmpty()));
         }
     }
 
@@ -78,20 +170,123 @@ public class ShortUrlService {
         return PagedResult.from(shortUrlsPage);
     }
 
+    /**
+     * Keyset variants of the listings: the cursor is the (createdAt, id) of the first/last row
+     * shown, so every page costs one index range scan of pageSize + 1 rows and no count query.
+     */
+    public PagedResult<ShortUrlDto> findPublicShortUrls(KeysetCursor cursor, int pageSize) {
+        return keysetPage(cursor, pageSize, shortUrlRepository::findPublicShortUrlsOlderThan,
+                shortUrlRepository::findPublicShortUrlsNewerThan, -1);
+    }
+
+    public PagedResult<ShortUrlDto> getUserShortUrls(Long userId, KeysetCursor cursor, int pageSize) {
+        return keysetPage(cursor, pageSize,
+                (createdAt, id, limit) -> shortUrlRepository.findUserShortUrlsOlderThan(userId, createdAt, id, limit),
+                (createdAt, id, limit) -> shortUrlRepository.findUserShortUrlsNewerThan(userId, createdAt, id, limit),
+                -1);
+    }
+
+    public PagedResult<ShortUrlDto> findAllShortUrls(KeysetCursor cursor, int pageSize) {
+        return keysetPage(cursor, pageSize, shortUrlRepository::findAllShortUrlsOlderThan,
+                shortUrlRepository::findAllShortUrlsNewerThan, estimateShortUrlCount());
+    }
+
+    @FunctionalInterface
+    private interface KeysetQuery {
+        List<ShortUrl> find(Instant createdAt, Long id, Limit limit);
+    }
+
+    private PagedResult<ShortUrlDto> keysetPage(KeysetCursor cursor, int pageSize,
+                                                KeysetQuery older, KeysetQuery newer, long totalElements) {
+        Limit limit = Limit.of(pageSize + 1);
+        List<ShortUrl> rows;
+        boolean hasNext;
+        boolean hasPrevious;
+        if (cursor.before()) {
+            rows = new ArrayList<>(newer.find(cursor.createdAt(), cursor.id(), limit));
+            hasPrevious = rows.size() > pageSize;
+            if (!hasPrevious) {
+                // reached the top: show a full first page instead of a short one
+                return keysetPage(KeysetCursor.FIRST, pageSize, older, newer, totalElements);
+            }
+            rows = rows.subList(0, pageSize);
+            Collections.reverse(rows);
+            hasNext = true;
+        } else {
+            rows = older.find(cursor.createdAt(), cursor.id(), limit);
+            hasNext = rows.size() > pageSize;
+            if (hasNext) {
+                rows = rows.subList(0, pageSize);
+            }
+            hasPrevious = cursor != KeysetCursor.FIRST;
+        }
+        String previousCursor = null;
+        String nextCursor = null;
+        if (!rows.isEmpty()) {
+            ShortUrl first = rows.get(0);
+            ShortUrl last = rows.get(rows.size() - 1);
+            previousCursor = hasPrevious ? KeysetCursor.encode(first.getCreatedAt(), first.getId()) : null;
+            nextCursor = hasNext ? KeysetCursor.encode(last.getCreatedAt(), last.getId()) : null;
+        }
+        return PagedResult.keyset(rows.stream().map(entityMapper::toShortUrlDto).toList(),
+                hasNext, hasPrevious, previousCursor, nextCursor, totalElements);
+    }
+
+    /**
+     * Planner estimate of the table size (PostgreSQL statistics, no scan), -1 when unavailable.
+     */
+    private long estimateShortUrlCount() {
+        try {
+            Long estimate = jdbcTemplate.queryForObject(
+                    "SELECT reltuples::bigint FROM pg_class WHERE relname = 'short_urls'", Long.class);
+            return estimate != null ? estimate : -1;
+        } catch (Exception e) {
+            logger.debug("Short URL count estimate not available", e);
+            return -1;
+        }
+    }
+
     private Pageable getPageable(int page, int size) {
         page = page > 1 ? page - 1: 0;
         return PageRequest.of(page, size, Sort.Direction.DESC, "createdAt");
     }
 
-    @Transactional
+    /**
+     * The original URL check never runs inside a transaction, so no DB connection is held
+     * across network I/O: sync mode checks before the insert, async mode inserts the URL as
+     * PENDING_VALIDATION and activates it (or marks it INVALID) when the check completes.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ShortUrlDto createShortUrl(CreateShortUrlCmd cmd) {
-        if(properties.validateOriginalUrl()) {
-            boolean urlExists = UrlExistenceValidator.isUrlExists(cmd.originalUrl());
+        boolean validate = properties.validateOriginalUrl();
+        boolean async = validate && urlValidationProperties.async();
+        if(validate && !async) {
+            boolean urlExists = urlExistenceValidator.isUrlExists(cmd.originalUrl());
             if(!urlExists) {
                 throw new RuntimeException("Invalid URL "+cmd.originalUrl());
             }
         }
-        var shortKey = generateUniqueShortKey();
+        ShortUrlStatus status = async ? ShortUrlStatus.PENDING_VALIDATION : ShortUrlStatus.ACTIVE;
+        ShortUrlDto shortUrlDto = transactionTemplate.execute(tx -> saveShortUrl(cmd, status));
+        var shortKey = shortUrlDto.shortKey();
+        shortKeyFilter.recordCreated(shortKey);
+        // a pending short URL enters the public listing when its validation completes
+        eventPublisher.publishEvent(new ShortUrlsChangedEvent(!shortUrlDto.isPrivate() && status == ShortUrlStatus.ACTIVE));
+
+        // Initialize click count in cache
+        if(shortUrlDto.maxClicks() > 0 ){
+            this.urlCacheService.setClickLimit(shortKey, (long) shortUrlDto.maxClicks());
+        }
+        if (async) {
+            submitValidation(shortKey, cmd.originalUrl(), shortUrlDto.isPrivate());
+        }
+        logger.info("Created short URL: {} -> {} ({})", shortKey, cmd.originalUrl(), status);
+
+        return shortUrlDto;
+    }
+
+    private ShortUrlDto saveShortUrl(CreateShortUrlCmd cmd, ShortUrlStatus status) {
+        var shortKey = shortKeyGenerator.nextKey();
         var shortUrl = new ShortUrl();
         shortUrl.setOriginalUrl(cmd.originalUrl());
         shortUrl.setShortKey(shortKey);
@@ -107,77 +302,306 @@ public class ShortUrlService {
         shortUrl.setClickCount(0L);
         shortUrl.setCreatedAt(Instant.now());
         shortUrl.setMaxClicks(cmd.maxClicks());
+        shortUrl.setStatus(status);
         shortUrlRepository.save(shortUrl);
+        return entityMapper.toShortUrlDto(shortUrl);
+    }
 
-        // Initialize click count in cache
-        if(shortUrl.getMaxClicks() > 0 ){
-            this.urlCacheService.setClickLimit(shortKey, (long) shortUrl.getMaxClicks());
+    /**
+     * Bulk creation. Rows are consumed one batch at a time: keys of a batch are allocated
+     * together and the batch is inserted with one JDBC batch in its own transaction (ids come
+     * from the column default instead of one sequence call per row), then the batch results
+     * are handed to {@code results}. Memory stays flat whatever the number of rows.
+     *
+     * Invalid rows are reported and skipped. If {@code cmds} fails (malformed input) the batches
+     * already reported stay created, the rows of the incomplete batch are not inserted and the
+     * exception is rethrown. If {@code results} fails (e.g. the client went away) nothing more is
+     * inserted and its exception is rethrown as is.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void createShortUrls(Iterator<CreateShortUrlCmd> cmds, Consumer<List<BulkCreateResult>> results) {
+        List<CreateShortUrlCmd> batch = new ArrayList<>(bulkCreateProperties.batchSize());
+        long line = 0;
+        while (cmds.hasNext()) {
+            batch.add(cmds.next());
+            if (batch.size() == bulkCreateProperties.batchSize()) {
+                line = createAndReportBatch(batch, line, results);
+            }
+        }
+        if (!batch.isEmpty()) {
+            createAndReportBatch(batch, line, results);
         }
-        logger.info("Created short URL: {} -> {}", shortKey, cmd.originalUrl());
+    }
 
-        return entityMapper.toShortUrlDto(shortUrl);
+    // the batch is cleared before its results are reported: a failing consumer never gets it inserted twice
+    private long createAndReportBatch(List<CreateShortUrlCmd> batch, long lineOffset,
+                                      Consumer<List<BulkCreateResult>> results) {
+        List<BulkCreateResult> created = createBatch(batch, lineOffset);
+        long nextLineOffset = lineOffset + batch.size();
+        batch.clear();
+        results.accept(created);
+        return nextLineOffset;
     }
 
+    private List<BulkCreateResult> createBatch(List<CreateShortUrlCmd> batch, long lineOffset) {
+        boolean validate = properties.validateOriginalUrl();
+        boolean async = validate && urlValidationProperties.async();
+        ShortUrlStatus status = async ? ShortUrlStatus.PENDING_VALIDATION : ShortUrlStatus.ACTIVE;
+        BulkCreateResult[] results = new BulkCreateResult[batch.size()];
+
+        List<Integer> accepted = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            String error = validateRow(batch.get(i));
+            if (error != null) {
+                results[i] = BulkCreateResult.failed(lineOffset + i + 1, batch.get(i).originalUrl(), error);
+            } else {
+                accepted.add(i);
+            }
+        }
+        if (validate && !async) {
+            // sync mode: the rows of the batch are checked concurrently, still outside any transaction
+            List<CompletableFuture<Boolean>> checks = accepted.stream()
+                    .map(i -> urlExistenceValidator.isUrlExistsAsync(batch.get(i).originalUrl()))
+                    .toList();
+            List<Integer> reachable = new ArrayList<>(accepted.size());
+            for (int j = 0; j < accepted.size(); j++) {
+                int i = accepted.get(j);
+                if (checks.get(j).join()) {
+                    reachable.add(i);
+                } else {
+                    results[i] = BulkCreateResult.failed(lineOffset + i + 1, batch.get(i).originalUrl(),
+                            "Invalid URL");
+                }
+            }
+            accepted = reachable;
+        }
 
-    @Transactional
-    public Optional<ShortUrlDto> accessShortUrl(String shortKey, Long userId) {
+        if (!accepted.isEmpty()) {
+            insertBatch(batch, accepted, status, lineOffset, results);
+        }
+        return List.of(results);
+    }
+
+    private void insertBatch(List<CreateShortUrlCmd> batch, List<Integer> rows, ShortUrlStatus status,
+                             long lineOffset, BulkCreateResult[] results) {
+        List<String> shortKeys = shortKeyGenerator.nextKeys(rows.size());
+        Instant now = Instant.now();
+        List<Object[]> args = new ArrayList<>(rows.size());
+        Map<String, Long> clickLimits = new HashMap<>();
+        for (int j = 0; j < rows.size(); j++) {
+            CreateShortUrlCmd cmd = batch.get(rows.get(j));
+            boolean anonymous = cmd.userId() == null;
+            Instant expiresAt = anonymous
+                    ? now.plus(properties.defaultExpiryInDays(), DAYS)
+                    : cmd.expirationInDays() != null ? now.plus(cmd.expirationInDays(), DAYS) : null;
+            int maxClicks = cmd.maxClicks() != null ? cmd.maxClicks() : 0;
+            args.add(new Object[]{
+                    shortKeys.get(j),
+                    cmd.originalUrl(),
+                    !anonymous && cmd.isPrivate() != null && cmd.isPrivate(),
+                    // Instant is stored as UTC, as Hibernate does for the entity
+                    expiresAt != null ? expiresAt.atOffset(ZoneOffset.UTC) : null,
+                    cmd.userId(),
+                    now.atOffset(ZoneOffset.UTC),
+                    maxClicks,
+                    status.name()
+            });
+            if (maxClicks > 0) {
+                clickLimits.put(shortKeys.get(j), (long) maxClicks);
+            }
+        }
+        int[] argTypes = {Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN, Types.TIMESTAMP_WITH_TIMEZONE,
+                Types.BIGINT, Types.TIMESTAMP_WITH_TIMEZONE, Types.INTEGER, Types.VARCHAR};
+        try {
+            transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(BULK_INSERT_SQL, args, argTypes));
+        } catch (Exception e) {
+            logger.error("Bulk insert of {} short URLs failed", rows.size(), e);
+            for (int i : rows) {
+                results[i] = BulkCreateResult.failed(lineOffset + i + 1, batch.get(i).originalUrl(),
+                        "Could not create short URL");
+            }
+            return;
+        }
+
+        shortKeyFilter.recordCreated(shortKeys);
+        urlCacheService.setClickLimits(clickLimits);
+        // args[2] is is_private; pending short URLs enter the public listing when their validation completes
+        eventPublisher.publishEvent(new ShortUrlsChangedEvent(status == ShortUrlStatus.ACTIVE
+                && args.stream().anyMatch(row -> !(Boolean) row[2])));
+        for (int j = 0; j < rows.size(); j++) {
+            int i = rows.get(j);
+            String originalUrl = batch.get(i).originalUrl();
+            String shortKey = shortKeys.get(j);
+            if (status == ShortUrlStatus.PENDING_VALIDATION) {
+                submitValidation(shortKey, originalUrl, (Boolean) args.get(j)[2]);
+            }
+            results[i] = BulkCreateResult.created(lineOffset + i + 1, originalUrl, shortKey,
+                    properties.baseUrl() + "/s/" + shortKey, status);
+        }
+        logger.info("Bulk created {} short URLs ({})", rows.size(), status);
+    }
+
+    // Same rules as CreateShortUrlForm
+    private static String validateRow(CreateShortUrlCmd cmd) {
+        if (cmd.originalUrl() == null || cmd.originalUrl().isBlank()) {
+            return "Original Url is required";
+        }
+        if (cmd.expirationInDays() != null && (cmd.expirationInDays() < 1 || cmd.expirationInDays() > 365)) {
+            return "expirationInDays must be between 1 and 365";
+        }
+        if (cmd.maxClicks() != null && cmd.maxClicks() < 0) {
+            return "maxClicks must not be negative";
+        }
+        return null;
+    }
 
-        // Try to get from cache first
-        ShortUrlCacheDto cacheDto = this.urlCacheService.getShortUrlFromCache(shortKey);
-        ShortUrlDto shortUrlDto;
+    private void submitValidation(String shortKey, String originalUrl, boolean isPrivate) {
+        urlExistenceValidator.isUrlExistsAsync(originalUrl)
+                .thenAccept(valid -> completeValidation(shortKey, valid, isPrivate));
+    }
+
+    private void completeValidation(String shortKey, boolean valid, boolean isPrivate) {
+        ShortUrlStatus status = valid ? ShortUrlStatus.ACTIVE : ShortUrlStatus.INVALID;
+        try {
+            // only the first completion wins when a retry raced with the original check
+            if (shortUrlRepository.updateStatus(shortKey, ShortUrlStatus.PENDING_VALIDATION, status) > 0) {
+                logger.info("Validation of short URL {} completed: {}", shortKey, status);
+                // an activated public short URL enters the listing (pending and invalid ones are not listed)
+                if (valid && !isPrivate) {
+                    eventPublisher.publishEvent(new ShortUrlsChangedEvent(true));
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error completing validation of short URL {}", shortKey, e);
+        }
+    }
 
+    /**
+     * Checks again the URLs left PENDING_VALIDATION for too long
+     * (e.g. the instance that created them stopped before the check completed).
+     */
+    @Scheduled(fixedDelayString = "${app.url-validation.pending-retry-after:2m}")
+    public void retryStalePendingValidations() {
+        if (!properties.validateOriginalUrl() || !urlValidationProperties.async()) {
+            return;
+        }
+        Instant before = Instant.now().minus(urlValidationProperties.pendingRetryAfter());
+        List<ShortUrl> stale = shortUrlRepository
+                .findTop100ByStatusAndCreatedAtBeforeOrderByCreatedAtAsc(ShortUrlStatus.PENDING_VALIDATION, before);
+        if (!stale.isEmpty()) {
+            logger.info("Retrying validation of {} pending short URLs", stale.size());
+            stale.forEach(su -> submitValidation(su.getShortKey(), su.getOriginalUrl(),
+                    Boolean.TRUE.equals(su.getIsPrivate())));
+        }
+    }
+
+
+    /**
+     * Redirect hot path. Each tier costs at most one Redis round trip before answering:
+     * near cache hit -> validate, then count (click-limit script);
+     * Redis hit -> metadata + click counted by a single script, reverted if the link is not accessible;
+     * in local click counting mode clicks of unlimited links are only added up in memory (no counting round trip);
+     * miss -> unknown keys rejected by the short key filter, otherwise database, cache, validate, count.
+     * Only the database tier runs in a transaction: cache hits never borrow a JDBC connection.
+     * Successful redirects feed the heavy hitter tracker, which pins the hottest keys in memory.
+     * Timed per answering tier (shorturl.redirect).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<ShortUrlDto> accessShortUrl(String shortKey, Long userId) {
+        long start = System.nanoTime();
+        Access access = lookupAndRegisterClick(shortKey, userId);
+        boolean redirected = access.shortUrl().isPresent();
+        if (redirected) {
+            hotKeyTracker.recordClick(shortKey);
+        }
+        redirectTimers[access.tier().ordinal()][redirected ? 1 : 0].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return access.shortUrl();
+    }
+
+    private Access lookupAndRegisterClick(String shortKey, Long userId) {
+        // 1. Process memory: pinned hot keys, then near cache (no I/O)
+        ShortUrlCacheDto cacheDto = this.urlCacheService.getLocalShortUrl(shortKey);
         if (cacheDto != null) {
-            // Cache hit - convert cache DTO to full DTO
-            logger.info("Using cached ShortUrl for shortKey: {}", shortKey);
-            shortUrlDto = convertCacheDtoToDto(cacheDto);
-        } else {
-            // Cache miss - fetch from DB
-            Optional<ShortUrl> shortUrlOpt = shortUrlRepository.findByShortKey(shortKey);
-            if (shortUrlOpt.isEmpty()) {
-                return Optional.empty();
+            return new Access(Tier.LOCAL, registerClickIfAccessible(convertCacheDtoToDto(cacheDto), userId));
+        }
+
+        // 2. Redis: fetch metadata and count the click in one round trip
+        UrlCacheService.ClickLookup lookup = this.urlCacheService.fetchAndRegisterClick(shortKey);
+        if (lookup.hit()) {
+            logger.debug("Using cached ShortUrl for shortKey: {}", shortKey);
+            ShortUrlDto shortUrlDto = convertCacheDtoToDto(lookup.shortUrl());
+            if (!isAccessible(shortUrlDto, userId)) {
+                if (lookup.counted()) {
+                    urlCacheService.revertClick(lookup);
+                }
+                return new Access(Tier.REDIS, Optional.empty());
             }
-            ShortUrl shortUrl = shortUrlOpt.get();
-            shortUrlDto = entityMapper.toShortUrlDto(shortUrl);
+            if (!lookup.counted()) {
+                this.urlCacheService.invalidateShortUrlCache(shortKey);
+                return new Access(Tier.REDIS, Optional.empty());
+            }
+            return new Access(Tier.REDIS, Optional.of(shortUrlDto));
+        }
 
-            // Store minimal DTO in cache for next time
-            ShortUrlCacheDto cacheDtoToStore = entityMapper.toShortUrlCacheDto(shortUrl);
-            this.urlCacheService.cacheShortUrl(shortKey, cacheDtoToStore);
+        // 3. Cache miss - reject unknown keys (Bloom filter + negative cache), then fetch from DB
+        if (!shortKeyFilter.mightExist(shortKey)) {
+            return new Access(Tier.FILTERED, Optional.empty());
         }
+        return new Access(Tier.DATABASE, transactionTemplate.execute(tx -> accessShortUrlFromDatabase(shortKey, userId)));
+    }
 
-        // Validate expiration
-        if(shortUrlDto.expiresAt() != null && shortUrlDto.expiresAt().isBefore(Instant.now())) {
+    private Optional<ShortUrlDto> accessShortUrlFromDatabase(String shortKey, Long userId) {
+        Optional<ShortUrl> shortUrlOpt = shortUrlRepository.findByShortKey(shortKey);
+        if (shortUrlOpt.isEmpty()) {
+            shortKeyFilter.recordMissing(shortKey);
+            return Optional.empty();
+        }
+        ShortUrl shortUrl = shortUrlOpt.get();
+        if (shortUrl.getStatus() != ShortUrlStatus.ACTIVE) {
+            // pending or failed validation: not cached, not redirected
             return Optional.empty();
         }
 
-        // Validate private
-        if(shortUrlDto.isPrivate() != null && shortUrlDto.isPrivate()
-                && shortUrlDto.createdBy() != null
-                && !Objects.equals(shortUrlDto.createdBy().id(), userId)) {
+        // Store minimal DTO in cache for next time
+        ShortUrlCacheDto cacheDtoToStore = entityMapper.toShortUrlCacheDto(shortUrl);
+        this.urlCacheService.cacheShortUrl(shortKey, cacheDtoToStore);
+
+        return registerClickIfAccessible(entityMapper.toShortUrlDto(shortUrl), userId);
+    }
+
+    private Optional<ShortUrlDto> registerClickIfAccessible(ShortUrlDto shortUrlDto, Long userId) {
+        if (!isAccessible(shortUrlDto, userId)) {
             return Optional.empty();
         }
 
-        // Validate click limit
-        long currentClicks = urlCacheService.getClickCount(shortKey);
+        // Validate click limit and increment click count atomically (single Redis script)
         long maxClicks = shortUrlDto.maxClicks() != null ? shortUrlDto.maxClicks() : 0;
-
-        // Validate click limit BEFORE incrementing
-        if (maxClicks > 0 && currentClicks >= maxClicks) {
+        if (!urlCacheService.tryRegisterClick(shortUrlDto.shortKey(), maxClicks)) {
             this.urlCacheService.invalidateShortUrlCache(shortUrlDto.shortKey());
             return Optional.empty();
         }
+        return Optional.of(shortUrlDto);
+    }
 
-        // Increment click count
-        urlCacheService.incrementAndGetClickCount(shortKey);
+    private boolean isAccessible(ShortUrlDto shortUrlDto, Long userId) {
+        // Validate expiration
+        if(shortUrlDto.expiresAt() != null && shortUrlDto.expiresAt().isBefore(Instant.now())) {
+            return false;
+        }
 
-        return Optional.of(shortUrlDto);
+        // Validate private
+        return !(shortUrlDto.isPrivate() != null && shortUrlDto.isPrivate()
+                && shortUrlDto.createdBy() != null
+                && !Objects.equals(shortUrlDto.createdBy().id(), userId));
     }
 
     /**
      * Helper method to convert ShortUrlCacheDto to ShortUrlDto
      * Note: createdBy will be null (only ID is cached)
      * createdAt is not cached (not needed for access logic)
+     * Package-private for the JMH benchmarks (benchmarks module).
      */
-    private ShortUrlDto convertCacheDtoToDto(ShortUrlCacheDto cacheDto) {
+    static ShortUrlDto convertCacheDtoToDto(ShortUrlCacheDto cacheDto) {
         // Reconstruct a minimal UserDto if createdById exists
         UserDto userDto = null;
         if (cacheDto.createdById() != null) {
@@ -194,16 +618,9 @@ public class ShortUrlService {
                 userDto,  // UserDto with ID only
                 cacheDto.clickCount(),
                 null,     // createdAt not cached (not used in validation)
-                cacheDto.maxClicks()
+                cacheDto.maxClicks(),
+                ShortUrlStatus.ACTIVE  // only active URLs are cached
         );
     }
 
-    private String generateUniqueShortKey() {
-        String shortKey;
-        do {
-            shortKey = generateRandomShortKey();
-        } while (shortUrlRepository.existsByShortKey(shortKey));
-        return shortKey;
-    }
-
 }
@@ -1,69 +1,381 @@
 package com.manuonda.urlshortener.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manuonda.urlshortener.config.ClickCountingProperties;
+import com.manuonda.urlshortener.config.ClickSyncProperties;
+import com.manuonda.urlshortener.config.NearCacheProperties;
+import com.manuonda.urlshortener.config.RedisCircuitBreakerProperties;
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
 import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
-import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Cache tiers of the short URLs (pinned hot keys, near cache, Redis) and their Redis click counters.
+ *
+ * Every Redis call goes through {@link RedisCircuitBreaker}. While it is open (degraded mode) reads
+ * miss, so callers use the database, clicks are counted in memory and invalidations are remembered;
+ * both are written back to Redis when it recovers, before the circuit closes.
+ *
+ * In local click counting mode (app.click-counting.mode=local) the clicks of links without a limit
+ * are added up in the same in-memory counters and flushed with pipelined INCRBYs every flushInterval;
+ * links with a limit keep an atomic check-and-increment per click.
+ */
 @Service
 public class UrlCacheService {
 
     private static final Logger logger = LoggerFactory.getLogger(UrlCacheService.class);
-    private static final String CLICKS_PREFIX = "clicks:";
-    private static final String LIMIT_PREFIX = "limit:";
-    private static final String SHORT_URL_PREFIX = "shorturl:";
+    static final String CLICKS_PREFIX = "clicks:";
+    // Short keys whose counter moved since the last click synchronization, split in shards (dirtyKey)
+    static final String CLICKS_DIRTY_KEY = "clicksync:dirty";
+    static final String LIMIT_PREFIX = "limit:";
+    static final String SHORT_URL_PREFIX = "shorturl:";
+    // Hash layout: one hash per short URL, with short field names (stored once per hash in Redis)
+    static final String HASH_PREFIX = "url:";
+    private static final String META_FIELD = "m";
+    private static final String META_EXPIRY_FIELD = "x";
+    private static final String CLICKS_FIELD = "c";
+    private static final String LIMIT_FIELD = "l";
+    private static final byte[] META_FIELD_BYTES = META_FIELD.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] META_EXPIRY_FIELD_BYTES = META_EXPIRY_FIELD.getBytes(StandardCharsets.UTF_8);
+    private static final Duration SHORT_URL_TTL = Duration.ofHours(1);
+    // short keys per UNLINK command when removing deleted short URLs
+    private static final int UNLINK_BATCH_SIZE = 100;
+
+    private static final long CLICK_LIMIT_REACHED = -1L;
+    // lookup script: unlimited link, click left to the local counters
+    private static final long CLICK_NOT_COUNTED = -2L;
+    private static final RedisScript<Long> CHECK_AND_INCREMENT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/check-and-increment-clicks.lua"), Long.class);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Object>> LOOKUP_AND_COUNT_SCRIPT =
+            (RedisScript) RedisScript.of(new ClassPathResource("scripts/lookup-and-count-click.lua"), List.class);
+    private static final RedisScript<Long> HASH_CHECK_AND_INCREMENT_SCRIPT =
+            RedisScript.of(new ClassPathResource("scripts/hash-check-and-increment-clicks.lua"), Long.class);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Object>> HASH_LOOKUP_AND_COUNT_SCRIPT =
+            (RedisScript) RedisScript.of(new ClassPathResource("scripts/hash-lookup-and-count-click.lua"), List.class);
+
+    /**
+     * Result of {@link #fetchAndRegisterClick(String)}.
+     * @param shortUrl cached short URL, null on a cache miss (nothing was counted)
+     * @param counted  true if the click was counted, false if the click limit was already reached
+     * @param countedLocally true if the click went to the in-memory counters (local counting mode)
+     */
+    public record ClickLookup(ShortUrlCacheDto shortUrl, boolean counted, boolean countedLocally) {
+        static final ClickLookup MISS = new ClickLookup(null, false, false);
+
+        public boolean hit() {
+            return shortUrl != null;
+        }
+    }
 
 
     private final RedisTemplate<String, Object> redisTemplate;
-    private final ShortUrlRepository shortUrlRepository;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final NearCacheProperties nearCacheProperties;
+    private final boolean hashLayout;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final int maxPendingClickKeys;
+    private final boolean localCounting;
+    private final int maxLocalClickKeys;
+    private final int dirtyShards;
 
-    public UrlCacheService(RedisTemplate<String, Object> redisTemplate, ShortUrlRepository shortUrlRepository) {
+    // Near cache: in-process tier in front of Redis (null when disabled)
+    private final Cache<String, ShortUrlCacheDto> nearCache;
+    // Pinned entries: hottest keys (HotKeyTracker), never evicted by size or TTL, only replaced or invalidated
+    private final Map<String, ShortUrlCacheDto> pinned = new ConcurrentHashMap<>();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder pinnedHits = new LongAdder();
+    // Clicks not written to Redis yet (local counting mode, degraded mode) and invalidations (degraded mode)
+    private final Map<String, LongAdder> pendingClicks = new ConcurrentHashMap<>();
+    // counters idle at the last flush, removed from pendingClicks and drained once more at the next one
+    private final List<Map.Entry<String, LongAdder>> retiredClicks = new ArrayList<>();
+    private final Set<String> pendingInvalidations = ConcurrentHashMap.newKeySet();
+    private final LongAdder droppedClicks = new LongAdder();
+    private final LongAdder flushedClicks = new LongAdder();
+
+    public UrlCacheService(RedisTemplate<String, Object> redisTemplate,
+                           StringRedisTemplate stringRedisTemplate,
+                           ObjectMapper objectMapper,
+                           NearCacheProperties nearCacheProperties,
+                           ShortUrlCacheProperties shortUrlCacheProperties,
+                           RedisCircuitBreaker circuitBreaker,
+                           RedisCircuitBreakerProperties circuitBreakerProperties,
+                           ClickCountingProperties clickCountingProperties,
+                           ClickSyncProperties clickSyncProperties,
+                           MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
-        this.shortUrlRepository = shortUrlRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.nearCacheProperties = nearCacheProperties;
+        this.hashLayout = shortUrlCacheProperties.layout() == ShortUrlCacheProperties.Layout.HASH;
+        this.circuitBreaker = circuitBreaker;
+        this.maxPendingClickKeys = circuitBreakerProperties.maxPendingClickKeys();
+        this.localCounting = clickCountingProperties.mode() == ClickCountingProperties.Mode.LOCAL;
+        this.maxLocalClickKeys = clickCountingProperties.maxPendingKeys();
+        this.dirtyShards = clickSyncProperties.shards();
+        this.nearCache = nearCacheProperties.enabled()
+                ? Caffeine.newBuilder()
+                    .maximumSize(nearCacheProperties.maximumSize())
+                    .expireAfterWrite(nearCacheProperties.expireAfterWrite())
+                    .recordStats()
+                    .build()
+                : null;
+        registerCacheMetrics(meterRegistry);
+        circuitBreaker.addRecoveryTask(this::writeBackPending);
+    }
+
+    /**
+     * Hit/miss/eviction counters per tier: shorturl.cache.gets{tier,result} (pinned: hits only, a pinned
+     * miss falls through to the near cache), shorturl.cache.evictions{tier},
+     * the number of pinned hot keys (shorturl.cache.pinned), the clicks counted in memory
+     * (shorturl.redis.pending_clicks, shorturl.redis.pending_clicks.dropped while Redis is unavailable)
+     * and the clicks flushed from them with INCRBY (shorturl.clicks.flushed).
+     */
+    private void registerCacheMetrics(MeterRegistry meterRegistry) {
+        FunctionCounter.builder("shorturl.cache.gets", redisHits, LongAdder::sum)
+                .tags("tier", "redis", "result", "hit").register(meterRegistry);
+        FunctionCounter.builder("shorturl.cache.gets", redisMisses, LongAdder::sum)
+                .tags("tier", "redis", "result", "miss").register(meterRegistry);
+        FunctionCounter.builder("shorturl.cache.gets", pinnedHits, LongAdder::sum)
+                .tags("tier", "pinned", "result", "hit").register(meterRegistry);
+        Gauge.builder("shorturl.cache.pinned", pinned, Map::size)
+                .description("Hot short keys pinned in process memory")
+                .register(meterRegistry);
+        Gauge.builder("shorturl.redis.pending_clicks", pendingClicks, Map::size)
+                .description("Short keys with clicks counted in memory, not written to Redis yet")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.clicks.flushed", flushedClicks, LongAdder::sum)
+                .description("Clicks counted in memory and written to Redis with INCRBY")
+                .register(meterRegistry);
+        FunctionCounter.builder("shorturl.redis.pending_clicks.dropped", droppedClicks, LongAdder::sum)
+                .description("Clicks lost in degraded mode (maxPendingClickKeys reached)")
+                .register(meterRegistry);
+        if (nearCache != null) {
+            FunctionCounter.builder("shorturl.cache.gets", nearCache, c -> c.stats().hitCount())
+                    .tags("tier", "near", "result", "hit").register(meterRegistry);
+            FunctionCounter.builder("shorturl.cache.gets", nearCache, c -> c.stats().missCount())
+                    .tags("tier", "near", "result", "miss").register(meterRegistry);
+            FunctionCounter.builder("shorturl.cache.evictions", nearCache, c -> c.stats().evictionCount())
+                    .tags("tier", "near").register(meterRegistry);
+        }
     }
 
 
     /**
      * INCREMENTS the click count automatically using cache
+     * and marks the key as dirty for the next click synchronization (same pipeline).
      * Important: This method does not update the database directly.
+     * In local counting mode the click is only added to the in-memory counter (no limit is applied,
+     * use {@link #tryRegisterClick(String, long)} for limited links) and 0 is returned.
      * @param shortKey
      * @return the number of clicks after incrementing
      */
     public long incrementAndGetClickCount(String shortKey) {
+        if (localCounting && addPendingClick(shortKey, 1, maxLocalClickKeys)) {
+            return 0L;
+        }
         try {
-            Long newClickCount = redisTemplate.opsForValue().increment(CLICKS_PREFIX + shortKey);
+            List<Object> results = circuitBreaker.execute(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection conn = (StringRedisConnection) connection;
+                if (hashLayout) {
+                    conn.hIncrBy(HASH_PREFIX + shortKey, CLICKS_FIELD, 1);
+                } else {
+                    conn.incr(CLICKS_PREFIX + shortKey);
+                }
+                conn.sAdd(dirtyKey(shortKey, dirtyShards), shortKey);
+                return null;
+            }));
+            Long newClickCount = (Long) results.get(0);
             logger.debug("Clicked count for shortKey {}  - {}", shortKey, newClickCount);
             return newClickCount != null ? newClickCount : 0L;
         }catch (Exception e){
-            logger.error("Error while increment count for shortKey {}", shortKey, e);
+            countLocallyIfSkipped(e, shortKey, 1);
+            logRedisError(e, "Error while increment count for shortKey {}", shortKey);
             return 0L;
         }
     }
 
     /**
-     * Gets the click count from cache
+     * Registers a click only if the click limit allows it, atomically and in one round trip
+     * (Lua script, sent with EVALSHA and loaded by EVAL only the first time).
+     * The limit is read from limit:{shortKey}; maxClicks is used (and restored) when that key is missing.
+     * Redis errors fail open, like the rest of this service.
+     * In local counting mode clicks of unlimited links go to the in-memory counters, no round trip.
+     * @param shortKey
+     * @param maxClicks limit known by the caller, 0 = unlimited
+     * @return true if the click was counted, false if the limit was already reached
+     */
+    public boolean tryRegisterClick(String shortKey, long maxClicks) {
+        if (localCounting && maxClicks <= 0 && addPendingClick(shortKey, 1, maxLocalClickKeys)) {
+            return true;
+        }
+        try {
+            String limit = Long.toString(Math.max(maxClicks, 0));
+            Long result = circuitBreaker.execute(() -> hashLayout
+                    ? stringRedisTemplate.execute(HASH_CHECK_AND_INCREMENT_SCRIPT,
+                        List.of(HASH_PREFIX + shortKey, dirtyKey(shortKey, dirtyShards)), shortKey, limit)
+                    : stringRedisTemplate.execute(CHECK_AND_INCREMENT_SCRIPT,
+                        List.of(CLICKS_PREFIX + shortKey, LIMIT_PREFIX + shortKey, dirtyKey(shortKey, dirtyShards)),
+                        shortKey, limit));
+            boolean allowed = result == null || result != CLICK_LIMIT_REACHED;
+            if (!allowed) {
+                logger.warn("Click limit reached for shortKey {} (limit {})", shortKey, maxClicks);
+            }
+            return allowed;
+        } catch (Exception e) {
+            // fail open: the limit is not enforced while Redis is unavailable
+            countLocallyIfSkipped(e, shortKey, 1);
+            logRedisError(e, "Error while registering click for shortKey {}", shortKey);
+            return true;
+        }
+    }
+
+    /**
+     * Redis tier of the redirect path in a single round trip (Lua script): reads the cached
+     * short URL and, if it is cached, applies the click limit and counts the click.
+     * The caller must {@link #revertClick(ClickLookup) revert} the click if the link turns out
+     * not to be accessible (expired, private). A hit is promoted to the near cache.
+     * In local counting mode the script only counts clicks of limited links, the others are
+     * added to the in-memory counters.
+     * @param shortKey
+     * @return the lookup result, {@link ClickLookup#MISS} if not cached or Redis fails
+     */
+    @SuppressWarnings("unchecked")
+    public ClickLookup fetchAndRegisterClick(String shortKey) {
+        List<Object> result;
+        RedisSerializer<List<Object>> rawResult = (RedisSerializer<List<Object>>) (RedisSerializer<?>) RedisSerializer.byteArray();
+        String countAll = localCounting ? "0" : "1";
+        try {
+            result = circuitBreaker.execute(() -> hashLayout
+                    ? redisTemplate.execute(HASH_LOOKUP_AND_COUNT_SCRIPT, RedisSerializer.string(), rawResult,
+                        List.of(HASH_PREFIX + shortKey, dirtyKey(shortKey, dirtyShards)),
+                        shortKey, Long.toString(Instant.now().getEpochSecond()), countAll)
+                    : redisTemplate.execute(LOOKUP_AND_COUNT_SCRIPT, RedisSerializer.string(), rawResult,
+                        List.of(SHORT_URL_PREFIX + shortKey, CLICKS_PREFIX + shortKey, LIMIT_PREFIX + shortKey,
+                                dirtyKey(shortKey, dirtyShards)),
+                        shortKey, countAll));
+        } catch (Exception e) {
+            // nothing counted: the caller falls back to the database, which registers the click
+            logRedisError(e, "Error fetching ShortUrl and registering click for shortKey {}", shortKey);
+            return ClickLookup.MISS;
+        }
+        if (result == null || result.isEmpty()) {
+            redisMisses.increment();
+            return ClickLookup.MISS;
+        }
+        redisHits.increment();
+        long clicks = (Long) result.get(1);
+        boolean limitFound = (Long) result.get(2) == 1L;
+        ShortUrlCacheDto cacheDto;
+        try {
+            cacheDto = toCacheDto(redisTemplate.getValueSerializer().deserialize((byte[]) result.get(0)));
+        } catch (Exception e) {
+            logger.error("Exception reading cached ShortUrl for shortKey {}", shortKey, e);
+            if (clicks >= 0) {
+                revertClick(shortKey);
+            }
+            return ClickLookup.MISS;
+        }
+        putLocal(shortKey, cacheDto);
+
+        long maxClicks = cacheDto.maxClicks() != null ? cacheDto.maxClicks() : 0;
+        if (clicks == CLICK_NOT_COUNTED) {
+            if (maxClicks <= 0 && addPendingClick(shortKey, 1, maxLocalClickKeys)) {
+                return new ClickLookup(cacheDto, true, true);
+            }
+            // limit:{shortKey} lost (restored by the script) or too many keys aggregated: count in Redis
+            return new ClickLookup(cacheDto, tryRegisterClick(shortKey, maxClicks), false);
+        }
+        if (!limitFound && maxClicks > 0) {
+            // limit:{shortKey} was lost (e.g. evicted): restore it and apply it to this click
+            setClickLimit(shortKey, maxClicks);
+            if (clicks > maxClicks) {
+                revertClick(shortKey);
+                return new ClickLookup(cacheDto, false, false);
+            }
+        }
+        return new ClickLookup(cacheDto, clicks != CLICK_LIMIT_REACHED, false);
+    }
+
+    /**
+     * Undoes a click counted by {@link #fetchAndRegisterClick(String)}, where it was counted.
+     * @param lookup a counted lookup
+     */
+    public void revertClick(ClickLookup lookup) {
+        String shortKey = lookup.shortUrl().shortKey();
+        if (!lookup.countedLocally() || !addPendingClick(shortKey, -1, maxLocalClickKeys)) {
+            revertClick(shortKey);
+        }
+    }
+
+    private void revertClick(String shortKey) {
+        try {
+            circuitBreaker.run(() -> {
+                if (hashLayout) {
+                    stringRedisTemplate.opsForHash().increment(HASH_PREFIX + shortKey, CLICKS_FIELD, -1);
+                } else {
+                    stringRedisTemplate.opsForValue().decrement(CLICKS_PREFIX + shortKey);
+                }
+            });
+        } catch (Exception e) {
+            // applied on recovery, whether the click was counted in Redis or in memory
+            countLocallyIfSkipped(e, shortKey, -1);
+            logRedisError(e, "Error reverting click for shortKey {}", shortKey);
+        }
+    }
+
+    /**
+     * Gets the click count from cache, plus the clicks of this instance not flushed yet
      * @param shortKey
      * @return
      */
     public long getClickCount(String shortKey){
+        LongAdder pending = pendingClicks.get(shortKey);
+        long local = pending != null ? pending.sum() : 0L;
         try{
-            Object value = redisTemplate.opsForValue().get(CLICKS_PREFIX + shortKey);
+            String value = circuitBreaker.execute(() -> hashLayout
+                    ? stringRedisTemplate.<String, String>opsForHash().get(HASH_PREFIX + shortKey, CLICKS_FIELD)
+                    : stringRedisTemplate.opsForValue().get(CLICKS_PREFIX + shortKey));
             if(Objects.nonNull(value)){
-                return Long.parseLong(value.toString());
+                return Long.parseLong(value) + local;
             }
         }catch (Exception e){
-            logger.error("Error while getting click count for shortKey {}", shortKey, e);
-            return 0L;
+            logRedisError(e, "Error while getting click count for shortKey {}", shortKey);
+            return local;
         }
-        return 0L;
+        return local;
     }
 
     /**
@@ -73,15 +385,52 @@ public class UrlCacheService {
      */
     public void setClickLimit(String shortKey, Long maxClicks){
         try{
-            if(maxClicks != null && maxClicks > 0){
-                redisTemplate.opsForValue().set(LIMIT_PREFIX + shortKey, maxClicks.toString());
-                logger.debug("Set click limit for shortKey {}  - {}", shortKey, maxClicks);
-            } else {
-                redisTemplate.delete(LIMIT_PREFIX + shortKey);
-                logger.debug("Removed click limit for shortKey {}", shortKey);
-            }
+            circuitBreaker.run(() -> {
+                if(maxClicks != null && maxClicks > 0){
+                    if (hashLayout) {
+                        stringRedisTemplate.opsForHash().put(HASH_PREFIX + shortKey, LIMIT_FIELD, maxClicks.toString());
+                    } else {
+                        stringRedisTemplate.opsForValue().set(LIMIT_PREFIX + shortKey, maxClicks.toString());
+                    }
+                    logger.debug("Set click limit for shortKey {}  - {}", shortKey, maxClicks);
+                } else {
+                    if (hashLayout) {
+                        stringRedisTemplate.opsForHash().delete(HASH_PREFIX + shortKey, LIMIT_FIELD);
+                    } else {
+                        stringRedisTemplate.delete(LIMIT_PREFIX + shortKey);
+                    }
+                    logger.debug("Removed click limit for shortKey {}", shortKey);
+                }
+            });
+        }catch (Exception e){
+            // a missing limit is restored from maxClicks by the click scripts
+            logRedisError(e, "Error while setting click limit for shortKey {}", shortKey);
+        }
+    }
+
+    /**
+     * Sets the click limits of several short URLs in one pipelined round trip (bulk creation)
+     * @param limits maxClicks by shortKey, only positive limits are written
+     */
+    public void setClickLimits(Map<String, Long> limits){
+        if (limits.isEmpty()) {
+            return;
+        }
+        try{
+            circuitBreaker.execute(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                limits.forEach((shortKey, maxClicks) -> {
+                    if (hashLayout) {
+                        stringConnection.hSet(HASH_PREFIX + shortKey, LIMIT_FIELD, maxClicks.toString());
+                    } else {
+                        stringConnection.set(LIMIT_PREFIX + shortKey, maxClicks.toString());
+                    }
+                });
+                return null;
+            }));
+            logger.debug("Set click limit for {} shortKeys", limits.size());
         }catch (Exception e){
-            logger.error("Error while setting click limit for shortKey {}", shortKey, e);
+            logRedisError(e, "Error while setting click limits for {} shortKeys", limits.size());
         }
     }
 
@@ -90,10 +439,13 @@ public class UrlCacheService {
      */
     public long getClickLimit(String shortKey) {
         try {
-            Object limitStr = redisTemplate.opsForValue().get(LIMIT_PREFIX + shortKey);
-            return (limitStr != null) ? Long.parseLong(limitStr.toString()) : 0L;
+            String limitStr = circuitBreaker.execute(() -> hashLayout
+                    ? stringRedisTemplate.<String, String>opsForHash().get(HASH_PREFIX + shortKey, LIMIT_FIELD)
+                    : stringRedisTemplate.opsForValue().get(LIMIT_PREFIX + shortKey));
+            // older entries were written JSON-encoded ("5")
+            return (limitStr != null) ? Long.parseLong(limitStr.replace("\"", "")) : 0L;
         } catch (Exception e) {
-            logger.error("Error obteniendo límite para {}", shortKey, e);
+            logRedisError(e, "Error obteniendo límite para {}", shortKey);
             return 0L;
         }
     }
@@ -120,45 +472,6 @@ public class UrlCacheService {
 
 
 
-    /**
-     * Scheduled task to synchronize click counts from Redis to the database every 5 minutes.
-     */
-    @Scheduled(fixedRate = 5, timeUnit = TimeUnit.MINUTES)
-    public void synchronizeClicksToDatabase() {
-        try {
-            logger.info("Iniciando sincronización de clics a BD...");
-
-            Set<String> keys = redisTemplate.keys(CLICKS_PREFIX + "*");
-            if (keys == null || keys.isEmpty()) {
-                logger.info("No hay clics para sincronizar.");
-                return;
-            }
-
-            int syncCount = 0;
-            for (String key : keys) {
-                String shortKey = key.substring(CLICKS_PREFIX.length());
-                Object clicksStr = redisTemplate.opsForValue().get(key);
-
-                if (clicksStr != null) {
-                    long clicksInRedis =  Long.parseLong(clicksStr.toString());
-
-                    shortUrlRepository.findByShortKey(shortKey).ifPresent(shortUrl -> {
-                        if (clicksInRedis > shortUrl.getClickCount()) {
-                            shortUrl.setClickCount(clicksInRedis);
-                            shortUrlRepository.save(shortUrl);
-                            logger.info("Sincronizado: {} -> {} clics", shortKey, clicksInRedis);
-                        }
-                    });
-                    syncCount++;
-                }
-            }
-
-            logger.info("Sincronización completada. {} URLs procesadas.", syncCount);
-        } catch (Exception e) {
-            logger.error("Error durante sincronización de clics", e);
-        }
-    }
-
     /**
      * Increments the click count for a given short URL.
      * @param shortKey
@@ -172,37 +485,396 @@ public class UrlCacheService {
       }
 
     /**
-     * Get ShortUrl DTO from cache
+     * Get ShortUrl DTO from process memory only (no I/O): pinned hot keys, then the near cache.
+     * @param shortKey
+     * @return ShortUrlCacheDto if pinned or present in the near cache, null otherwise
+     */
+    public ShortUrlCacheDto getLocalShortUrl(String shortKey) {
+        ShortUrlCacheDto hot = pinned.get(shortKey);
+        if (hot != null) {
+            pinnedHits.increment();
+            return hot;
+        }
+        return nearCache != null ? nearCache.getIfPresent(shortKey) : null;
+    }
+
+    /**
+     * Replaces the pinned entries (keys no longer hot are unpinned).
+     * @param hotEntries cache entries of the current hottest keys
+     */
+    public void pinShortUrls(Map<String, ShortUrlCacheDto> hotEntries) {
+        pinned.keySet().retainAll(hotEntries.keySet());
+        pinned.putAll(hotEntries);
+    }
+
+    public boolean isPinned(String shortKey) {
+        return pinned.containsKey(shortKey);
+    }
+
+    /**
+     * Reads the Redis entries of several short keys in one round trip, MGET or pipelined HMGETs
+     * (the near cache is not consulted).
+     * @return entries found, by shortKey (empty on error)
+     */
+    public Map<String, ShortUrlCacheDto> getShortUrlsFromRedis(List<String> shortKeys) {
+        Map<String, ShortUrlCacheDto> entries = new HashMap<>();
+        if (shortKeys.isEmpty()) {
+            return entries;
+        }
+        try {
+            List<Object> values = circuitBreaker.execute(() -> hashLayout
+                    ? readHashMetadata(shortKeys)
+                    : redisTemplate.opsForValue()
+                        .multiGet(shortKeys.stream().map(shortKey -> SHORT_URL_PREFIX + shortKey).toList()));
+            for (int i = 0; values != null && i < values.size(); i++) {
+                if (values.get(i) != null) {
+                    entries.put(shortKeys.get(i), toCacheDto(values.get(i)));
+                }
+            }
+        } catch (Exception e) {
+            logRedisError(e, "Error reading {} ShortUrl cache entries", shortKeys.size());
+        }
+        return entries;
+    }
+
+    /**
+     * Get ShortUrl DTO from cache: near cache first, then Redis.
+     * A Redis hit is promoted to the near cache.
      * @param shortKey
      * @return ShortUrlCacheDto if found in cache, null otherwise
      */
     public ShortUrlCacheDto getShortUrlFromCache(String shortKey){
+        if (nearCache != null) {
+            ShortUrlCacheDto local = nearCache.getIfPresent(shortKey);
+            if (local != null) {
+                return local;
+            }
+        }
         try{
-            Object object = this.redisTemplate.opsForValue().get(SHORT_URL_PREFIX + shortKey);
+            Object object = circuitBreaker.execute(() -> hashLayout
+                    ? readHashMetadata(List.of(shortKey)).get(0)
+                    : this.redisTemplate.opsForValue().get(SHORT_URL_PREFIX + shortKey));
             if(Objects.nonNull(object)){
+                redisHits.increment();
                 logger.debug("Object found in cache, type: {}", object.getClass().getSimpleName());
-                ObjectMapper objectMapper = new ObjectMapper();
-                return objectMapper.convertValue(object, ShortUrlCacheDto.class);
+                ShortUrlCacheDto cacheDto = toCacheDto(object);
+                putLocal(shortKey, cacheDto);
+                return cacheDto;
             } else {
-                logger.info("Cache MISS for shortKey: {} (object is null)", shortKey);
+                redisMisses.increment();
+                logger.debug("Cache MISS for shortKey: {} (object is null)", shortKey);
                 return null;
             }
         }catch (Exception e){
-            logger.error("Exception getting ShortUrl from cache for shortKey {}", shortKey, e);
+            logRedisError(e, "Exception getting ShortUrl from cache for shortKey {}", shortKey);
             return null;
         }
     }
 
     /**
-     * Invalidate the cache for a short URL
+     * Invalidate the cache for a short URL in every tier and notify the other
+     * instances so they drop their near cache entry too.
+     * Remembered and replayed on recovery when Redis cannot be reached.
      * @param shortKey
      */
     public void invalidateShortUrlCache(String shortKey){
+        evictLocal(shortKey);
         try{
-            logger.info("Invalidating ShortUrl cache for shortKey {}", shortKey);
-            redisTemplate.delete(SHORT_URL_PREFIX + shortKey);
+            logger.debug("Invalidating ShortUrl cache for shortKey {}", shortKey);
+            circuitBreaker.run(() -> invalidateInRedis(List.of(shortKey)));
         }catch (Exception e){
-            logger.error("Error invalidating ShortUrl cache for shortKey {}", shortKey, e);
+            pendingInvalidations.add(shortKey);
+            logRedisError(e, "Error invalidating ShortUrl cache for shortKey {}", shortKey);
+        }
+    }
+
+    // one pipeline: drop the cached metadata, then tell every instance to drop its near cache entry
+    private void invalidateInRedis(List<String> shortKeys) {
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection stringConnection = (StringRedisConnection) connection;
+            for (String shortKey : shortKeys) {
+                if (hashLayout) {
+                    // the click counter and limit stay, like the clicks:/limit: keys of the other layout
+                    stringConnection.hDel(HASH_PREFIX + shortKey, META_FIELD, META_EXPIRY_FIELD);
+                } else {
+                    stringConnection.del(SHORT_URL_PREFIX + shortKey);
+                }
+                stringConnection.publish(nearCacheProperties.invalidationChannel(), shortKey);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Evicts a short key from process memory only: near cache and pinned entries (used by the pub/sub listener).
+     * @param shortKey
+     */
+    public void evictLocal(String shortKey) {
+        pinned.remove(shortKey);
+        if (nearCache != null) {
+            nearCache.invalidate(shortKey);
+        }
+    }
+
+    /**
+     * Removes every Redis key of short URLs that no longer exist (cached metadata, click counter,
+     * click limit and dirty mark) with pipelined UNLINKs: Redis frees the values in the background.
+     * The keys of both layouts are removed, so nothing is left behind by a half done migration.
+     * @param shortKeys keys of deleted short URLs
+     * @return false if Redis failed (the keys are left behind)
+     */
+    public boolean removeShortKeys(List<String> shortKeys) {
+        if (shortKeys.isEmpty()) {
+            return true;
+        }
+        shortKeys.forEach(this::evictLocal);
+        // clicks not flushed yet would recreate the counters
+        shortKeys.forEach(pendingClicks::remove);
+        try {
+            circuitBreaker.execute(() -> stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                for (int from = 0; from < shortKeys.size(); from += UNLINK_BATCH_SIZE) {
+                    List<String> batch = shortKeys.subList(from, Math.min(from + UNLINK_BATCH_SIZE, shortKeys.size()));
+                    String[] keys = new String[batch.size() * 4];
+                    int i = 0;
+                    for (String shortKey : batch) {
+                        keys[i++] = SHORT_URL_PREFIX + shortKey;
+                        keys[i++] = CLICKS_PREFIX + shortKey;
+                        keys[i++] = LIMIT_PREFIX + shortKey;
+                        keys[i++] = HASH_PREFIX + shortKey;
+                    }
+                    stringConnection.unlink(keys);
+                    batch.forEach(shortKey -> stringConnection.sRem(dirtyKey(shortKey, dirtyShards), shortKey));
+                }
+                return null;
+            }));
+            return true;
+        } catch (Exception e) {
+            // at least the cached metadata must go, or the deleted short URLs would still redirect
+            pendingInvalidations.addAll(shortKeys);
+            logRedisError(e, "Error removing Redis keys of {} shortKeys", shortKeys.size());
+            return false;
+        }
+    }
+
+    /**
+     * Click counters of several short URLs in one round trip (MGET or pipelined HGETs).
+     * @return counters in the order of shortKeys, null where Redis has none (or on error)
+     */
+    public List<Long> getClickCounts(List<String> shortKeys) {
+        try {
+            return readClickCounts(shortKeys);
+        } catch (Exception e) {
+            logRedisError(e, "Error reading click counters of {} shortKeys", shortKeys.size());
+            return new ArrayList<>(Collections.nCopies(shortKeys.size(), null));
+        }
+    }
+
+    /**
+     * Like {@link #getClickCounts(List)}, but Redis errors are thrown (click synchronization must
+     * not mistake them for missing counters).
+     */
+    List<Long> readClickCounts(List<String> shortKeys) {
+        List<Long> counts = new ArrayList<>(Collections.nCopies(shortKeys.size(), null));
+        if (shortKeys.isEmpty()) {
+            return counts;
+        }
+        List<?> values = circuitBreaker.execute(() -> hashLayout
+                ? stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                    shortKeys.forEach(shortKey -> stringConnection.hGet(HASH_PREFIX + shortKey, CLICKS_FIELD));
+                    return null;
+                })
+                : stringRedisTemplate.opsForValue()
+                    .multiGet(shortKeys.stream().map(shortKey -> CLICKS_PREFIX + shortKey).toList()));
+        for (int i = 0; values != null && i < values.size(); i++) {
+            counts.set(i, values.get(i) != null ? Long.parseLong((String) values.get(i)) : null);
+        }
+        return counts;
+    }
+
+    /**
+     * @return true while Redis is considered unavailable (reads miss, clicks are counted in memory)
+     */
+    public boolean isDegraded() {
+        return circuitBreaker.isOpen();
+    }
+
+    // only calls the breaker skipped: a failed call may have reached Redis (timeout), counting it
+    // again would double count
+    private void countLocallyIfSkipped(Exception e, String shortKey, long delta) {
+        if (e instanceof RedisCircuitBreaker.CircuitOpenException
+                && !addPendingClick(shortKey, delta, maxPendingClickKeys)) {
+            droppedClicks.add(Math.max(delta, 0));
+        }
+    }
+
+    // get() first: lock-free for keys already counted, computeIfAbsent() locks a bin
+    private boolean addPendingClick(String shortKey, long delta, int maxKeys) {
+        LongAdder clicks = pendingClicks.get(shortKey);
+        if (clicks == null) {
+            if (pendingClicks.size() >= maxKeys) {
+                return false;
+            }
+            clicks = pendingClicks.computeIfAbsent(shortKey, k -> new LongAdder());
+        }
+        clicks.add(delta);
+        return true;
+    }
+
+    // while the circuit is open every call fails fast the same way: not worth a log line each
+    private void logRedisError(Exception e, String message, Object arg) {
+        if (!(e instanceof RedisCircuitBreaker.CircuitOpenException)) {
+            logger.error(message, arg, e);
+        }
+    }
+
+    /**
+     * Local counting mode: pushes the clicks added up since the last flush to Redis. Skipped while
+     * the circuit is open, the recovery writes them back.
+     */
+    @Scheduled(fixedDelayString = "${app.click-counting.flush-interval:250ms}")
+    public void flushPendingClicks() {
+        if (circuitBreaker.isOpen() || (pendingClicks.isEmpty() && !hasRetiredClicks())) {
+            return;
+        }
+        try {
+            long clicks = circuitBreaker.execute(this::writePendingClicks);
+            logger.debug("Flushed {} local clicks to Redis", clicks);
+        } catch (Exception e) {
+            logRedisError(e, "Error flushing {} local click counters to Redis", pendingClicks.size());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushPendingClicks();
+    }
+
+    /**
+     * Recovery task of the circuit breaker (Redis reachable, calls made directly): replays the
+     * invalidations, then writes the clicks counted in memory. Throws if Redis fails again,
+     * which keeps the circuit open; what was not written stays pending.
+     */
+    private void writeBackPending() {
+        if (!pendingInvalidations.isEmpty()) {
+            List<String> shortKeys = List.copyOf(pendingInvalidations);
+            invalidateInRedis(shortKeys);
+            shortKeys.forEach(pendingInvalidations::remove);
+            logger.info("Replayed {} cache invalidations after Redis recovery", shortKeys.size());
+        }
+        long clicks = writePendingClicks();
+        if (clicks != 0) {
+            logger.info("Wrote back {} clicks after Redis recovery", clicks);
+        }
+    }
+
+    private synchronized boolean hasRetiredClicks() {
+        return !retiredClicks.isEmpty();
+    }
+
+    /**
+     * Adds the clicks counted in memory to the Redis counters with pipelined INCRBYs and marks them
+     * dirty so the click synchronization writes them to the database. Counters idle since the last
+     * call are removed; a thread that looked one up just before still adds to it, so it is drained
+     * once more by the next call. Throws on Redis errors, the clicks stay pending.
+     * @return clicks written
+     */
+    private synchronized long writePendingClicks() {
+        Map<String, Long> clicks = new HashMap<>();
+        retiredClicks.forEach(retired -> {
+            long count = retired.getValue().sumThenReset();
+            if (count != 0) {
+                clicks.merge(retired.getKey(), count, Long::sum);
+            }
+        });
+        retiredClicks.clear();
+        pendingClicks.forEach((shortKey, adder) -> {
+            long count = adder.sumThenReset();
+            if (count != 0) {
+                clicks.merge(shortKey, count, Long::sum);
+            } else if (pendingClicks.remove(shortKey, adder)) {
+                retiredClicks.add(Map.entry(shortKey, adder));
+            }
+        });
+        if (!clicks.isEmpty()) {
+            try {
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    StringRedisConnection stringConnection = (StringRedisConnection) connection;
+                    clicks.forEach((shortKey, count) -> {
+                        if (hashLayout) {
+                            stringConnection.hIncrBy(HASH_PREFIX + shortKey, CLICKS_FIELD, count);
+                        } else {
+                            stringConnection.incrBy(CLICKS_PREFIX + shortKey, count);
+                        }
+                        stringConnection.sAdd(dirtyKey(shortKey, dirtyShards), shortKey);
+                    });
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                clicks.forEach((shortKey, count) -> pendingClicks.computeIfAbsent(shortKey, k -> new LongAdder()).add(count));
+                throw e;
+            }
+        }
+        long total = clicks.values().stream().mapToLong(Long::longValue).sum();
+        flushedClicks.add(total);
+        return total;
+    }
+
+    /**
+     * Pipelined HMGET of the metadata of several hash layout entries.
+     * @return deserialized values in the order of shortKeys, null where missing or expired
+     */
+    @SuppressWarnings("unchecked")
+    private List<Object> readHashMetadata(List<String> shortKeys) {
+        List<Object> replies = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String shortKey : shortKeys) {
+                connection.hashCommands().hMGet(hashKey(shortKey), META_FIELD_BYTES, META_EXPIRY_FIELD_BYTES);
+            }
+            return null;
+        }, RedisSerializer.byteArray());
+        long now = Instant.now().getEpochSecond();
+        List<Object> values = new ArrayList<>(shortKeys.size());
+        for (Object reply : replies) {
+            List<byte[]> fields = (List<byte[]>) reply;
+            byte[] metadata = fields.get(0);
+            byte[] expiry = fields.get(1);
+            boolean fresh = metadata != null && expiry != null
+                    && Long.parseLong(new String(expiry, StandardCharsets.UTF_8)) > now;
+            values.add(fresh ? redisTemplate.getValueSerializer().deserialize(metadata) : null);
+        }
+        return values;
+    }
+
+    /**
+     * Dirty set of a short key: {@value #CLICKS_DIRTY_KEY} with a single shard, otherwise
+     * clicksync:dirty:{n} with n = hashCode mod shards (String.hashCode is the same on every JVM).
+     */
+    static String dirtyKey(String shortKey, int shards) {
+        return dirtyShardKey(Math.floorMod(shortKey.hashCode(), shards), shards);
+    }
+
+    static String dirtyShardKey(int shard, int shards) {
+        return shards == 1 ? CLICKS_DIRTY_KEY : CLICKS_DIRTY_KEY + ":" + shard;
+    }
+
+    private static byte[] hashKey(String shortKey) {
+        return (HASH_PREFIX + shortKey).getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Binary entries are decoded straight into the DTO. JSON entries come back as a Map (no default
+    // typing on the Redis ObjectMapper): convert them with the shared ObjectMapper, which knows
+    // java.time types (a plain new ObjectMapper() fails on expiresAt)
+    private ShortUrlCacheDto toCacheDto(Object object) {
+        if (object instanceof ShortUrlCacheDto cacheDto) {
+            return cacheDto;
+        }
+        return objectMapper.convertValue(object, ShortUrlCacheDto.class);
+    }
+
+    private void putLocal(String shortKey, ShortUrlCacheDto cacheDto) {
+        if (nearCache != null && cacheDto != null) {
+            nearCache.put(shortKey, cacheDto);
         }
     }
 
@@ -211,18 +883,34 @@ public class UrlCacheService {
      * @param shortKey
      * @param cacheDto ShortUrlCacheDto (not the full ShortUrlDto)
      */
+    @SuppressWarnings("unchecked")
     public void cacheShortUrl(String shortKey, ShortUrlCacheDto cacheDto) {
         try{
-            logger.info("Attempting to cache ShortUrlCacheDto for shortKey: {}", shortKey);
+            logger.debug("Attempting to cache ShortUrlCacheDto for shortKey: {}", shortKey);
             if(cacheDto == null) {
                 logger.warn("cacheDto is null, will not cache");
                 return;
             }
-            redisTemplate.opsForValue().set(SHORT_URL_PREFIX + shortKey, cacheDto, 1, TimeUnit.HOURS);
-            logger.info("Successfully cached ShortUrlCacheDto for shortKey: {} (TTL: 1 hour)", shortKey);
+            // first: in degraded mode the near cache still spares the database the next redirects
+            putLocal(shortKey, cacheDto);
+            circuitBreaker.run(() -> {
+                if (hashLayout) {
+                    // no TTL on the hash (it holds the counter): the metadata expires through its x field
+                    byte[] metadata = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(cacheDto);
+                    byte[] expiry = Long.toString(Instant.now().plus(SHORT_URL_TTL).getEpochSecond())
+                            .getBytes(StandardCharsets.UTF_8);
+                    redisTemplate.execute((RedisCallback<Object>) connection -> {
+                        connection.hashCommands().hMSet(hashKey(shortKey),
+                                Map.of(META_FIELD_BYTES, metadata, META_EXPIRY_FIELD_BYTES, expiry));
+                        return null;
+                    });
+                } else {
+                    redisTemplate.opsForValue().set(SHORT_URL_PREFIX + shortKey, cacheDto, SHORT_URL_TTL);
+                }
+            });
+            logger.debug("Successfully cached ShortUrlCacheDto for shortKey: {} (TTL: 1 hour)", shortKey);
         }catch (Exception e){
-            logger.error("Exception caching ShortUrlCacheDto for shortKey: {}", shortKey, e);
-            logger.error("Exception details: ", e);
+            logRedisError(e, "Exception caching ShortUrlCacheDto for shortKey: {}", shortKey);
         }
     }
 }
\ No newline at end of file
@@ -1,34 +1,123 @@
 package com.manuonda.urlshortener.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.manuonda.urlshortener.config.UrlValidationProperties;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 /**
  * Service responsible for validating the existence of URLs.
+ *
+ * Checks run on virtual threads through one shared {@link HttpClient} (pooled, reused connections),
+ * at most {@code maxConcurrency} at a time. Hosts that answered successfully are remembered for
+ * {@code hostCacheTtl}, so links to the same site are not checked again on every creation.
+ * Concurrent checks of one host (e.g. a bulk import of links to the same site) are coalesced:
+ * one request goes out, the others wait for it and only send their own if it failed.
  */
+@Component
 public class UrlExistenceValidator {
 
     private static final Logger log = LoggerFactory.getLogger(UrlExistenceValidator.class);
 
-    public static boolean isUrlExists(String urlString){
-        try{
+    private final UrlValidationProperties properties;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final Semaphore permits;
+    private final Cache<String, Boolean> reachableHosts;
+    // check in flight per host, completed with its result
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> hostChecks = new ConcurrentHashMap<>();
 
-            log.debug("Checking if url exists: " + urlString);
-            URL url = new URL(urlString);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("HEAD");
-            connection.setConnectTimeout(5000); // 5 seconds timeout
-            connection.setReadTimeout(5000);
+    public UrlExistenceValidator(UrlValidationProperties properties) {
+        this.properties = properties;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.connectTimeout())
+                .executor(executor)
+                .build();
+        this.permits = new Semaphore(properties.maxConcurrency());
+        this.reachableHosts = Caffeine.newBuilder()
+                .maximumSize(properties.hostCacheMaximumSize())
+                .expireAfterWrite(properties.hostCacheTtl())
+                .build();
+    }
 
-            int responseCode = connection.getResponseCode();
-            return ( responseCode >= 200 && responseCode < 400 ); // Consider 2xx and 3xx response codes as valid
+    /**
+     * Checks the URL on a virtual thread.
+     * @return future completed with the result, never completed exceptionally
+     */
+    public CompletableFuture<Boolean> isUrlExistsAsync(String urlString) {
+        return CompletableFuture.supplyAsync(() -> isUrlExists(urlString), executor);
+    }
 
+    public boolean isUrlExists(String urlString) {
+        try {
+            log.debug("Checking if url exists: {}", urlString);
+            URI uri = URI.create(urlString);
+            // scheme + host + port: a reachable site does not vouch for another port on the same host
+            String host = uri.getHost() != null ? uri.getScheme() + "://" + uri.getAuthority() : null;
+            if (host == null) {
+                return check(uri);
+            }
+            if (reachableHosts.getIfPresent(host) != null) {
+                return true;
+            }
+            CompletableFuture<Boolean> hostCheck = new CompletableFuture<>();
+            CompletableFuture<Boolean> inFlight = hostChecks.putIfAbsent(host, hostCheck);
+            if (inFlight != null) {
+                // a reachable host vouches for this URL too, otherwise it is checked on its own
+                return inFlight.join() || check(uri);
+            }
+            boolean exists = false;
+            try {
+                exists = check(uri);
+                if (exists) {
+                    reachableHosts.put(host, Boolean.TRUE);
+                }
+                return exists;
+            } finally {
+                hostChecks.remove(host, hostCheck);
+                hostCheck.complete(exists);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         } catch (Exception e) {
-            log.error("Error while checking URL existence {}{} ",e);
+            log.error("Error while checking URL existence {}", urlString, e);
             return false;
         }
     }
+
+    // HEAD request, 2xx and 3xx response codes are valid
+    private boolean check(URI uri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(properties.requestTimeout())
+                .build();
+        int responseCode;
+        permits.acquire();
+        try {
+            responseCode = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } finally {
+            permits.release();
+        }
+        return responseCode >= 200 && responseCode < 400;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
 }
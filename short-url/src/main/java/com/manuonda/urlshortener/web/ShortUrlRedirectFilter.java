@@ -0,0 +1,84 @@
+package com.manuonda.urlshortener.web;
+
+import com.manuonda.urlshortener.config.RedirectProperties;
+import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import com.manuonda.urlshortener.service.ClickAnalyticsService;
+import com.manuonda.urlshortener.service.ShortUrlService;
+import com.manuonda.urlshortener.web.controller.SecurityUtils;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Fast path of {@code GET /s/{shortKey}}: answers the redirect from the filter chain (after Spring
+ * Security, so private short URLs still see the current user) instead of going through the
+ * DispatcherServlet, handler mapping and view resolution of HomeController.
+ *
+ * Writes the configured 3xx status, Location and Cache-Control directly. Unknown or inaccessible
+ * keys get a 404 through {@code sendError} (the usual error page) without throwing.
+ */
+public class ShortUrlRedirectFilter extends OncePerRequestFilter {
+
+    static final String PATH_PREFIX = "/s/";
+    // longer keys are never generated (short_key is VARCHAR(10))
+    private static final int MAX_SHORT_KEY_LENGTH = 10;
+
+    private final ShortUrlService shortUrlService;
+    private final ClickAnalyticsService clickAnalyticsService;
+    private final SecurityUtils securityUtils;
+    private final RedirectProperties properties;
+
+    public ShortUrlRedirectFilter(ShortUrlService shortUrlService,
+                                  ClickAnalyticsService clickAnalyticsService,
+                                  SecurityUtils securityUtils,
+                                  RedirectProperties properties) {
+        this.shortUrlService = shortUrlService;
+        this.clickAnalyticsService = clickAnalyticsService;
+        this.securityUtils = securityUtils;
+        this.properties = properties;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return !("GET".equals(method) || "HEAD".equals(method))
+                || !request.getRequestURI().startsWith(PATH_PREFIX, request.getContextPath().length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String shortKey = request.getRequestURI().substring(request.getContextPath().length() + PATH_PREFIX.length());
+        Optional<ShortUrlDto> shortUrl = isValidShortKey(shortKey)
+                ? shortUrlService.accessShortUrl(shortKey, securityUtils.getCurrentUserId())
+                : Optional.empty();
+        if (shortUrl.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        clickAnalyticsService.recordClick(shortKey, request);
+        response.setStatus(properties.status());
+        response.setHeader(HttpHeaders.LOCATION, shortUrl.get().originalUrl());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, properties.cacheControl());
+    }
+
+    private static boolean isValidShortKey(String shortKey) {
+        if (shortKey.isEmpty() || shortKey.length() > MAX_SHORT_KEY_LENGTH) {
+            return false;
+        }
+        // generated keys are alphanumeric ASCII
+        for (int i = 0; i < shortKey.length(); i++) {
+            char c = shortKey.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,35 +2,54 @@ package com.manuonda.urlshortener.web.controller;
 
 
 import com.manuonda.urlshortener.ApplicationProperties;
+import com.manuonda.urlshortener.domain.models.HotShortKey;
+import com.manuonda.urlshortener.domain.models.KeysetCursor;
 import com.manuonda.urlshortener.domain.models.PagedResult;
 import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import com.manuonda.urlshortener.service.HotKeyTracker;
 import com.manuonda.urlshortener.service.ShortUrlService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @Controller
 @RequestMapping("/admin")
 public class AdminController {
     private final ShortUrlService shortUrlService;
     private final ApplicationProperties properties;
+    private final HotKeyTracker hotKeyTracker;
 
-    public AdminController(ShortUrlService shortUrlService, ApplicationProperties properties) {
+    public AdminController(ShortUrlService shortUrlService, ApplicationProperties properties, HotKeyTracker hotKeyTracker) {
         this.shortUrlService = shortUrlService;
         this.properties = properties;
+        this.hotKeyTracker = hotKeyTracker;
     }
 
     @GetMapping("/dashboard")
     public String dashboard(
             @RequestParam(defaultValue = "1") int page,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
             Model model) {
-        PagedResult<ShortUrlDto> allUrls = shortUrlService.findAllShortUrls(page, properties.pageSize());
+        PagedResult<ShortUrlDto> allUrls = properties.paginationMode() == ApplicationProperties.PaginationMode.CURSOR
+                ? shortUrlService.findAllShortUrls(KeysetCursor.parse(after, before), properties.pageSize())
+                : shortUrlService.findAllShortUrls(page, properties.pageSize());
         model.addAttribute("shortUrls", allUrls);
         model.addAttribute("baseUrl", properties.baseUrl());
         model.addAttribute("paginationUrl", "/admin/dashboard");
         return "admin-dashboard";
     }
-}
\ No newline at end of file
+
+    // current heavy hitters, hottest first, and whether their entry is pinned in memory
+    @GetMapping("/hot-keys")
+    @ResponseBody
+    public List<HotShortKey> hotKeys() {
+        return hotKeyTracker.getHotKeys();
+    }
+}
@@ -0,0 +1,161 @@
+package com.manuonda.urlshortener.web.controller;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manuonda.urlshortener.domain.models.CreateShortUrlCmd;
+import com.manuonda.urlshortener.web.dto.CreateShortUrlForm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Streaming readers of bulk creation rows: one row is parsed at a time, the request body is never
+ * fully loaded. Malformed input throws {@link IllegalArgumentException} naming the offending row.
+ */
+final class BulkShortUrlReader {
+
+    private BulkShortUrlReader() {
+    }
+
+    /**
+     * JSON array of {@link CreateShortUrlForm} objects, or one object per line (NDJSON).
+     */
+    static Iterator<CreateShortUrlCmd> json(InputStream body, ObjectMapper objectMapper, Long userId) throws IOException {
+        MappingIterator<CreateShortUrlForm> forms = objectMapper.readerFor(CreateShortUrlForm.class).readValues(body);
+        return new Iterator<>() {
+            private long row;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    return forms.hasNextValue();
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Malformed JSON after row " + row + ": " + e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public CreateShortUrlCmd next() {
+                try {
+                    CreateShortUrlForm form = forms.nextValue();
+                    row++;
+                    return toCmd(form, userId);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Malformed JSON at row " + (row + 1) + ": " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    /**
+     * CSV with columns originalUrl[,isPrivate[,expirationInDays[,maxClicks]]] and an optional
+     * header line. Fields may be double-quoted (e.g. URLs containing commas).
+     */
+    static Iterator<CreateShortUrlCmd> csv(InputStream body, Long userId) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return new Iterator<>() {
+            private long row;
+            private boolean first = true;
+            private String nextLine;
+
+            @Override
+            public boolean hasNext() {
+                try {
+                    while (nextLine == null) {
+                        String line = reader.readLine();
+                        if (line == null) {
+                            return false;
+                        }
+                        boolean header = first && line.regionMatches(true, 0, "originalUrl", 0, 11);
+                        first = false;
+                        if (!line.isBlank() && !header) {
+                            nextLine = line;
+                        }
+                    }
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            @Override
+            public CreateShortUrlCmd next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                String line = nextLine;
+                nextLine = null;
+                row++;
+                List<String> fields = splitCsvLine(line);
+                if (fields.size() > 4) {
+                    throw new IllegalArgumentException("Row " + row + ": expected at most 4 columns, got " + fields.size());
+                }
+                try {
+                    return toCmd(new CreateShortUrlForm(
+                            field(fields, 0),
+                            field(fields, 1) != null ? Boolean.valueOf(field(fields, 1)) : null,
+                            field(fields, 2) != null ? Integer.valueOf(field(fields, 2)) : null,
+                            field(fields, 3) != null ? Integer.valueOf(field(fields, 3)) : null
+                    ), userId);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Row " + row + ": " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+
+    private static CreateShortUrlCmd toCmd(CreateShortUrlForm form, Long userId) {
+        return new CreateShortUrlCmd(
+                form.originalUrl(),
+                form.isPrivate(),
+                form.expirationInDays(),
+                userId,
+                form.maxClicks() != null ? form.maxClicks() : 0
+        );
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180 within one line: quoted fields, "" as an escaped quote
+    static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
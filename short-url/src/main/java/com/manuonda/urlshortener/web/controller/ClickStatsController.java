@@ -0,0 +1,31 @@
+package com.manuonda.urlshortener.web.controller;
+
+import com.manuonda.urlshortener.domain.models.ClickStats;
+import com.manuonda.urlshortener.domain.models.Role;
+import com.manuonda.urlshortener.service.ClickAnalyticsService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Click analytics of a short URL (rollups written by {@link ClickAnalyticsService}).
+ * Private short URLs only for their owner and admins, 404 otherwise.
+ */
+@RestController
+public class ClickStatsController {
+
+    private final ClickAnalyticsService clickAnalyticsService;
+    private final SecurityUtils securityUtils;
+
+    public ClickStatsController(ClickAnalyticsService clickAnalyticsService, SecurityUtils securityUtils) {
+        this.clickAnalyticsService = clickAnalyticsService;
+        this.securityUtils = securityUtils;
+    }
+
+    @GetMapping("/api/short-urls/{shortKey}/stats")
+    public ResponseEntity<ClickStats> getClickStats(@PathVariable String shortKey) {
+        return ResponseEntity.of(clickAnalyticsService.getClickStats(shortKey,
+                securityUtils.getCurrentUserId(), securityUtils.getCurrentUserRole() == Role.ROLE_ADMIN));
+    }
+}
@@ -4,21 +4,32 @@ package com.manuonda.urlshortener.web.controller;
 
 import com.manuonda.urlshortener.domain.exceptions.ShortUrlNotFoundException;
 import com.manuonda.urlshortener.domain.models.CreateShortUrlCmd;
+import com.manuonda.urlshortener.domain.models.KeysetCursor;
 import com.manuonda.urlshortener.domain.models.PagedResult;
+import com.manuonda.urlshortener.domain.models.PublicListingPage;
 import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import com.manuonda.urlshortener.domain.models.ShortUrlStatus;
+import com.manuonda.urlshortener.service.ClickAnalyticsService;
+import com.manuonda.urlshortener.service.PublicListingService;
 import com.manuonda.urlshortener.service.ShortUrlService;
 import com.manuonda.urlshortener.ApplicationProperties;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import com.manuonda.urlshortener.web.dto.CreateShortUrlForm;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 
@@ -29,26 +40,49 @@ public class HomeController {
     private final ShortUrlService shortUrlService;
     private final ApplicationProperties properties;
     private final SecurityUtils securityUtils;
+    private final PublicListingService publicListingService;
+    private final ClickAnalyticsService clickAnalyticsService;
 
-    public HomeController(ShortUrlService shortUrlService, ApplicationProperties applicationProperties, SecurityUtils securityUtils) {
+    public HomeController(ShortUrlService shortUrlService, ApplicationProperties applicationProperties, SecurityUtils securityUtils,
+                          PublicListingService publicListingService, ClickAnalyticsService clickAnalyticsService) {
         this.shortUrlService = shortUrlService;
         this.properties = applicationProperties;
         this.securityUtils = securityUtils;
+        this.publicListingService = publicListingService;
+        this.clickAnalyticsService = clickAnalyticsService;
     }
 
     @GetMapping("/")
     public String home(
             @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
+            WebRequest webRequest,
+            HttpServletResponse response,
             Model model) {
-        this.addShortUrlsDataToModel(model, page);
+        PublicListingPage listing = publicListingService.getPage(page, KeysetCursor.parse(after, before));
+        // Conditional GET (not when a flash message has to be shown): the page only changes when the
+        // listing is reloaded or for another user (navbar)
+        if (!model.containsAttribute("successMessage") && !model.containsAttribute("errorMessage")) {
+            String user = webRequest.getRemoteUser();
+            response.setHeader(HttpHeaders.CACHE_CONTROL, user != null
+                    ? CacheControl.noCache().cachePrivate().getHeaderValue()
+                    : CacheControl.noCache().getHeaderValue());
+            response.setHeader(HttpHeaders.VARY, HttpHeaders.COOKIE);
+            String etag = "W/\"" + listing.loadedAt().toEpochMilli() + "-"
+                    + Integer.toHexString(Objects.hash(user, page, after, before)) + "\"";
+            if (webRequest.checkNotModified(etag, listing.loadedAt().toEpochMilli())) {
+                return null;
+            }
+        }
+        this.addShortUrlsDataToModel(model, listing.shortUrls());
         model.addAttribute("paginationUrl", "/");
         model.addAttribute("createShortUrlForm",
                 new CreateShortUrlForm("", false, null,0));
         return "index";
     }
 
-    private void addShortUrlsDataToModel(Model model, int pageNo) {
-        PagedResult<ShortUrlDto> shortUrls = shortUrlService.findAllPublicShortUrls(pageNo, properties.pageSize());
+    private void addShortUrlsDataToModel(Model model, PagedResult<ShortUrlDto> shortUrls) {
         model.addAttribute("shortUrls", shortUrls);
         model.addAttribute("baseUrl", properties.baseUrl());
         model.addAttribute("paginationUrl", "/");
@@ -60,7 +94,7 @@ public class HomeController {
                           RedirectAttributes redirectAttributes,
                           Model model) {
         if(bindingResult.hasErrors()) {
-            this.addShortUrlsDataToModel(model, 1);
+            this.addShortUrlsDataToModel(model, publicListingService.getPage(1, KeysetCursor.FIRST).shortUrls());
             return "index";
         }
 
@@ -74,7 +108,10 @@ public class HomeController {
                     form.maxClicks() != null ? form.maxClicks() : 0
             );
             var shortUrlDto = shortUrlService.createShortUrl(cmd);
-            redirectAttributes.addFlashAttribute("successMessage", "Short URL created successfully "+
+            String message = shortUrlDto.status() == ShortUrlStatus.PENDING_VALIDATION
+                    ? "Short URL created, it will be active once the original URL is validated "
+                    : "Short URL created successfully ";
+            redirectAttributes.addFlashAttribute("successMessage", message+
                     properties.baseUrl()+"/s/"+shortUrlDto.shortKey());
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Failed to create short URL");
@@ -83,24 +120,29 @@ public class HomeController {
         return "redirect:/";
     }
 
+    // only reached with app.redirect.fast-path=false, ShortUrlRedirectFilter answers /s/** otherwise
     @GetMapping("/s/{shortKey}")
-    String redirectToOriginalUrl(@PathVariable String shortKey) {
+    String redirectToOriginalUrl(@PathVariable String shortKey, HttpServletRequest request) {
         Long userId = securityUtils.getCurrentUserId();
         Optional<ShortUrlDto> shortUrlDtoOptional = shortUrlService.accessShortUrl(shortKey, userId);
         if(shortUrlDtoOptional.isEmpty()) {
             throw new ShortUrlNotFoundException("Invalid short key: "+shortKey);
         }
         ShortUrlDto shortUrlDto = shortUrlDtoOptional.get();
+        clickAnalyticsService.recordClick(shortKey, request);
         return "redirect:"+shortUrlDto.originalUrl();
     }
 
     @GetMapping("/my-urls")
     public String showUserUrls(
             @RequestParam(defaultValue = "1") int page,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) String before,
             Model model) {
         var currentUserId = securityUtils.getCurrentUserId();
-        PagedResult<ShortUrlDto> myUrls =
-                shortUrlService.getUserShortUrls(currentUserId, page, properties.pageSize());
+        PagedResult<ShortUrlDto> myUrls = properties.paginationMode() == ApplicationProperties.PaginationMode.CURSOR
+                ? shortUrlService.getUserShortUrls(currentUserId, KeysetCursor.parse(after, before), properties.pageSize())
+                : shortUrlService.getUserShortUrls(currentUserId, page, properties.pageSize());
         model.addAttribute("shortUrls", myUrls);
         model.addAttribute("baseUrl", properties.baseUrl());
         model.addAttribute("paginationUrl", "/my-urls");
@@ -1,29 +1,36 @@
 package com.manuonda.urlshortener.web.controller;
 
 
-import com.manuonda.urlshortener.domain.entities.User;
-import com.manuonda.urlshortener.repositorys.UserRepository;
+import com.manuonda.urlshortener.domain.models.Role;
+import com.manuonda.urlshortener.service.SecurityUser;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+/**
+ * Current user from the security context. The {@link SecurityUser} principal already holds
+ * the id and role loaded at login, so none of these methods access the database.
+ */
 @Service
 public class SecurityUtils {
 
-    private final UserRepository userRepository;
-    public SecurityUtils(UserRepository userRepository) {
-        this.userRepository = userRepository;
-    }
-   public User getCurrentUser(){
+   public SecurityUser getCurrentUser(){
        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-       if(authentication != null && authentication.isAuthenticated()){
-              return this.userRepository.findByEmail(authentication.getName()).orElse(null);
+       // anonymous requests carry an AnonymousAuthenticationToken whose principal is a String
+       if(authentication != null && authentication.isAuthenticated()
+               && authentication.getPrincipal() instanceof SecurityUser user){
+              return user;
        }
        return null;
    }
 
     public Long getCurrentUserId() {
-        User user = getCurrentUser();
+        SecurityUser user = getCurrentUser();
         return user != null ? user.getId() : null;
     }
+
+    public Role getCurrentUserRole() {
+        SecurityUser user = getCurrentUser();
+        return user != null ? user.getRole() : null;
+    }
 }
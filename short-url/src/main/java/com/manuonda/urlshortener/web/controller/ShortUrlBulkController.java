@@ -0,0 +1,85 @@
+package com.manuonda.urlshortener.web.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manuonda.urlshortener.domain.models.BulkCreateResult;
+import com.manuonda.urlshortener.domain.models.CreateShortUrlCmd;
+import com.manuonda.urlshortener.service.ShortUrlService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Bulk short URL creation for campaigns.
+ *
+ * Accepts a CSV ({@code text/csv}), a JSON array ({@code application/json}) or NDJSON
+ * ({@code application/x-ndjson}) of rows like the creation form and answers with one NDJSON
+ * line per row ({@link BulkCreateResult}), written as each batch is committed: neither the
+ * request nor the response is held in memory.
+ */
+@RestController
+public class ShortUrlBulkController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShortUrlBulkController.class);
+
+    static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private final ShortUrlService shortUrlService;
+    private final SecurityUtils securityUtils;
+    private final ObjectMapper objectMapper;
+
+    public ShortUrlBulkController(ShortUrlService shortUrlService, SecurityUtils securityUtils, ObjectMapper objectMapper) {
+        this.shortUrlService = shortUrlService;
+        this.securityUtils = securityUtils;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostMapping(value = "/api/short-urls/bulk",
+            consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> createShortUrls(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            HttpServletRequest request) {
+        // resolved on the request thread, the body is streamed from an async thread
+        Long userId = securityUtils.getCurrentUserId();
+        StreamingResponseBody body = outputStream -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            try {
+                Iterator<CreateShortUrlCmd> rows = TEXT_CSV.isCompatibleWith(contentType)
+                        ? BulkShortUrlReader.csv(request.getInputStream(), userId)
+                        : BulkShortUrlReader.json(request.getInputStream(), objectMapper, userId);
+                shortUrlService.createShortUrls(rows, results -> {
+                    try {
+                        for (BulkCreateResult result : results) {
+                            writer.write(objectMapper.writeValueAsString(result));
+                            writer.newLine();
+                        }
+                        writer.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IllegalArgumentException e) {
+                logger.warn("Bulk creation stopped: {}", e.getMessage());
+                writer.write(objectMapper.writeValueAsString(Map.of("error", e.getMessage())));
+                writer.newLine();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
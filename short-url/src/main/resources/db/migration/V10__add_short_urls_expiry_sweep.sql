@@ -0,0 +1,18 @@
+-- Expiry sweeper: expired rows are found with a range scan on expires_at
+CREATE INDEX idx_short_urls_expires_at ON short_urls (expires_at);
+
+-- Swept rows when app.expiry-sweeper.mode=archive
+CREATE TABLE short_urls_archive
+(
+    id           BIGINT      PRIMARY KEY,
+    short_key    VARCHAR(10) NOT NULL,
+    original_url TEXT        NOT NULL,
+    is_private   BOOLEAN     NOT NULL,
+    expires_at   TIMESTAMP,
+    created_by   BIGINT,
+    click_count  BIGINT      NOT NULL,
+    created_at   TIMESTAMP   NOT NULL,
+    max_clicks   INTEGER,
+    status       VARCHAR(20) NOT NULL,
+    archived_at  TIMESTAMP   NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,2 @@
+-- Each nextval reserves a block of 1000 numbers for SequenceShortKeyGenerator
+CREATE SEQUENCE short_key_block_seq START WITH 0 MINVALUE 0 INCREMENT BY 1000;
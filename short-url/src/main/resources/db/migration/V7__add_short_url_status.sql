@@ -0,0 +1 @@
+ALTER TABLE short_urls ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'ACTIVE';
@@ -0,0 +1,4 @@
+-- Keyset pagination of the listings: ORDER BY created_at DESC, id DESC with a (created_at, id) cursor
+CREATE INDEX idx_short_urls_public_created_at ON short_urls (is_private, created_at DESC, id DESC);
+CREATE INDEX idx_short_urls_created_by_created_at ON short_urls (created_by, created_at DESC, id DESC);
+CREATE INDEX idx_short_urls_created_at ON short_urls (created_at DESC, id DESC);
@@ -0,0 +1,33 @@
+-- Click analytics rollups (ClickAnalyticsService): clicks are added with INSERT ... ON CONFLICT DO UPDATE.
+-- bucket_start is the UTC start of the minute / hour / day. Dimensions are only kept per day.
+CREATE TABLE click_stats_minute
+(
+    short_key    VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP   NOT NULL,
+    clicks       BIGINT      NOT NULL,
+    PRIMARY KEY (short_key, bucket_start)
+);
+
+CREATE TABLE click_stats_hour
+(
+    short_key    VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP   NOT NULL,
+    clicks       BIGINT      NOT NULL,
+    PRIMARY KEY (short_key, bucket_start)
+);
+
+CREATE TABLE click_stats_day
+(
+    short_key     VARCHAR(10)  NOT NULL,
+    bucket_start  TIMESTAMP    NOT NULL,
+    referrer_host VARCHAR(100) NOT NULL,
+    agent_class   VARCHAR(10)  NOT NULL,
+    country       VARCHAR(2)   NOT NULL,
+    clicks        BIGINT       NOT NULL,
+    PRIMARY KEY (short_key, bucket_start, referrer_host, agent_class, country)
+);
+
+-- retention deletes
+CREATE INDEX idx_click_stats_minute_bucket ON click_stats_minute (bucket_start);
+CREATE INDEX idx_click_stats_hour_bucket ON click_stats_hour (bucket_start);
+CREATE INDEX idx_click_stats_day_bucket ON click_stats_day (bucket_start);
@@ -0,0 +1,16 @@
+-- Takes a lease, or extends it when the caller already holds it.
+--
+-- KEYS[1] lease key
+-- ARGV[1] owner (instance id)
+-- ARGV[2] lease duration, milliseconds
+--
+-- Returns 1 if the caller holds the lease, 0 if another owner does.
+
+if redis.call('SET', KEYS[1], ARGV[1], 'NX', 'PX', ARGV[2]) then
+    return 1
+end
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    redis.call('PEXPIRE', KEYS[1], ARGV[2])
+    return 1
+end
+return 0
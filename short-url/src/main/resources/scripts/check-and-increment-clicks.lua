@@ -0,0 +1,33 @@
+-- Atomic click-limit check and increment for one short key.
+--
+-- KEYS[1] clicks:<shortKey>   click counter
+-- KEYS[2] limit:<shortKey>    click limit set by UrlCacheService.setClickLimit
+-- KEYS[3] clicksync:dirty     keys to synchronize to the database
+-- ARGV[1] short key
+-- ARGV[2] limit to use (and restore) when KEYS[2] is missing, 0 = unlimited
+--
+-- Returns the click count after incrementing, or -1 when the limit was already
+-- reached (the counter is left untouched).
+
+local limit
+local raw = redis.call('GET', KEYS[2])
+if raw then
+    -- older entries were written JSON-encoded ("5")
+    limit = tonumber((string.gsub(raw, '"', '')))
+else
+    limit = tonumber(ARGV[2])
+    if limit and limit > 0 then
+        redis.call('SET', KEYS[2], ARGV[2])
+    end
+end
+
+if limit and limit > 0 then
+    local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+    if current >= limit then
+        return -1
+    end
+end
+
+local clicks = redis.call('INCR', KEYS[1])
+redis.call('SADD', KEYS[3], ARGV[1])
+return clicks
@@ -0,0 +1,28 @@
+-- Atomic click-limit check and increment for one short key, hash layout.
+--
+-- KEYS[1] url:<shortKey>      hash: c click counter, l click limit
+-- KEYS[2] clicksync:dirty     keys to synchronize to the database
+-- ARGV[1] short key
+-- ARGV[2] limit to use (and restore) when the l field is missing, 0 = unlimited
+--
+-- Returns the click count after incrementing, or -1 when the limit was already
+-- reached (the counter is left untouched).
+
+local fields = redis.call('HMGET', KEYS[1], 'l', 'c')
+local limit
+if fields[1] then
+    limit = tonumber(fields[1])
+else
+    limit = tonumber(ARGV[2])
+    if limit and limit > 0 then
+        redis.call('HSET', KEYS[1], 'l', ARGV[2])
+    end
+end
+
+if limit and limit > 0 and tonumber(fields[2] or '0') >= limit then
+    return -1
+end
+
+local clicks = redis.call('HINCRBY', KEYS[1], 'c', 1)
+redis.call('SADD', KEYS[2], ARGV[1])
+return clicks
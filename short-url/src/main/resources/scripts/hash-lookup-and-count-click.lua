@@ -0,0 +1,44 @@
+-- Hot redirect path in one round trip, hash layout: read the cached short URL and, when it is
+-- cached, apply the click limit and count the click.
+--
+-- KEYS[1] url:<shortKey>       hash: m metadata (serialized ShortUrlCacheDto), x metadata expiry
+--                              (epoch seconds), c click counter, l click limit
+-- KEYS[2] clicksync:dirty      keys to synchronize to the database
+-- ARGV[1] short key
+-- ARGV[2] current time, epoch seconds
+-- ARGV[3] 1 = count every click, 0 = only clicks of limited links (the caller counts the others)
+--
+-- Returns {} on a cache miss or stale metadata (nothing counted), otherwise
+-- {metadata, clicks, limitFound}: clicks is -1 when the limit was already reached
+-- (counter untouched), -2 when not counted (no limit and ARGV[3] = 0), limitFound is 0
+-- when the l field does not exist.
+
+local fields = redis.call('HMGET', KEYS[1], 'm', 'x', 'l', 'c')
+local metadata = fields[1]
+if not metadata then
+    return {}
+end
+if tonumber(fields[2] or '0') <= tonumber(ARGV[2]) then
+    -- the counter stays, only the metadata expires
+    redis.call('HDEL', KEYS[1], 'm', 'x')
+    return {}
+end
+
+local limitFound = 0
+local limited = false
+if fields[3] then
+    limitFound = 1
+    local limit = tonumber(fields[3])
+    limited = limit ~= nil and limit > 0
+    if limited and tonumber(fields[4] or '0') >= limit then
+        return {metadata, -1, limitFound}
+    end
+end
+
+if not limited and ARGV[3] == '0' then
+    return {metadata, -2, limitFound}
+end
+
+local clicks = redis.call('HINCRBY', KEYS[1], 'c', 1)
+redis.call('SADD', KEYS[2], ARGV[1])
+return {metadata, clicks, limitFound}
@@ -0,0 +1,43 @@
+-- Hot redirect path in one round trip: read the cached short URL and, when it is
+-- cached, apply the click limit and count the click.
+--
+-- KEYS[1] shorturl:<shortKey>  cached ShortUrlCacheDto (serialized value)
+-- KEYS[2] clicks:<shortKey>    click counter
+-- KEYS[3] limit:<shortKey>     click limit
+-- KEYS[4] clicksync:dirty      keys to synchronize to the database
+-- ARGV[1] short key
+-- ARGV[2] 1 = count every click, 0 = only clicks of limited links (the caller counts the others)
+--
+-- Returns {} on a cache miss (nothing counted), otherwise
+-- {metadata, clicks, limitFound}: clicks is -1 when the limit was already reached
+-- (counter untouched), -2 when not counted (no limit and ARGV[2] = 0), limitFound is 0
+-- when limit:<shortKey> does not exist.
+
+local metadata = redis.call('GET', KEYS[1])
+if not metadata then
+    return {}
+end
+
+local limitFound = 0
+local limited = false
+local raw = redis.call('GET', KEYS[3])
+if raw then
+    limitFound = 1
+    -- older entries were written JSON-encoded ("5")
+    local limit = tonumber((string.gsub(raw, '"', '')))
+    if limit and limit > 0 then
+        limited = true
+        local current = tonumber(redis.call('GET', KEYS[2]) or '0')
+        if current >= limit then
+            return {metadata, -1, limitFound}
+        end
+    end
+end
+
+if not limited and ARGV[2] == '0' then
+    return {metadata, -2, limitFound}
+end
+
+local clicks = redis.call('INCR', KEYS[2])
+redis.call('SADD', KEYS[4], ARGV[1])
+return {metadata, clicks, limitFound}
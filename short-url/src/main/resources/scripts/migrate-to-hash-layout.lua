@@ -0,0 +1,39 @@
+-- Moves one short URL from the string keys layout to the hash layout. Safe to run again or
+-- concurrently with redirects: the click counter is added to the hash one (HINCRBY), an existing
+-- limit or fresher metadata in the hash wins.
+--
+-- KEYS[1] shorturl:<shortKey>  cached metadata (with TTL)
+-- KEYS[2] clicks:<shortKey>    click counter
+-- KEYS[3] limit:<shortKey>     click limit
+-- KEYS[4] url:<shortKey>       target hash (m, x, c, l)
+-- ARGV[1] current time, epoch seconds
+--
+-- Returns 1 when something was moved, 0 otherwise.
+
+local moved = 0
+
+local clicks = redis.call('GET', KEYS[2])
+if clicks then
+    redis.call('HINCRBY', KEYS[4], 'c', clicks)
+    redis.call('DEL', KEYS[2])
+    moved = 1
+end
+
+local limit = redis.call('GET', KEYS[3])
+if limit then
+    -- older entries were written JSON-encoded ("5")
+    redis.call('HSETNX', KEYS[4], 'l', (string.gsub(limit, '"', '')))
+    redis.call('DEL', KEYS[3])
+    moved = 1
+end
+
+local ttl = redis.call('TTL', KEYS[1])
+if ttl ~= -2 then
+    if ttl > 0 and redis.call('HEXISTS', KEYS[4], 'm') == 0 then
+        redis.call('HSET', KEYS[4], 'm', redis.call('GET', KEYS[1]), 'x', tonumber(ARGV[1]) + ttl)
+    end
+    redis.call('DEL', KEYS[1])
+    moved = 1
+end
+
+return moved
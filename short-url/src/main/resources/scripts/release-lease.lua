@@ -0,0 +1,11 @@
+-- Releases a lease only if the caller still holds it.
+--
+-- KEYS[1] lease key
+-- ARGV[1] owner (instance id)
+--
+-- Returns 1 if released, 0 if another owner holds it (or it expired).
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
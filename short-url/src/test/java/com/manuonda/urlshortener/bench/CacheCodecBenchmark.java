@@ -0,0 +1,87 @@
+package com.manuonda.urlshortener.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manuonda.urlshortener.config.RedisConfig;
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import com.manuonda.urlshortener.config.ShortUrlCacheSerializer;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bytes per entry and encode/decode cost of a shorturl:{key} value, JSON (GenericJackson2JsonRedisSerializer
+ * with @class, then convertValue as UrlCacheService did) versus {@link ShortUrlCacheSerializer}.
+ *
+ * In-process only, no Redis. Not part of the test suite: run the main class from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...CacheCodecBenchmark}.
+ * Optional arg: iterations per round (default 1000000).
+ */
+public class CacheCodecBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        ObjectMapper objectMapper = new RedisConfig().objectMapper();
+        GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+        RedisSerializer<Object> json = new ShortUrlCacheSerializer(jsonSerializer, ShortUrlCacheProperties.Format.JSON);
+        RedisSerializer<Object> binary = new ShortUrlCacheSerializer(jsonSerializer, ShortUrlCacheProperties.Format.BINARY);
+
+        // millisecond instants: JSON writes expiresAt as decimal seconds and rounds finer precision
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<ShortUrlCacheDto> entries = List.of(
+                new ShortUrlCacheDto(1042L, "aZ3kP9", "https://example.com/", false, null, null, 0L, 0),
+                new ShortUrlCacheDto(2_000_317L, "Qm7xT2", "https://www.sivalabs.in/spring-boot-jooq-tutorial-getting-started",
+                        false, now.plus(Duration.ofDays(30)), 7L, 15_234L, 0),
+                new ShortUrlCacheDto(98_765_432L, "p0Lk8Vw",
+                        "https://shop.example.org/catalog/search?q=mechanical+keyboard&sort=price_asc&utm_source=newsletter&utm_medium=email",
+                        true, now.plus(Duration.ofDays(7)), 123_456L, 3L, 100));
+
+        System.out.printf("iterations=%d per round, best of %d rounds%n", iterations, ROUNDS);
+        for (ShortUrlCacheDto entry : entries) {
+            byte[] jsonBytes = json.serialize(entry);
+            byte[] binaryBytes = binary.serialize(entry);
+            Function<Object, ShortUrlCacheDto> fromJson = value -> objectMapper.convertValue(value, ShortUrlCacheDto.class);
+            if (!entry.equals(fromJson.apply(json.deserialize(jsonBytes)))
+                    || !entry.equals(binary.deserialize(binaryBytes))) {
+                throw new IllegalStateException("Round trip mismatch for " + entry);
+            }
+            System.out.printf("%n%s (url %d chars)%n", entry.shortKey(), entry.originalUrl().length());
+            System.out.printf("  json   %4d bytes  encode %6.1f ns/op  decode %6.1f ns/op%n", jsonBytes.length,
+                    measure(() -> json.serialize(entry).length, iterations),
+                    measure(() -> fromJson.apply(json.deserialize(jsonBytes)).shortKey().length(), iterations));
+            System.out.printf("  binary %4d bytes  encode %6.1f ns/op  decode %6.1f ns/op%n", binaryBytes.length,
+                    measure(() -> binary.serialize(entry).length, iterations),
+                    measure(() -> ((ShortUrlCacheDto) binary.deserialize(binaryBytes)).shortKey().length(), iterations));
+        }
+    }
+
+    // best average over the rounds (the first ones warm up the JIT); the results are summed so they are not dead code
+    private static double measure(IntOp op, int iterations) {
+        double best = Double.MAX_VALUE;
+        long sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                sink += op.run();
+            }
+            best = Math.min(best, (double) (System.nanoTime() - start) / iterations);
+        }
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return best;
+    }
+
+    @FunctionalInterface
+    private interface IntOp {
+        int run();
+    }
+}
@@ -0,0 +1,133 @@
+package com.manuonda.urlshortener.bench;
+
+import com.manuonda.urlshortener.config.ShortUrlCacheSerializer;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.types.Expiration;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Redis memory per short URL of the two layouts of UrlCacheService (app.short-url-cache.layout):
+ * keys (shorturl:/clicks:/limit: string keys) and hash (one url:{shortKey} hash), with the hash
+ * compact encoding limit at the Redis default (64 byte values) and raised above the metadata size.
+ *
+ * Every short URL has a click counter, one in ten a click limit; "cached" scenarios also hold
+ * the binary metadata (ShortUrlCacheSerializer). Runs against an embedded Redis. Not part of the
+ * test suite: run the main class from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...CacheLayoutMemoryBenchmark}.
+ * Optional arg: short URLs per scenario (default 2000000).
+ */
+public class CacheLayoutMemoryBenchmark {
+
+    private static final int PIPELINE_SIZE = 10_000;
+    private static final String[] PATHS = {
+            "/", "/blog/2024/03/spring-boot-redis-caching", "/docs/reference/current/index.html#getting-started",
+            "/catalog/search?q=mechanical+keyboard&sort=price_asc&utm_source=newsletter&utm_medium=email"};
+
+    private enum Layout { KEYS, HASH }
+
+    public static void main(String[] args) throws Exception {
+        int shortUrls = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        int redisPort = freePort();
+        RedisServer redisServer = RedisServer.newRedisServer().port(redisPort).setting("save \"\"").build();
+        redisServer.start();
+        LettuceConnectionFactory factory =
+                new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", redisPort));
+        factory.afterPropertiesSet();
+        factory.start();
+        try (RedisConnection connection = factory.getConnection()) {
+            System.out.printf("%d short URLs per scenario, %s%n", shortUrls,
+                    connection.serverCommands().info("server").getProperty("redis_version"));
+            run(connection, "keys,  cached        ", Layout.KEYS, true, 64, shortUrls);
+            run(connection, "hash,  cached, 64    ", Layout.HASH, true, 64, shortUrls);
+            run(connection, "hash,  cached, 512   ", Layout.HASH, true, 512, shortUrls);
+            run(connection, "keys,  counters only ", Layout.KEYS, false, 64, shortUrls);
+            run(connection, "hash,  counters only ", Layout.HASH, false, 64, shortUrls);
+        } finally {
+            factory.destroy();
+            redisServer.stop();
+        }
+    }
+
+    private static void run(RedisConnection connection, String name, Layout layout, boolean cached,
+                            int hashMaxValue, int shortUrls) {
+        connection.serverCommands().flushAll();
+        // hash-max-ziplist-value is also accepted (as an alias of hash-max-listpack-value) by Redis 7
+        connection.serverCommands().setConfig("hash-max-ziplist-value", Integer.toString(hashMaxValue));
+        long before = usedMemory(connection);
+        long metadataBytes = 0;
+        long expiry = Instant.now().plus(Duration.ofHours(1)).getEpochSecond();
+        connection.openPipeline();
+        for (int i = 0; i < shortUrls; i++) {
+            String shortKey = Long.toString(100_000_000L + i * 7919L, 36);
+            byte[] metadata = cached ? metadata(i, shortKey) : null;
+            metadataBytes += metadata != null ? metadata.length : 0;
+            byte[] clicks = bytes(Integer.toString(i % 1_000));
+            byte[] limit = i % 10 == 0 ? bytes("100") : null;
+            if (layout == Layout.KEYS) {
+                if (metadata != null) {
+                    connection.stringCommands().set(bytes("shorturl:" + shortKey), metadata,
+                            Expiration.seconds(3600), RedisStringCommands.SetOption.upsert());
+                }
+                connection.stringCommands().set(bytes("clicks:" + shortKey), clicks);
+                if (limit != null) {
+                    connection.stringCommands().set(bytes("limit:" + shortKey), limit);
+                }
+            } else {
+                Map<byte[], byte[]> fields = new LinkedHashMap<>();
+                if (metadata != null) {
+                    fields.put(bytes("m"), metadata);
+                    fields.put(bytes("x"), bytes(Long.toString(expiry)));
+                }
+                fields.put(bytes("c"), clicks);
+                if (limit != null) {
+                    fields.put(bytes("l"), limit);
+                }
+                connection.hashCommands().hMSet(bytes("url:" + shortKey), fields);
+            }
+            if ((i + 1) % PIPELINE_SIZE == 0) {
+                connection.closePipeline();
+                connection.openPipeline();
+            }
+        }
+        connection.closePipeline();
+        long used = usedMemory(connection) - before;
+        System.out.printf("%s keys=%-8d used=%7.1f MB  %6.1f B/short URL  (metadata %5.1f B avg)%n",
+                name, connection.serverCommands().dbSize(), used / 1e6, (double) used / shortUrls,
+                (double) metadataBytes / shortUrls);
+    }
+
+    private static byte[] metadata(int i, String shortKey) {
+        String url = "https://www.example" + (i % 100) + ".com" + PATHS[i % PATHS.length];
+        return ShortUrlCacheSerializer.encode(new ShortUrlCacheDto((long) i, shortKey, url, i % 5 == 0,
+                i % 3 == 0 ? Instant.now().plus(Duration.ofDays(30)) : null, i % 2 == 0 ? (long) (i % 5000) : null,
+                0L, i % 10 == 0 ? 100 : 0));
+    }
+
+    private static long usedMemory(RedisConnection connection) {
+        Properties info = connection.serverCommands().info("memory");
+        return Long.parseLong(info.getProperty("used_memory"));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
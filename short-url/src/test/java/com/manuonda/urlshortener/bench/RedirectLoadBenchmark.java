@@ -0,0 +1,80 @@
+package com.manuonda.urlshortener.bench;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop load on {@code GET /s/{shortKey}} of a running instance: throughput and latency
+ * percentiles of the redirect, to compare the filter fast path with HomeController
+ * (start the app with app.redirect.fast-path=true, then false, same data).
+ *
+ * Not part of the test suite: run the main class with args
+ * baseUrl shortKey [concurrency=32] [seconds=20] [warmupSeconds=5].
+ */
+public class RedirectLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args[0];
+        String shortKey = args[1];
+        int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+        int warmupSeconds = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+        HttpClient client = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/s/" + shortKey)).GET().build();
+
+        run(client, request, concurrency, warmupSeconds);
+        Result result = run(client, request, concurrency, seconds);
+        Arrays.sort(result.nanos, 0, result.count);
+        System.out.printf("concurrency=%d, %ds: %d redirects (%d non-3xx), %.0f req/s, p50=%.2fms p90=%.2fms p99=%.2fms%n",
+                concurrency, seconds, result.count, result.errors.get(), result.count / (double) seconds,
+                percentile(result, 0.50), percentile(result, 0.90), percentile(result, 0.99));
+    }
+
+    private static final class Result {
+        final long[] nanos = new long[2_000_000];
+        volatile int count;
+        final AtomicLong next = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds) throws Exception {
+        Result result = new Result();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        long elapsed = System.nanoTime() - start;
+                        if (response.statusCode() / 100 != 3) {
+                            result.errors.incrementAndGet();
+                        }
+                        int slot = (int) result.next.getAndIncrement();
+                        if (slot < result.nanos.length) {
+                            result.nanos[slot] = elapsed;
+                        }
+                    }
+                    return null;
+                });
+            }
+        }
+        result.count = (int) Math.min(result.next.get(), result.nanos.length);
+        return result;
+    }
+
+    private static double percentile(Result result, double p) {
+        return result.count == 0 ? 0 : result.nanos[(int) Math.min(result.count - 1, result.count * p)] / 1_000_000.0;
+    }
+}
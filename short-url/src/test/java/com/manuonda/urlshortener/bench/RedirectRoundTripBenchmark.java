@@ -0,0 +1,142 @@
+package com.manuonda.urlshortener.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.manuonda.urlshortener.config.ClickCountingProperties;
+import com.manuonda.urlshortener.config.ClickSyncProperties;
+import com.manuonda.urlshortener.config.NearCacheProperties;
+import com.manuonda.urlshortener.config.RedisCircuitBreakerProperties;
+import com.manuonda.urlshortener.config.RedisConfig;
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import com.manuonda.urlshortener.service.RedisCircuitBreaker;
+import com.manuonda.urlshortener.service.UrlCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips and latency of a cache-hit redirect, before and after the single-script lookup.
+ *
+ * before: GET shorturl:{key}, GET clicks:{key}, INCR clicks:{key} (the old accessShortUrl hot path)
+ * after:  {@link UrlCacheService#fetchAndRegisterClick(String)}
+ *
+ * Then the click of a near cache hit on an unlimited link ({@link UrlCacheService#tryRegisterClick}),
+ * counted exactly (click script) and in local counting mode (in-memory counters flushed every 250 ms
+ * by a background thread, like the scheduled flush).
+ *
+ * Runs against an embedded Redis behind {@link RoundTripCountingProxy}. Not part of the test suite:
+ * run the main class from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=...RedirectRoundTripBenchmark}.
+ * Optional args: iterations (default 20000), simulated network delay per request flight in micros (default 0).
+ */
+public class RedirectRoundTripBenchmark {
+
+    private static final String SHORT_KEY = "bench01";
+
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long delayMicros = args.length > 1 ? Long.parseLong(args[1]) : 0;
+
+        int redisPort = freePort();
+        RedisServer redisServer = new RedisServer(redisPort);
+        redisServer.start();
+        try (RoundTripCountingProxy proxy = new RoundTripCountingProxy(redisPort, delayMicros)) {
+            LettuceConnectionFactory factory =
+                    new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", proxy.port()));
+            factory.afterPropertiesSet();
+            factory.start();
+
+            RedisConfig redisConfig = new RedisConfig();
+            ObjectMapper objectMapper = redisConfig.objectMapper();
+            RedisTemplate<String, Object> redisTemplate = redisConfig.redisTemplate(factory, objectMapper,
+                    new ShortUrlCacheProperties(ShortUrlCacheProperties.Format.BINARY, ShortUrlCacheProperties.Layout.KEYS));
+            StringRedisTemplate stringRedisTemplate = new StringRedisTemplate(factory);
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            RedisCircuitBreakerProperties circuitBreakerProperties =
+                    new RedisCircuitBreakerProperties(true, 5, Duration.ofSeconds(5), 100_000);
+            RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(stringRedisTemplate, circuitBreakerProperties, meterRegistry);
+            UrlCacheService urlCacheService = new UrlCacheService(redisTemplate, stringRedisTemplate, objectMapper,
+                    new NearCacheProperties(false, 1, Duration.ofMinutes(1), "bench:invalidations"),
+                    new ShortUrlCacheProperties(ShortUrlCacheProperties.Format.BINARY, ShortUrlCacheProperties.Layout.KEYS),
+                    circuitBreaker, circuitBreakerProperties,
+                    new ClickCountingProperties(ClickCountingProperties.Mode.EXACT, Duration.ofMillis(250), 100_000),
+                    new ClickSyncProperties(1000, Duration.ofMinutes(5), 1), meterRegistry);
+            UrlCacheService localCounting = new UrlCacheService(redisTemplate, stringRedisTemplate, objectMapper,
+                    new NearCacheProperties(false, 1, Duration.ofMinutes(1), "bench:invalidations"),
+                    new ShortUrlCacheProperties(ShortUrlCacheProperties.Format.BINARY, ShortUrlCacheProperties.Layout.KEYS),
+                    circuitBreaker, circuitBreakerProperties,
+                    new ClickCountingProperties(ClickCountingProperties.Mode.LOCAL, Duration.ofMillis(250), 100_000),
+                    new ClickSyncProperties(1000, Duration.ofMinutes(5), 1), new SimpleMeterRegistry());
+
+            urlCacheService.cacheShortUrl(SHORT_KEY, new ShortUrlCacheDto(1L, SHORT_KEY, "https://example.com",
+                    false, Instant.now().plus(Duration.ofDays(1)), null, 0L, null));
+
+            Runnable before = () -> {
+                redisTemplate.opsForValue().get("shorturl:" + SHORT_KEY);
+                stringRedisTemplate.opsForValue().get("clicks:" + SHORT_KEY);
+                stringRedisTemplate.opsForValue().increment("clicks:" + SHORT_KEY);
+            };
+            Runnable after = () -> urlCacheService.fetchAndRegisterClick(SHORT_KEY);
+
+            System.out.printf("iterations=%d, simulated delay=%dus per request flight%n", iterations, delayMicros);
+            run("before (GET + GET + INCR)", before, iterations, proxy);
+            run("after  (lookup script)   ", after, iterations, proxy);
+
+            ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+            flusher.scheduleWithFixedDelay(localCounting::flushPendingClicks, 250, 250, TimeUnit.MILLISECONDS);
+            run("near hit, exact click    ", () -> urlCacheService.tryRegisterClick(SHORT_KEY, 0), iterations, proxy);
+            long clicksBefore = urlCacheService.getClickCount(SHORT_KEY);
+            run("near hit, local counters ", () -> localCounting.tryRegisterClick(SHORT_KEY, 0), iterations, proxy);
+            flusher.shutdown();
+            flusher.awaitTermination(1, TimeUnit.SECONDS);
+            localCounting.flushPendingClicks();
+            long counted = urlCacheService.getClickCount(SHORT_KEY) - clicksBefore;
+            if (counted != iterations + Math.min(iterations, 2_000)) {
+                throw new IllegalStateException("Local counters lost clicks: " + counted);
+            }
+
+            factory.destroy();
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    private static void run(String name, Runnable op, int iterations, RoundTripCountingProxy proxy) {
+        // warm up (JIT, script cache, connection)
+        for (int i = 0; i < Math.min(iterations, 2_000); i++) {
+            op.run();
+        }
+        long[] nanos = new long[iterations];
+        long roundTripsBefore = proxy.roundTrips();
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            op.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        long roundTrips = proxy.roundTrips() - roundTripsBefore;
+        Arrays.sort(nanos);
+        System.out.printf("%s round trips/op=%.2f  avg=%.1fus  p50=%.1fus  p99=%.1fus%n",
+                name,
+                (double) roundTrips / iterations,
+                Arrays.stream(nanos).average().orElse(0) / 1_000,
+                nanos[iterations / 2] / 1_000.0,
+                nanos[(int) (iterations * 0.99)] / 1_000.0);
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
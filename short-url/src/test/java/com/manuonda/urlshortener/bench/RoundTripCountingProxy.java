@@ -0,0 +1,78 @@
+package com.manuonda.urlshortener.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TCP proxy placed between a Redis client and a local Redis stand-in.
+ * Every client write that reaches the proxy is one request flight, i.e. one round trip
+ * for a client that waits for the reply (pipelined commands travel in one flight).
+ * An optional delay per flight simulates network latency between app and Redis.
+ */
+public class RoundTripCountingProxy implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final int upstreamPort;
+    private final long delayNanos;
+    private final AtomicLong roundTrips = new AtomicLong();
+
+    public RoundTripCountingProxy(int upstreamPort, long delayMicros) throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.upstreamPort = upstreamPort;
+        this.delayNanos = delayMicros * 1_000;
+        Thread.ofPlatform().daemon().name("proxy-accept").start(this::acceptLoop);
+    }
+
+    public int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long roundTrips() {
+        return roundTrips.get();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                client.setTcpNoDelay(true);
+                Socket upstream = new Socket(InetAddress.getLoopbackAddress(), upstreamPort);
+                upstream.setTcpNoDelay(true);
+                Thread.ofPlatform().daemon().start(() -> pump(client, upstream, true));
+                Thread.ofPlatform().daemon().start(() -> pump(upstream, client, false));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void pump(Socket from, Socket to, boolean request) {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (request) {
+                    roundTrips.incrementAndGet();
+                    if (delayNanos > 0) {
+                        LockSupport.parkNanos(delayNanos);
+                    }
+                }
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        } catch (IOException ignored) {
+            // connection closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+}
@@ -0,0 +1,296 @@
+package com.manuonda.urlshortener.bench;
+
+import com.manuonda.urlshortener.SpringBootUrlShortenerApplication;
+import com.manuonda.urlshortener.domain.models.BulkCreateResult;
+import com.manuonda.urlshortener.domain.models.CreateShortUrlCmd;
+import com.manuonda.urlshortener.service.ShortUrlService;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import redis.embedded.RedisServer;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+/**
+ * Self-contained load test for sizing instances: starts the application on H2 and an embedded Redis,
+ * seeds short URLs through the bulk creation service, then sends redirects ({@code GET /s/{shortKey}},
+ * key popularity Zipf-distributed) mixed with creations ({@code POST /short-urls}) at a fixed arrival
+ * rate, and reports throughput and latency percentiles of both.
+ *
+ * Open loop: request i is due at start + i / rate whether or not earlier requests have completed, and
+ * its latency is measured from that due time (coordinated omission correction). When the instance
+ * falls behind, the waiting shows up in the percentiles instead of lowering the request rate. The
+ * service time (measured from the actual send) is printed next to it; a large gap between the two
+ * means the rate is above what the instance sustains.
+ *
+ * Not part of the test suite: run the main class with args
+ * [urls=100000] [zipfExponent=1.0] [rate=2000 req/s] [createPercent=1] [seconds=30] [warmupSeconds=10]
+ * [maxInFlight=2000].
+ */
+public class ZipfLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int urls = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double zipfExponent = args.length > 1 ? Double.parseDouble(args[1]) : 1.0;
+        int rate = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        double createPercent = args.length > 3 ? Double.parseDouble(args[3]) : 1;
+        int seconds = args.length > 4 ? Integer.parseInt(args[4]) : 30;
+        int warmupSeconds = args.length > 5 ? Integer.parseInt(args[5]) : 10;
+        int maxInFlight = args.length > 6 ? Integer.parseInt(args[6]) : 2_000;
+
+        int redisPort = freePort();
+        RedisServer redisServer = new RedisServer(redisPort);
+        redisServer.start();
+        try (ServletWebServerApplicationContext context = (ServletWebServerApplicationContext) SpringApplication.run(
+                SpringBootUrlShortenerApplication.class,
+                "--server.port=0",
+                "--spring.docker.compose.enabled=false",
+                // on H2 the BIGSERIAL column does not use short_urls_id_seq: keep the sequence (single inserts)
+                // clear of the column default (seeded rows)
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "DEFAULT_NULL_ORDERING=HIGH;INIT=CREATE SEQUENCE IF NOT EXISTS short_urls_id_seq START WITH 1000000000",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.data.redis.host=localhost",
+                "--spring.data.redis.port=" + redisPort,
+                "--app.validate-original-url=false",
+                "--app.short-key.secret=zipf-load-generator",
+                // the rollup upserts are PostgreSQL syntax
+                "--app.click-analytics.enabled=false",
+                "--logging.level.root=WARN")) {
+            String baseUrl = "http://localhost:" + context.getWebServer().getPort();
+
+            long seedStart = System.nanoTime();
+            List<String> shortKeys = seed(context.getBean(ShortUrlService.class), urls);
+            System.out.printf("seeded %d short URLs in %d ms%n", shortKeys.size(),
+                    Duration.ofNanos(System.nanoTime() - seedStart).toMillis());
+            // rank order independent from creation order
+            Collections.shuffle(shortKeys, new Random(42));
+
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            Workload workload = new Workload(baseUrl, shortKeys, new ZipfSampler(shortKeys.size(), zipfExponent),
+                    createPercent / 100);
+
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            run(client, workload, rate, warmupSeconds, maxInFlight);
+            long rowsBefore = countShortUrls(jdbcTemplate);
+            Result result = run(client, workload, rate, seconds, maxInFlight);
+            long rowsCreated = countShortUrls(jdbcTemplate) - rowsBefore;
+            System.out.printf("urls=%d, zipf s=%.2f (top 1%% of keys = %.0f%% of redirects), target %d req/s, "
+                            + "%.1f%% creations, %ds, max in flight %d%n",
+                    urls, zipfExponent, 100 * workload.sampler.cumulative(Math.max(1, urls / 100)), rate,
+                    createPercent, seconds, maxInFlight);
+            System.out.printf("throughput: %.0f req/s (%d requests in %.1f s), %d late sends (max lag %.1f ms)%n",
+                    (result.redirects.count() + result.creations.count()) / (result.elapsedNanos / 1e9),
+                    result.redirects.count() + result.creations.count(), result.elapsedNanos / 1e9,
+                    result.lateSends.sum(), result.maxLagNanos.get() / 1_000_000.0);
+            result.redirects.print("redirect");
+            result.creations.print("create");
+            // the form redirects on failure too: the rows tell whether the creations succeeded
+            System.out.printf("  short URLs created: %d%n", rowsCreated);
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    private static List<String> seed(ShortUrlService shortUrlService, int urls) {
+        List<String> shortKeys = new ArrayList<>(urls);
+        shortUrlService.createShortUrls(
+                IntStream.range(0, urls)
+                        .mapToObj(i -> new CreateShortUrlCmd("https://example.com/page/" + i, false, null, null, 0))
+                        .iterator(),
+                batch -> batch.stream().map(BulkCreateResult::shortKey).forEach(shortKeys::add));
+        return shortKeys;
+    }
+
+    private static long countShortUrls(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM short_urls", Long.class);
+    }
+
+    private record Workload(String baseUrl, List<String> shortKeys, ZipfSampler sampler, double createRatio) {
+
+        boolean nextIsCreate() {
+            return ThreadLocalRandom.current().nextDouble() < createRatio;
+        }
+
+        HttpRequest redirect() {
+            String shortKey = shortKeys.get(sampler.sample(ThreadLocalRandom.current()));
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/s/" + shortKey)).GET().build();
+        }
+
+        HttpRequest create() {
+            String originalUrl = "https://example.com/new/" + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+            return HttpRequest.newBuilder(URI.create(baseUrl + "/short-urls"))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString("originalUrl=" + originalUrl))
+                    .build();
+        }
+    }
+
+    private static final class Result {
+        final Latencies redirects;
+        final Latencies creations;
+        final LongAdder lateSends = new LongAdder();
+        final LongAccumulator maxLagNanos = new LongAccumulator(Math::max, 0);
+        // first due time to last completion
+        long elapsedNanos;
+
+        Result(int capacity) {
+            redirects = new Latencies(capacity);
+            creations = new Latencies(capacity);
+        }
+    }
+
+    private static Result run(HttpClient client, Workload workload, int rate, int seconds, int maxInFlight) {
+        int requests = rate * seconds;
+        Result result = new Result(requests);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        double intervalNanos = 1_000_000_000.0 / rate;
+        long start = System.nanoTime();
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                long due = start + (long) (i * intervalNanos);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                boolean create = workload.nextIsCreate();
+                HttpRequest request = create ? workload.create() : workload.redirect();
+                Latencies latencies = create ? result.creations : result.redirects;
+                // the due time of a request waiting for a slot keeps running: that wait is part of its latency
+                inFlight.acquireUninterruptibly();
+                senders.submit(() -> {
+                    long sent = System.nanoTime();
+                    long lag = sent - due;
+                    if (lag > 1_000_000) {
+                        result.lateSends.increment();
+                        result.maxLagNanos.accumulate(lag);
+                    }
+                    boolean ok;
+                    try {
+                        ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 3;
+                    } catch (Exception e) {
+                        ok = false;
+                    } finally {
+                        inFlight.release();
+                    }
+                    long end = System.nanoTime();
+                    latencies.record(end - due, end - sent, ok);
+                });
+            }
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    /**
+     * Response times (from the due time) and service times (from the send) of one request type.
+     */
+    private static final class Latencies {
+        final long[] responseNanos;
+        final long[] serviceNanos;
+        final AtomicInteger next = new AtomicInteger();
+        final LongAdder errors = new LongAdder();
+
+        Latencies(int capacity) {
+            responseNanos = new long[capacity];
+            serviceNanos = new long[capacity];
+        }
+
+        void record(long responseTime, long serviceTime, boolean ok) {
+            int slot = next.getAndIncrement();
+            responseNanos[slot] = responseTime;
+            serviceNanos[slot] = serviceTime;
+            if (!ok) {
+                errors.increment();
+            }
+        }
+
+        int count() {
+            return next.get();
+        }
+
+        void print(String name) {
+            int count = count();
+            if (count == 0) {
+                return;
+            }
+            Arrays.sort(responseNanos, 0, count);
+            Arrays.sort(serviceNanos, 0, count);
+            System.out.printf("%-8s %8d requests (%d non-3xx)%n", name, count, errors.sum());
+            System.out.printf("  response time (corrected): %s%n", percentiles(responseNanos, count));
+            System.out.printf("  service time             : %s%n", percentiles(serviceNanos, count));
+        }
+
+        private static String percentiles(long[] sorted, int count) {
+            return String.format("p50=%.2fms p99=%.2fms p999=%.2fms max=%.2fms",
+                    percentile(sorted, count, 0.50), percentile(sorted, count, 0.99),
+                    percentile(sorted, count, 0.999), sorted[count - 1] / 1_000_000.0);
+        }
+
+        private static double percentile(long[] sorted, int count, double p) {
+            return sorted[(int) Math.min(count - 1, count * p)] / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Ranks 0..n-1 with P(rank k) proportional to 1 / (k + 1)^s: inverse transform over the cumulative
+     * distribution (binary search, n doubles).
+     */
+    static final class ZipfSampler {
+        private final double[] cumulative;
+
+        ZipfSampler(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) {
+                sum += 1 / Math.pow(k + 1, exponent);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cumulative[k] /= sum;
+            }
+        }
+
+        int sample(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+        }
+
+        /**
+         * @return share of the samples falling on the {@code ranks} most popular keys
+         */
+        double cumulative(int ranks) {
+            return cumulative[Math.min(ranks, cumulative.length) - 1];
+        }
+    }
+
+    private static int freePort() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.manuonda.urlshortener.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A long maintenance job runs on its own scheduler and never holds up the frequent jobs.
+ */
+class SchedulingConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(TaskSchedulingAutoConfiguration.class))
+            .withUserConfiguration(SchedulingConfig.class, Jobs.class)
+            .withPropertyValues("spring.task.scheduling.pool.size=1",
+                    "spring.task.scheduling.thread-name-prefix=scheduling-");
+
+    @Test
+    void frequentJobsKeepRunningDuringALongMaintenanceJob() {
+        contextRunner.run(context -> {
+            Jobs jobs = context.getBean(Jobs.class);
+            Thread.sleep(1000);
+
+            // the maintenance job has been sleeping the whole time
+            assertThat(jobs.frequentRuns.get()).isGreaterThan(10);
+            assertThat(jobs.frequentThreads).allMatch(name -> name.startsWith("scheduling-"));
+            assertThat(jobs.maintenanceThreads).singleElement().asString().startsWith("maintenance-");
+        });
+    }
+
+    @Configuration
+    @EnableScheduling
+    static class Jobs {
+
+        final AtomicInteger frequentRuns = new AtomicInteger();
+        final Set<String> frequentThreads = ConcurrentHashMap.newKeySet();
+        final Set<String> maintenanceThreads = ConcurrentHashMap.newKeySet();
+
+        @Scheduled(fixedDelay = 20)
+        void frequent() {
+            frequentRuns.incrementAndGet();
+            frequentThreads.add(Thread.currentThread().getName());
+        }
+
+        @Scheduled(fixedDelay = 60_000, scheduler = SchedulingConfig.MAINTENANCE_SCHEDULER)
+        void maintenance() throws InterruptedException {
+            maintenanceThreads.add(Thread.currentThread().getName());
+            Thread.sleep(2000);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.manuonda.urlshortener.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Binary cache entries round-trip for every combination of present fields, corrupt ones fail with a
+ * {@link SerializationException} (read as a cache miss) and JSON entries of older instances stay readable.
+ */
+class ShortUrlCacheSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer(objectMapper);
+    private final ShortUrlCacheSerializer serializer =
+            new ShortUrlCacheSerializer(json, ShortUrlCacheProperties.Format.BINARY);
+
+    @Test
+    void everyCombinationOfPresentFieldsRoundTrips() {
+        for (int presence = 0; presence < 1 << 8; presence++) {
+            ShortUrlCacheDto dto = dto(presence);
+
+            byte[] bytes = serializer.serialize(dto);
+
+            assertThat(bytes[0]).isEqualTo(ShortUrlCacheSerializer.MAGIC);
+            assertThat(serializer.deserialize(bytes)).as("presence %s", Integer.toBinaryString(presence)).isEqualTo(dto);
+        }
+    }
+
+    @Test
+    void extremeValuesRoundTrip() {
+        for (ShortUrlCacheDto dto : new ShortUrlCacheDto[]{
+                new ShortUrlCacheDto(-1L, "", "https://例え.jp/パス?q=ñandú&emoji=😀", false,
+                        Instant.ofEpochSecond(-1, 999_999_999), Long.MIN_VALUE, -42L, Integer.MIN_VALUE),
+                new ShortUrlCacheDto(Long.MAX_VALUE, "zZ9", "https://example.com/" + "é".repeat(5000), true,
+                        Instant.parse("2099-12-31T23:59:59.123456789Z"), Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE),
+                new ShortUrlCacheDto(0L, "abc123", "https://example.com", true, Instant.EPOCH, 0L, 0L, 0)}) {
+            assertThat(serializer.deserialize(serializer.serialize(dto))).isEqualTo(dto);
+        }
+    }
+
+    @Test
+    void truncatedEntriesFailWithASerializationException() {
+        byte[] bytes = serializer.serialize(dto((1 << 8) - 1));
+
+        for (int length = 1; length < bytes.length; length++) {
+            byte[] truncated = Arrays.copyOf(bytes, length);
+            assertThatThrownBy(() -> serializer.deserialize(truncated))
+                    .as("truncated to %d bytes", length)
+                    .isInstanceOf(SerializationException.class);
+        }
+    }
+
+    @Test
+    void corruptEntriesFailWithASerializationExceptionOrDecode() {
+        byte[] bytes = serializer.serialize(dto((1 << 8) - 1));
+        Random random = new Random(17);
+
+        // unknown version, malformed varint, negative string length, out of range expiresAt
+        assertCorrupt(new byte[]{ShortUrlCacheSerializer.MAGIC, 2, 0});
+        assertCorrupt(new byte[]{ShortUrlCacheSerializer.MAGIC, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0});
+        assertCorrupt(new byte[]{ShortUrlCacheSerializer.MAGIC, 1, 2, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1, 'a'});
+        assertCorrupt(new byte[]{ShortUrlCacheSerializer.MAGIC, 1, 0x10, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 1, 0});
+        for (int i = 0; i < 10_000; i++) {
+            byte[] corrupt = bytes.clone();
+            corrupt[2 + random.nextInt(corrupt.length - 2)] = (byte) random.nextInt(256);
+            try {
+                serializer.deserialize(corrupt);
+            } catch (SerializationException e) {
+                // a cache miss, never an unchecked exception of the decoder
+            }
+        }
+    }
+
+    @Test
+    void jsonEntriesOfOlderInstancesAreStillRead() {
+        ShortUrlCacheSerializer jsonSerializer = new ShortUrlCacheSerializer(json, ShortUrlCacheProperties.Format.JSON);
+        ShortUrlCacheDto full = dto((1 << 8) - 1);
+        // JSON writes Instants as decimal epoch seconds: nanoseconds beyond a double's precision are lost
+        ShortUrlCacheDto dto = new ShortUrlCacheDto(full.id(), full.shortKey(), full.originalUrl(), full.isPrivate(),
+                Instant.ofEpochMilli(1_900_000_000_123L), full.createdById(), full.clickCount(), full.maxClicks());
+
+        byte[] bytes = jsonSerializer.serialize(dto);
+
+        assertThat(bytes[0]).isEqualTo((byte) '{');
+        // read as a map, converted by UrlCacheService like any JSON entry
+        assertThat(objectMapper.convertValue(serializer.deserialize(bytes), ShortUrlCacheDto.class)).isEqualTo(dto);
+        // and the other way round while switching back
+        assertThat(jsonSerializer.deserialize(serializer.serialize(dto))).isEqualTo(dto);
+        assertThat(serializer.deserialize(null)).isNull();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+
+    private static void assertCorrupt(byte[] bytes) {
+        assertThatThrownBy(() -> ShortUrlCacheSerializer.decode(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    // fields whose presence bit is set get a value, in the serializer's bit order
+    private static ShortUrlCacheDto dto(int presence) {
+        return new ShortUrlCacheDto(
+                (presence & 1) != 0 ? -1234567L : null,
+                (presence & 1 << 1) != 0 ? "aB3xY9z" : null,
+                (presence & 1 << 2) != 0 ? "https://exämple.com/ünïcode/日本語?x=1" : null,
+                (presence & 1 << 3) != 0 ? Boolean.TRUE : null,
+                (presence & 1 << 4) != 0 ? Instant.ofEpochSecond(1_900_000_000L, 123_456_789) : null,
+                (presence & 1 << 5) != 0 ? -7L : null,
+                (presence & 1 << 6) != 0 ? 1L << 40 : null,
+                (presence & 1 << 7) != 0 ? 100 : null);
+    }
+}
@@ -0,0 +1,59 @@
+package com.manuonda.urlshortener.domain.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cursor tokens round-trip, and any malformed or tampered token starts the listing over instead of
+ * failing the request.
+ */
+class KeysetCursorTest {
+
+    @Test
+    void tokensRoundTrip() {
+        Instant createdAt = Instant.parse("2025-03-01T10:15:30.123456Z");
+        String token = KeysetCursor.encode(createdAt, 42L);
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+        assertThat(KeysetCursor.parse(token, null)).isEqualTo(new KeysetCursor(createdAt, 42L, false));
+        assertThat(KeysetCursor.parse(null, token)).isEqualTo(new KeysetCursor(createdAt, 42L, true));
+        // after wins when both are given
+        assertThat(KeysetCursor.parse(token, KeysetCursor.encode(Instant.EPOCH, 1L)).before()).isFalse();
+    }
+
+    @Test
+    void missingTokenIsTheFirstPage() {
+        assertThat(KeysetCursor.parse(null, null)).isSameAs(KeysetCursor.FIRST);
+        assertThat(KeysetCursor.parse("", " ")).isSameAs(KeysetCursor.FIRST);
+    }
+
+    @Test
+    void malformedOrTamperedTokenIsTheFirstPage() {
+        for (String token : new String[]{
+                "not base64!",
+                "%%%",
+                token("2025-03-01T10:15:30Z"),
+                token("2025-03-01T10:15:30Z|"),
+                token("2025-03-01T10:15:30Z|abc"),
+                token("2025-03-01T10:15:30Z|99999999999999999999"),
+                token("yesterday|42"),
+                token("|42"),
+                // outside the listing: the database cannot compare it
+                token("+1000000000-01-01T00:00:00Z|42"),
+                token("-1000000000-01-01T00:00:00Z|42"),
+                token("1969-12-31T23:59:59Z|42"),
+                new String(new byte[]{(byte) 0xFF, (byte) 0xFE}, StandardCharsets.ISO_8859_1)}) {
+            assertThat(KeysetCursor.parse(token, null)).as(token).isSameAs(KeysetCursor.FIRST);
+            assertThat(KeysetCursor.parse(null, token)).as(token).isSameAs(KeysetCursor.FIRST);
+        }
+    }
+
+    private static String token(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,120 @@
+package com.manuonda.urlshortener.repositorys;
+
+import com.manuonda.urlshortener.domain.entities.ShortUrl;
+import com.manuonda.urlshortener.domain.models.KeysetCursor;
+import com.manuonda.urlshortener.domain.models.ShortUrlStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The public listing only shows public ACTIVE short URLs: pending and invalid ones are not redirected.
+ * Keyset pages neither skip nor repeat rows created at the same instant.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        // on H2 the BIGSERIAL column does not create the sequence the entity id uses
+        "spring.datasource.url=jdbc:h2:mem:listing;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;"
+                + "INIT=CREATE SEQUENCE IF NOT EXISTS short_urls_id_seq",
+        "spring.datasource.username=sa",
+        "spring.datasource.password="
+})
+class ShortUrlRepositoryPublicListingTest {
+
+    @Autowired
+    private ShortUrlRepository shortUrlRepository;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void setUp() {
+        shortUrlRepository.deleteAll();
+        save("active", false, ShortUrlStatus.ACTIVE, 1);
+        save("pending", false, ShortUrlStatus.PENDING_VALIDATION, 2);
+        save("invalid", false, ShortUrlStatus.INVALID, 3);
+        save("private", true, ShortUrlStatus.ACTIVE, 4);
+    }
+
+    @Test
+    void offsetListingShowsPublicActiveShortUrlsOnly() {
+        var page = shortUrlRepository.findPublicShortUrls(PageRequest.of(0, 10, Sort.Direction.DESC, "createdAt"));
+
+        assertThat(page.getContent()).extracting(ShortUrl::getShortKey).containsExactly("active");
+        assertThat(page.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void keysetListingShowsPublicActiveShortUrlsOnly() {
+        List<ShortUrl> older = shortUrlRepository.findPublicShortUrlsOlderThan(now.plusSeconds(60), Long.MAX_VALUE, Limit.of(10));
+        List<ShortUrl> newer = shortUrlRepository.findPublicShortUrlsNewerThan(now.minusSeconds(60), 0L, Limit.of(10));
+
+        assertThat(older).extracting(ShortUrl::getShortKey).containsExactly("active");
+        assertThat(newer).extracting(ShortUrl::getShortKey).containsExactly("active");
+    }
+
+    @Test
+    void keysetPagesBreakTiesOnEqualCreatedAtById() {
+        // 7 rows created at the same instant, older than the ones above, pages of 3
+        for (int i = 0; i < 7; i++) {
+            save("tie" + i, false, ShortUrlStatus.ACTIVE, 10);
+        }
+        List<String> expected = shortUrlRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt", "id")).stream()
+                .filter(shortUrl -> shortUrl.getShortKey().startsWith("tie"))
+                .map(ShortUrl::getShortKey)
+                .toList();
+
+        // next pages, through the tokens of the links
+        List<List<String>> pages = new ArrayList<>();
+        KeysetCursor cursor = KeysetCursor.parse(KeysetCursor.encode(now.minusSeconds(5), Long.MAX_VALUE), null);
+        List<ShortUrl> page;
+        do {
+            page = shortUrlRepository.findPublicShortUrlsOlderThan(cursor.createdAt(), cursor.id(), Limit.of(3));
+            if (!page.isEmpty()) {
+                pages.add(page.stream().map(ShortUrl::getShortKey).toList());
+                ShortUrl last = page.get(page.size() - 1);
+                cursor = KeysetCursor.parse(KeysetCursor.encode(last.getCreatedAt(), last.getId()), null);
+            }
+        } while (page.size() == 3);
+
+        assertThat(pages).hasSize(3);
+        assertThat(pages.stream().flatMap(List::stream).toList()).containsExactlyElementsOf(expected);
+
+        // previous page from the first row of the last one
+        String first = pages.get(2).get(0);
+        ShortUrl firstRow = shortUrlRepository.findByShortKey(first).orElseThrow();
+        cursor = KeysetCursor.parse(null, KeysetCursor.encode(firstRow.getCreatedAt(), firstRow.getId()));
+        List<String> previous = new ArrayList<>(shortUrlRepository
+                .findPublicShortUrlsNewerThan(cursor.createdAt(), cursor.id(), Limit.of(3)).stream()
+                .map(ShortUrl::getShortKey)
+                .toList());
+        Collections.reverse(previous);
+        assertThat(previous).isEqualTo(pages.get(1));
+    }
+
+    private void save(String shortKey, boolean isPrivate, ShortUrlStatus status, int secondsAgo) {
+        ShortUrl shortUrl = new ShortUrl();
+        shortUrl.setShortKey(shortKey);
+        shortUrl.setOriginalUrl("https://example.com/" + shortKey);
+        shortUrl.setIsPrivate(isPrivate);
+        shortUrl.setClickCount(0L);
+        shortUrl.setCreatedAt(now.minusSeconds(secondsAgo));
+        shortUrl.setMaxClicks(0);
+        shortUrl.setStatus(status);
+        shortUrlRepository.save(shortUrl);
+    }
+}
@@ -0,0 +1,133 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ShortUrlCacheProperties;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The migration to the hash layout against an embedded Redis: counters are added to the hash
+ * ones, a limit or metadata already in the hash wins, and it runs once.
+ */
+class CacheLayoutMigrationTest {
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = RedisServer.newRedisServer().port(port).setting("save \"\"").build();
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redis.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @Test
+    void clicksAreAddedToTheHashCounter() {
+        redis.opsForValue().set("clicks:abc", "5");
+        // clicked on an instance already on the hash layout
+        redis.opsForHash().put("url:abc", "c", "2");
+
+        migration(ShortUrlCacheProperties.Layout.HASH).migrateToHashLayout();
+
+        assertThat(redis.opsForHash().get("url:abc", "c")).isEqualTo("7");
+        assertThat(redis.hasKey("clicks:abc")).isFalse();
+    }
+
+    @Test
+    void limitInTheHashWins() {
+        // JSON-encoded, as older entries were written
+        redis.opsForValue().set("limit:abc", "\"10\"");
+        redis.opsForValue().set("limit:xyz", "\"10\"");
+        redis.opsForHash().put("url:abc", "l", "3");
+
+        migration(ShortUrlCacheProperties.Layout.HASH).migrateToHashLayout();
+
+        assertThat(redis.opsForHash().get("url:abc", "l")).isEqualTo("3");
+        assertThat(redis.opsForHash().get("url:xyz", "l")).isEqualTo("10");
+        assertThat(redis.hasKey("limit:abc")).isFalse();
+        assertThat(redis.hasKey("limit:xyz")).isFalse();
+    }
+
+    @Test
+    void metadataKeepsItsExpiryUnlessTheHashHasFresherOne() {
+        long now = Instant.now().getEpochSecond();
+        redis.opsForValue().set("shorturl:abc", "old", Duration.ofSeconds(100));
+        redis.opsForValue().set("shorturl:xyz", "old", Duration.ofSeconds(100));
+        redis.opsForHash().putAll("url:xyz", Map.of("m", "fresh", "x", Long.toString(now + 500)));
+        // no TTL: dropped rather than cached forever
+        redis.opsForValue().set("shorturl:forever", "old");
+
+        migration(ShortUrlCacheProperties.Layout.HASH).migrateToHashLayout();
+
+        assertThat(redis.opsForHash().get("url:abc", "m")).isEqualTo("old");
+        assertThat(Long.parseLong((String) redis.opsForHash().get("url:abc", "x"))).isBetween(now + 95, now + 101);
+        assertThat(redis.opsForHash().get("url:xyz", "m")).isEqualTo("fresh");
+        assertThat(redis.hasKey("url:forever")).isFalse();
+        assertThat(redis.keys("shorturl:*")).isEmpty();
+    }
+
+    @Test
+    void runsOnceAndLeavesOtherKeysAlone() {
+        redis.opsForValue().set("clicks:abc", "5");
+        redis.opsForValue().set("clicksync:shards", "4");
+
+        migration(ShortUrlCacheProperties.Layout.HASH).migrateToHashLayout();
+        assertThat(redis.hasKey(CacheLayoutMigration.MIGRATED_KEY)).isTrue();
+        assertThat(redis.opsForValue().get("clicksync:shards")).isEqualTo("4");
+
+        // written by an instance still on the old layout: delete the marker to move it
+        redis.opsForValue().set("clicks:late", "1");
+        migration(ShortUrlCacheProperties.Layout.HASH).migrateToHashLayout();
+        assertThat(redis.hasKey("clicks:late")).isTrue();
+    }
+
+    @Test
+    void keysLayoutMigratesNothing() {
+        redis.opsForValue().set("clicks:abc", "5");
+
+        migration(ShortUrlCacheProperties.Layout.KEYS).migrateToHashLayout();
+
+        assertThat(redis.opsForValue().get("clicks:abc")).isEqualTo("5");
+        assertThat(redis.hasKey("url:abc")).isFalse();
+    }
+
+    private static CacheLayoutMigration migration(ShortUrlCacheProperties.Layout layout) {
+        return new CacheLayoutMigration(redis, new ShortUrlCacheProperties(ShortUrlCacheProperties.Format.BINARY, layout));
+    }
+}
@@ -0,0 +1,95 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ClickAnalyticsProperties;
+import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The rollup upserts (INSERT ... ON CONFLICT DO UPDATE) against the Flyway schema on PostgreSQL:
+ * flushes add to the existing rows instead of failing on the primary key.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ClickAnalyticsRollupPostgresTest {
+
+    // same major version as compose.yaml
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    private JdbcTemplate jdbcTemplate;
+    private ClickAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("TRUNCATE click_stats_minute, click_stats_hour, click_stats_day");
+        service = new ClickAnalyticsService(jdbcTemplate, new TransactionTemplate(new DataSourceTransactionManager(dataSource)),
+                mock(ShortUrlRepository.class),
+                new ClickAnalyticsProperties(true, 1024, 0.5, 10, Duration.ofSeconds(1), "classpath:geo/ip-country.csv",
+                        Duration.ofDays(2), Duration.ofDays(90), Duration.ofDays(400), 100_000),
+                new DefaultResourceLoader(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void flushesAddToTheExistingRollupRows() {
+        click("abc123", "https://news.example.com/a", "curl/8.4.0");
+        click("abc123", null, "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) Mobile/15E148");
+        service.flush();
+        click("abc123", "https://news.example.com/b", "curl/8.4.0");
+        click("abc123", null, "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) Mobile/15E148");
+        click("other", null, null);
+        service.flush();
+
+        assertThat(totalClicks("click_stats_minute", "abc123")).isEqualTo(4);
+        assertThat(totalClicks("click_stats_hour", "abc123")).isEqualTo(4);
+        assertThat(totalClicks("click_stats_day", "abc123")).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT clicks FROM click_stats_day WHERE short_key = 'abc123' AND referrer_host = 'news.example.com'"
+                        + " AND agent_class = 'bot'", Long.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT clicks FROM click_stats_day WHERE short_key = 'abc123' AND referrer_host = 'direct'"
+                        + " AND agent_class = 'mobile'", Long.class)).isEqualTo(2);
+        assertThat(totalClicks("click_stats_day", "other")).isEqualTo(1);
+
+        // the retention deletes run on the same schema
+        service.purgeExpiredRollups();
+        assertThat(totalClicks("click_stats_minute", "abc123")).isEqualTo(4);
+    }
+
+    private void click(String shortKey, String referrer, String userAgent) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/s/" + shortKey);
+        if (referrer != null) {
+            request.addHeader(HttpHeaders.REFERER, referrer);
+        }
+        if (userAgent != null) {
+            request.addHeader(HttpHeaders.USER_AGENT, userAgent);
+        }
+        service.recordClick(shortKey, request);
+    }
+
+    private long totalClicks(String table, String shortKey) {
+        // table is one of the rollup tables above, never user input
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(clicks), 0) FROM " + table + " WHERE short_key = ?",
+                Long.class, shortKey);
+    }
+}
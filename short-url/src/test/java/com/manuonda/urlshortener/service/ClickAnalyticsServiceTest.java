@@ -0,0 +1,105 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ClickAnalyticsProperties;
+import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Referrer and user agent classification, and sampling under load that keeps the click totals.
+ */
+class ClickAnalyticsServiceTest {
+
+    @Test
+    void referrerHostIsTheLowerCasedHostOrDirect() {
+        assertThat(ClickAnalyticsService.referrerHost("https://WWW.Example.com/path?q=1")).isEqualTo("www.example.com");
+        assertThat(ClickAnalyticsService.referrerHost("http://user:pw@news.example.org:8080/a")).isEqualTo("news.example.org");
+        assertThat(ClickAnalyticsService.referrerHost("android-app://com.google.android.gm/")).isEqualTo("com.google.android.gm");
+        assertThat(ClickAnalyticsService.referrerHost("example.net#top")).isEqualTo("example.net");
+        assertThat(ClickAnalyticsService.referrerHost("https://" + "a".repeat(300) + ".com/")).hasSize(100);
+        assertThat(ClickAnalyticsService.referrerHost(null)).isEqualTo(ClickAnalyticsService.DIRECT);
+        assertThat(ClickAnalyticsService.referrerHost(" ")).isEqualTo(ClickAnalyticsService.DIRECT);
+        assertThat(ClickAnalyticsService.referrerHost("https:///path")).isEqualTo(ClickAnalyticsService.DIRECT);
+        assertThat(ClickAnalyticsService.referrerHost("https://@:443/")).isEqualTo(ClickAnalyticsService.DIRECT);
+    }
+
+    @Test
+    void agentClassRecognizesBotsTabletsAndPhones() {
+        assertThat(ClickAnalyticsService.agentClass(
+                "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 Chrome/120.0 Safari/537.36"))
+                .isEqualTo("desktop");
+        assertThat(ClickAnalyticsService.agentClass(
+                "Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X) Mobile/15E148")).isEqualTo("mobile");
+        assertThat(ClickAnalyticsService.agentClass(
+                "Mozilla/5.0 (Linux; Android 14; Pixel 8) Mobile Safari/537.36")).isEqualTo("mobile");
+        assertThat(ClickAnalyticsService.agentClass(
+                "Mozilla/5.0 (Linux; Android 13; SM-X700) Safari/537.36")).isEqualTo("tablet");
+        assertThat(ClickAnalyticsService.agentClass("Mozilla/5.0 (iPad; CPU OS 17_0 like Mac OS X)")).isEqualTo("tablet");
+        assertThat(ClickAnalyticsService.agentClass(
+                "Mozilla/5.0 (compatible; Googlebot/2.1; +http://www.google.com/bot.html)")).isEqualTo("bot");
+        assertThat(ClickAnalyticsService.agentClass("curl/8.4.0")).isEqualTo("bot");
+        assertThat(ClickAnalyticsService.agentClass("Slackbot-LinkExpanding 1.0")).isEqualTo("bot");
+        assertThat(ClickAnalyticsService.agentClass(null)).isEqualTo("unknown");
+        assertThat(ClickAnalyticsService.agentClass("")).isEqualTo("unknown");
+    }
+
+    @Test
+    void sampledEventsAreWeightedSoTheClickTotalIsKept() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        long[] minuteClicks = {0};
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            if (inv.<String>getArgument(0).contains("click_stats_minute")) {
+                rows.forEach(row -> minuteClicks[0] += (Long) row[2]);
+            }
+            return new int[rows.size()];
+        });
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // sampled above 512 buffered events, one in 10 kept
+        ClickAnalyticsService service = new ClickAnalyticsService(jdbcTemplate, transactionTemplate,
+                mock(ShortUrlRepository.class),
+                new ClickAnalyticsProperties(true, 1024, 0.5, 10, Duration.ofSeconds(1), "classpath:geo/ip-country.csv",
+                        Duration.ofDays(2), Duration.ofDays(90), Duration.ofDays(400), 100_000),
+                new DefaultResourceLoader(), meterRegistry);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/s/abc123");
+
+        for (int i = 0; i < 2512; i++) {
+            service.recordClick("abc123", request);
+        }
+        double recorded = outcome(meterRegistry, "recorded");
+        double sampledOut = outcome(meterRegistry, "sampled_out");
+        service.flush();
+
+        assertThat(outcome(meterRegistry, "dropped")).isZero();
+        assertThat(recorded + sampledOut).isEqualTo(2512);
+        assertThat(sampledOut).isGreaterThan(0);
+        // the first 512 count once, every kept sampled event stands for 10
+        assertThat(minuteClicks[0]).isEqualTo(512 + 10 * ((long) recorded - 512));
+    }
+
+    private static double outcome(SimpleMeterRegistry meterRegistry, String outcome) {
+        return meterRegistry.get("shorturl.analytics.events").tag("outcome", outcome).functionCounter().count();
+    }
+}
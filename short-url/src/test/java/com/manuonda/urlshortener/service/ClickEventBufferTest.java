@@ -0,0 +1,69 @@
+package com.manuonda.urlshortener.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The ring buffer hands events over in order across wraparounds and rejects them when full.
+ */
+class ClickEventBufferTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        assertThat(new ClickEventBuffer(1000).capacity()).isEqualTo(1024);
+        assertThat(new ClickEventBuffer(1024).capacity()).isEqualTo(1024);
+        assertThat(new ClickEventBuffer(1025).capacity()).isEqualTo(2048);
+    }
+
+    @Test
+    void eventsAreDrainedInOrderAcrossWraparounds() {
+        ClickEventBuffer buffer = new ClickEventBuffer(4);
+        List<String> drained = new ArrayList<>();
+        ClickEventBuffer.Consumer consumer = (timestamp, shortKey, referrer, userAgent, clientIp, weight) -> {
+            assertThat(timestamp).isEqualTo(Long.parseLong(shortKey.substring(3)));
+            assertThat(weight).isEqualTo(1);
+            drained.add(shortKey);
+        };
+
+        // 3 events in, 2 out: the slots in use move around the ring
+        int next = 0;
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 3 && buffer.size() < buffer.capacity(); i++, next++) {
+                assertThat(buffer.offer(next, "key" + next, null, null, null, 1)).isTrue();
+            }
+            buffer.drain(consumer, 2);
+        }
+        buffer.drain(consumer, Integer.MAX_VALUE);
+
+        assertThat(next).isGreaterThan(2 * buffer.capacity());
+        assertThat(drained).hasSize(next);
+        for (int i = 0; i < next; i++) {
+            assertThat(drained.get(i)).isEqualTo("key" + i);
+        }
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    void fullBufferRejectsEventsUntilDrained() {
+        ClickEventBuffer buffer = new ClickEventBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i, "key" + i, null, null, null, 1)).isTrue();
+        }
+
+        assertThat(buffer.offer(4, "key4", null, null, null, 1)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        List<String> drained = new ArrayList<>();
+        assertThat(buffer.drain((timestamp, shortKey, referrer, userAgent, clientIp, weight) -> drained.add(shortKey), 1))
+                .isEqualTo(1);
+        assertThat(buffer.offer(5, "key5", null, null, null, 1)).isTrue();
+        buffer.drain((timestamp, shortKey, referrer, userAgent, clientIp, weight) -> drained.add(shortKey), 10);
+
+        // the rejected event is gone, nothing else is lost
+        assertThat(drained).containsExactly("key0", "key1", "key2", "key3", "key5");
+    }
+}
@@ -0,0 +1,192 @@
+package com.manuonda.urlshortener.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The click-limit scripts of both cache layouts against an embedded Redis: a click is counted
+ * (and its key marked dirty) only while under the limit, a missing limit is restored from the
+ * argument, and the lookup scripts count nothing on a miss.
+ */
+class ClickLimitScriptsTest {
+
+    private static final RedisScript<Long> CHECK_AND_INCREMENT =
+            RedisScript.of(new ClassPathResource("scripts/check-and-increment-clicks.lua"), Long.class);
+    private static final RedisScript<Long> HASH_CHECK_AND_INCREMENT =
+            RedisScript.of(new ClassPathResource("scripts/hash-check-and-increment-clicks.lua"), Long.class);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Object>> LOOKUP_AND_COUNT =
+            (RedisScript) RedisScript.of(new ClassPathResource("scripts/lookup-and-count-click.lua"), List.class);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final RedisScript<List<Object>> HASH_LOOKUP_AND_COUNT =
+            (RedisScript) RedisScript.of(new ClassPathResource("scripts/hash-lookup-and-count-click.lua"), List.class);
+
+    private static final String DIRTY = "clicksync:dirty";
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        redisServer = RedisServer.newRedisServer().port(port).setting("save \"\"").build();
+        redisServer.start();
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("localhost", port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void stopRedis() throws IOException {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void flush() {
+        redis.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @Test
+    void countsUntilTheLimitThenLeavesTheCounterAlone() {
+        for (long expected = 1; expected <= 3; expected++) {
+            assertThat(checkAndIncrement("abc", "3")).isEqualTo(expected);
+        }
+        assertThat(checkAndIncrement("abc", "3")).isEqualTo(-1);
+
+        assertThat(redis.opsForValue().get("clicks:abc")).isEqualTo("3");
+        // restored from the argument on the first click
+        assertThat(redis.opsForValue().get("limit:abc")).isEqualTo("3");
+        assertThat(redis.opsForSet().members(DIRTY)).containsExactly("abc");
+    }
+
+    @Test
+    void storedLimitWinsOverTheArgument() {
+        // JSON-encoded, as older entries were written
+        redis.opsForValue().set("limit:abc", "\"1\"");
+
+        assertThat(checkAndIncrement("abc", "100")).isEqualTo(1);
+        assertThat(checkAndIncrement("abc", "100")).isEqualTo(-1);
+    }
+
+    @Test
+    void zeroLimitIsUnlimitedAndNotStored() {
+        for (int i = 0; i < 5; i++) {
+            checkAndIncrement("abc", "0");
+        }
+
+        assertThat(redis.opsForValue().get("clicks:abc")).isEqualTo("5");
+        assertThat(redis.hasKey("limit:abc")).isFalse();
+    }
+
+    @Test
+    void hashLayoutCountsUntilTheLimit() {
+        assertThat(hashCheckAndIncrement("abc", "2")).isEqualTo(1);
+        assertThat(hashCheckAndIncrement("abc", "2")).isEqualTo(2);
+        assertThat(hashCheckAndIncrement("abc", "2")).isEqualTo(-1);
+
+        assertThat(redis.<String, String>opsForHash().entries("url:abc")).containsEntry("c", "2").containsEntry("l", "2");
+        assertThat(redis.opsForSet().members(DIRTY)).containsExactly("abc");
+
+        // an unlimited link has no l field, and none is added
+        hashCheckAndIncrement("free", "0");
+        assertThat(redis.<String, String>opsForHash().entries("url:free")).containsOnlyKeys("c");
+    }
+
+    @Test
+    void lookupCountsNothingOnAMiss() {
+        assertThat(lookupAndCount("abc", "1")).isEmpty();
+
+        assertThat(redis.hasKey("clicks:abc")).isFalse();
+        assertThat(redis.hasKey(DIRTY)).isFalse();
+    }
+
+    @Test
+    void lookupAppliesTheLimit() {
+        redis.opsForValue().set("shorturl:abc", "metadata");
+        redis.opsForValue().set("limit:abc", "2");
+
+        assertThat(lookupAndCount("abc", "0")).containsExactly("metadata", 1L, 1L);
+        assertThat(lookupAndCount("abc", "0")).containsExactly("metadata", 2L, 1L);
+        assertThat(lookupAndCount("abc", "0")).containsExactly("metadata", -1L, 1L);
+        assertThat(redis.opsForValue().get("clicks:abc")).isEqualTo("2");
+    }
+
+    @Test
+    void lookupLeavesUnlimitedClicksToTheCallerWhenAsked() {
+        redis.opsForValue().set("shorturl:abc", "metadata");
+
+        assertThat(lookupAndCount("abc", "0")).containsExactly("metadata", -2L, 0L);
+        assertThat(redis.hasKey("clicks:abc")).isFalse();
+
+        assertThat(lookupAndCount("abc", "1")).containsExactly("metadata", 1L, 0L);
+        assertThat(redis.opsForSet().members(DIRTY)).containsExactly("abc");
+    }
+
+    @Test
+    void hashLookupAppliesTheLimit() {
+        redis.opsForHash().putAll("url:abc", Map.of("m", "metadata", "x", Long.toString(now() + 60), "l", "1"));
+
+        assertThat(hashLookupAndCount("abc", "0")).containsExactly("metadata", 1L, 1L);
+        assertThat(hashLookupAndCount("abc", "0")).containsExactly("metadata", -1L, 1L);
+        assertThat(redis.opsForHash().get("url:abc", "c")).isEqualTo("1");
+    }
+
+    @Test
+    void hashLookupDropsStaleMetadataButKeepsTheCounter() {
+        redis.opsForHash().putAll("url:abc", Map.of("m", "metadata", "x", Long.toString(now() - 1), "c", "7"));
+
+        assertThat(hashLookupAndCount("abc", "1")).isEmpty();
+
+        assertThat(redis.<String, String>opsForHash().entries("url:abc")).containsOnlyKeys("c").containsEntry("c", "7");
+        assertThat(redis.hasKey(DIRTY)).isFalse();
+    }
+
+    private Long checkAndIncrement(String shortKey, String limit) {
+        return redis.execute(CHECK_AND_INCREMENT,
+                List.of("clicks:" + shortKey, "limit:" + shortKey, DIRTY), shortKey, limit);
+    }
+
+    private Long hashCheckAndIncrement(String shortKey, String limit) {
+        return redis.execute(HASH_CHECK_AND_INCREMENT, List.of("url:" + shortKey, DIRTY), shortKey, limit);
+    }
+
+    private List<Object> lookupAndCount(String shortKey, String countAll) {
+        return redis.execute(LOOKUP_AND_COUNT,
+                List.of("shorturl:" + shortKey, "clicks:" + shortKey, "limit:" + shortKey, DIRTY), shortKey, countAll);
+    }
+
+    private List<Object> hashLookupAndCount(String shortKey, String countAll) {
+        return redis.execute(HASH_LOOKUP_AND_COUNT, List.of("url:" + shortKey, DIRTY),
+                shortKey, Long.toString(now()), countAll);
+    }
+
+    private static long now() {
+        return Instant.now().getEpochSecond();
+    }
+}
@@ -0,0 +1,65 @@
+package com.manuonda.urlshortener.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Estimates are never below the true counts, even in a sketch far too small for its keys, and
+ * decay halves them.
+ */
+class CountMinSketchTest {
+
+    @Test
+    void estimatesNeverFallBelowTheTrueCounts() {
+        // 2000 keys over 4 x 64 counters: every counter is shared
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        Map<String, Long> counts = new HashMap<>();
+        for (int i = 1; i <= 2000; i++) {
+            String key = "key" + i;
+            // skewed like clicks: key1 is the hottest
+            long clicks = 1 + 5000 / i;
+            for (long c = 0; c < clicks; c++) {
+                sketch.increment(key);
+            }
+            counts.put(key, clicks);
+        }
+
+        counts.forEach((key, count) -> assertThat(sketch.estimate(key)).as(key).isGreaterThanOrEqualTo(count));
+        assertThat(sketch.estimate("never-seen")).isGreaterThanOrEqualTo(0);
+    }
+
+    @Test
+    void incrementReturnsTheNewEstimate() {
+        CountMinSketch sketch = new CountMinSketch(4, 4096);
+
+        assertThat(sketch.increment("abc123")).isEqualTo(1);
+        assertThat(sketch.increment("abc123")).isEqualTo(2);
+        assertThat(sketch.estimate("abc123")).isEqualTo(2);
+        assertThat(sketch.estimate("xyz789")).isZero();
+    }
+
+    @Test
+    void decayHalvesTheEstimates() {
+        CountMinSketch sketch = new CountMinSketch(4, 64);
+        for (int i = 1; i <= 500; i++) {
+            for (int c = 0; c < i; c++) {
+                sketch.increment("key" + i);
+            }
+        }
+        Map<String, Long> before = new HashMap<>();
+        for (int i = 1; i <= 500; i++) {
+            before.put("key" + i, sketch.estimate("key" + i));
+        }
+
+        sketch.decay();
+
+        // the minimum of halved counters is the halved minimum, collisions or not
+        before.forEach((key, estimate) -> assertThat(sketch.estimate(key)).as(key).isEqualTo(estimate / 2));
+        sketch.decay();
+        assertThat(sketch.estimate("key1")).isEqualTo(before.get("key1") / 4);
+    }
+}
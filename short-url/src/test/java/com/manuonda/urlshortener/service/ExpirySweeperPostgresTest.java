@@ -0,0 +1,160 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ExpirySweeperProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The sweeper's claim, archive and delete statements against the Flyway schema on PostgreSQL:
+ * expired rows are moved or deleted with their final click count, rows locked by another
+ * instance are left to it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class ExpirySweeperPostgresTest {
+
+    // same major version as compose.yaml
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+    // click counts still waiting in Redis
+    private static final Map<String, Long> REDIS_CLICKS = Map.of("expired1", 40L, "expired2", 3L);
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private final UrlCacheService urlCacheService = mock(UrlCacheService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate.execute("TRUNCATE short_urls, short_urls_archive");
+        when(urlCacheService.getClickCounts(anyList())).thenAnswer(inv ->
+                inv.<List<String>>getArgument(0).stream().map(REDIS_CLICKS::get).toList());
+        when(urlCacheService.removeShortKeys(anyList())).thenReturn(true);
+
+        insert(1, "expired1", Duration.ofDays(2), 10);
+        insert(2, "expired2", Duration.ofDays(3), 5);
+        insert(3, "expired3", Duration.ofHours(2), 7);
+        // within the grace period, and not expired at all
+        insert(4, "recent", Duration.ofMinutes(10), 0);
+        insert(5, "active", Duration.ofDays(-1), 0);
+    }
+
+    @Test
+    void archiveMovesExpiredRowsWithTheirFinalClickCount() {
+        sweeper(ExpirySweeperProperties.Mode.ARCHIVE, 2).sweep();
+
+        assertThat(shortKeys("short_urls")).containsExactlyInAnyOrder("recent", "active");
+        assertThat(shortKeys("short_urls_archive")).containsExactlyInAnyOrder("expired1", "expired2", "expired3");
+        // the highest of the database and Redis counts
+        assertThat(archivedClicks("expired1")).isEqualTo(40);
+        assertThat(archivedClicks("expired2")).isEqualTo(5);
+        assertThat(archivedClicks("expired3")).isEqualTo(7);
+        verify(urlCacheService).removeShortKeys(List.of("expired2", "expired1"));
+        verify(urlCacheService).removeShortKeys(List.of("expired3"));
+    }
+
+    @Test
+    void deleteRemovesExpiredRowsWithoutArchiving() {
+        sweeper(ExpirySweeperProperties.Mode.DELETE, 500).sweep();
+
+        assertThat(shortKeys("short_urls")).containsExactlyInAnyOrder("recent", "active");
+        assertThat(shortKeys("short_urls_archive")).isEmpty();
+    }
+
+    @Test
+    void rowArchivedAlreadyDoesNotFailTheChunk() {
+        jdbcTemplate.update("INSERT INTO short_urls_archive (id, short_key, original_url, is_private, click_count,"
+                + " created_at, status) VALUES (1, 'expired1', 'https://example.com', false, 99, now(), 'ACTIVE')");
+
+        sweeper(ExpirySweeperProperties.Mode.ARCHIVE, 500).sweep();
+
+        assertThat(shortKeys("short_urls")).containsExactlyInAnyOrder("recent", "active");
+        assertThat(archivedClicks("expired1")).isEqualTo(99);
+        assertThat(archivedClicks("expired2")).isEqualTo(5);
+    }
+
+    @Test
+    void rowsLockedByAnotherInstanceAreSkipped() throws Exception {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch swept = new CountDownLatch(1);
+        ExecutorService otherInstance = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = otherInstance.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+                jdbcTemplate.queryForList("SELECT id FROM short_urls WHERE id = 1 FOR UPDATE", Long.class);
+                locked.countDown();
+                try {
+                    swept.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            sweeper(ExpirySweeperProperties.Mode.ARCHIVE, 500).sweep();
+            swept.countDown();
+            holder.get(10, TimeUnit.SECONDS);
+        } finally {
+            otherInstance.shutdownNow();
+        }
+
+        assertThat(shortKeys("short_urls")).containsExactlyInAnyOrder("expired1", "recent", "active");
+        assertThat(shortKeys("short_urls_archive")).containsExactlyInAnyOrder("expired2", "expired3");
+        verify(urlCacheService).removeShortKeys(List.of("expired2", "expired3"));
+    }
+
+    private ExpirySweeper sweeper(ExpirySweeperProperties.Mode mode, int chunkSize) {
+        return new ExpirySweeper(jdbcTemplate, transactionTemplate, dataSource, urlCacheService, eventPublisher,
+                new ExpirySweeperProperties(true, mode, Duration.ofMinutes(10), Duration.ofHours(1), chunkSize,
+                        Duration.ZERO, 100, 0.5),
+                new SimpleMeterRegistry());
+    }
+
+    private void insert(long id, String shortKey, Duration expiredFor, long clickCount) {
+        jdbcTemplate.update("INSERT INTO short_urls (id, short_key, original_url, expires_at, click_count)"
+                        + " VALUES (?, ?, ?, ?, ?)",
+                id, shortKey, "https://example.com/" + shortKey,
+                Instant.now().minus(expiredFor).atOffset(ZoneOffset.UTC), clickCount);
+    }
+
+    private List<String> shortKeys(String table) {
+        // table is short_urls or short_urls_archive, never user input
+        return jdbcTemplate.queryForList("SELECT short_key FROM " + table, String.class);
+    }
+
+    private long archivedClicks(String shortKey) {
+        return jdbcTemplate.queryForObject("SELECT click_count FROM short_urls_archive WHERE short_key = ?",
+                Long.class, shortKey);
+    }
+}
@@ -0,0 +1,109 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.HotKeyProperties;
+import com.manuonda.urlshortener.domain.models.HotShortKey;
+import com.manuonda.urlshortener.domain.models.ShortUrlCacheDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Each refresh pins the current top-K and unpins the keys that left it, with decayed counts.
+ */
+class HotKeyTrackerTest {
+
+    // pinned entries of the mocked cache, replaced by pinShortUrls like UrlCacheService does
+    private final Set<String> pinned = new HashSet<>();
+    private final UrlCacheService urlCacheService = mock(UrlCacheService.class);
+    private HotKeyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        when(urlCacheService.getShortUrlsFromRedis(anyList())).thenAnswer(inv -> {
+            Map<String, ShortUrlCacheDto> entries = new HashMap<>();
+            inv.<List<String>>getArgument(0).forEach(shortKey -> entries.put(shortKey,
+                    new ShortUrlCacheDto(1L, shortKey, "https://example.com/" + shortKey, false, null, null, 0L, null)));
+            return entries;
+        });
+        doAnswer(inv -> {
+            Map<String, ShortUrlCacheDto> hotEntries = inv.getArgument(0);
+            pinned.retainAll(hotEntries.keySet());
+            pinned.addAll(hotEntries.keySet());
+            return null;
+        }).when(urlCacheService).pinShortUrls(anyMap());
+        when(urlCacheService.isPinned(anyString())).thenAnswer(inv -> pinned.contains(inv.<String>getArgument(0)));
+        // top 2 with at least 5 clicks
+        tracker = new HotKeyTracker(urlCacheService, new HotKeyProperties(true, 2, 5, 4096, 4, Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void topKeysArePinnedHottestFirst() {
+        clicks("a", 100);
+        clicks("b", 50);
+        clicks("c", 10);
+        clicks("cold", 4);
+
+        tracker.refresh();
+
+        assertThat(tracker.getHotKeys()).containsExactly(
+                new HotShortKey("a", 100, true), new HotShortKey("b", 50, true));
+        assertThat(pinned).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void keysLeavingTheTopKAreUnpinned() {
+        clicks("a", 100);
+        clicks("b", 50);
+        tracker.refresh();
+
+        // next period: b gets no click, c overtakes it; the counts of the last period are halved
+        clicks("c", 200);
+        tracker.refresh();
+
+        assertThat(tracker.getHotKeys()).containsExactly(
+                new HotShortKey("c", 200, true), new HotShortKey("a", 50, true));
+        assertThat(pinned).containsExactlyInAnyOrder("a", "c");
+
+        // nothing left above minClicks once the old counts have decayed enough
+        for (int i = 0; i < 6; i++) {
+            tracker.refresh();
+        }
+        assertThat(tracker.getHotKeys()).isEmpty();
+        assertThat(pinned).isEmpty();
+    }
+
+    @Test
+    void pinnedEntriesAreKeptWhileRedisIsUnavailable() {
+        clicks("a", 100);
+        tracker.refresh();
+        when(urlCacheService.isDegraded()).thenReturn(true);
+
+        clicks("c", 200);
+        tracker.refresh();
+
+        // ranked, but cannot be reloaded: the pinned set is left as is
+        assertThat(tracker.getHotKeys()).containsExactly(
+                new HotShortKey("c", 200, false), new HotShortKey("a", 50, true));
+        assertThat(pinned).containsExactly("a");
+    }
+
+    private void clicks(String shortKey, int count) {
+        for (int i = 0; i < count; i++) {
+            tracker.recordClick(shortKey);
+        }
+    }
+}
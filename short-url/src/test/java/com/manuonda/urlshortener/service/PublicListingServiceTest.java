@@ -0,0 +1,103 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.ApplicationProperties;
+import com.manuonda.urlshortener.config.PublicListingCacheProperties;
+import com.manuonda.urlshortener.domain.events.ShortUrlsChangedEvent;
+import com.manuonda.urlshortener.domain.models.KeysetCursor;
+import com.manuonda.urlshortener.domain.models.PagedResult;
+import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * With cursor pagination the first pages are cached as in offset mode: page 1 and the pages
+ * reached from it by the next links, never the deeper ones nor the previous links.
+ */
+class PublicListingServiceTest {
+
+    // 5 pages, page n starts after the last row of page n - 1
+    private static final List<String> NEXT = List.of(
+            token(2), token(3), token(4), token(5));
+
+    private final ShortUrlService shortUrlService = mock(ShortUrlService.class);
+    private PublicListingService service;
+
+    @BeforeEach
+    void setUp() {
+        when(shortUrlService.findPublicShortUrls(any(), anyInt())).thenAnswer(inv -> {
+            KeysetCursor cursor = inv.getArgument(0);
+            int pageNo = cursor == KeysetCursor.FIRST ? 1 : NEXT.indexOf(token(cursor)) + 2;
+            return PagedResult.<ShortUrlDto>keyset(List.of(), pageNo < 5, pageNo > 1,
+                    null, pageNo < 5 ? NEXT.get(pageNo - 1) : null, -1);
+        });
+        service = new PublicListingService(shortUrlService,
+                new ApplicationProperties("http://localhost:8080", 30, false, 10, ApplicationProperties.PaginationMode.CURSOR),
+                new PublicListingCacheProperties(true, 3, Duration.ofMinutes(5)),
+                new ConcurrentMapCacheManager(PublicListingService.CACHE_NAME));
+    }
+
+    @Test
+    void firstPagesAreCachedByTheirPosition() {
+        for (int i = 0; i < 2; i++) {
+            service.getPage(0, KeysetCursor.FIRST);
+            service.getPage(0, cursor(2));
+            service.getPage(0, cursor(3));
+        }
+
+        verify(shortUrlService, times(3)).findPublicShortUrls(any(), anyInt());
+        assertThat(service.getPage(0, cursor(3)).shortUrls().nextCursor()).isEqualTo(token(4));
+    }
+
+    @Test
+    void deeperPagesAndPreviousLinksAreNotCached() {
+        service.getPage(0, cursor(4));
+        clearInvocations(shortUrlService);
+
+        service.getPage(0, cursor(4));
+        service.getPage(0, KeysetCursor.parse(null, token(3)));
+        service.getPage(0, KeysetCursor.parse(null, token(3)));
+
+        // pages 1 to 3 were cached finding out page 4 is not one of them
+        verify(shortUrlService, times(3)).findPublicShortUrls(any(), anyInt());
+        verify(shortUrlService, never()).findPublicShortUrls(KeysetCursor.FIRST, 10);
+    }
+
+    @Test
+    void changeDropsTheCachedPages() {
+        service.getPage(0, cursor(2));
+        service.onShortUrlsChanged(new ShortUrlsChangedEvent(true));
+        clearInvocations(shortUrlService);
+
+        service.getPage(0, cursor(2));
+
+        verify(shortUrlService, times(2)).findPublicShortUrls(any(), anyInt());
+    }
+
+    private static KeysetCursor cursor(int pageNo) {
+        return KeysetCursor.parse(token(pageNo), null);
+    }
+
+    // position of the last row of page pageNo - 1
+    private static String token(int pageNo) {
+        return KeysetCursor.encode(Instant.parse("2025-03-01T10:00:00Z").minusSeconds(pageNo), (long) pageNo);
+    }
+
+    private static String token(KeysetCursor cursor) {
+        return KeysetCursor.encode(cursor.createdAt(), cursor.id());
+    }
+}
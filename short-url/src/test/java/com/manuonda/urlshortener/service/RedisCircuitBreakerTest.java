@@ -0,0 +1,177 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.RedisCircuitBreakerProperties;
+import io.lettuce.core.RedisCommandTimeoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The circuit opens after failureThreshold consecutive connection failures or timeouts (data
+ * errors do not count), short-circuits calls while open, and closes on the first successful probe
+ * once the recovery tasks have run.
+ */
+class RedisCircuitBreakerTest {
+
+    private final StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+    private RedisCircuitBreaker breaker;
+
+    @BeforeEach
+    void setUp() {
+        breaker = breaker(true);
+    }
+
+    @Test
+    void opensAfterConsecutiveConnectionFailures() {
+        fail(new RedisConnectionFailureException("refused"));
+        fail(new QueryTimeoutException("timeout"));
+        assertThat(breaker.isOpen()).isFalse();
+
+        fail(new RedisCommandTimeoutException("timeout"));
+
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(breaker.health().getStatus()).isEqualTo(RedisCircuitBreaker.DEGRADED);
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> breaker.execute(calls::incrementAndGet))
+                .isInstanceOf(RedisCircuitBreaker.CircuitOpenException.class);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        fail(new RedisConnectionFailureException("refused"));
+        fail(new RedisConnectionFailureException("refused"));
+        assertThat(breaker.execute(() -> "OK")).isEqualTo("OK");
+        fail(new RedisConnectionFailureException("refused"));
+        fail(new RedisConnectionFailureException("refused"));
+
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void onlyUnavailabilityCounts() {
+        // wrapped by a pipeline or a script call: still a timeout
+        fail(new RedisSystemException("pipeline", new RedisCommandTimeoutException("timeout")));
+        fail(new RedisSystemException("script", new RedisConnectionFailureException("reset")));
+        // data errors: Redis answered
+        for (int i = 0; i < 5; i++) {
+            fail(new RedisSystemException("WRONGTYPE", new IllegalStateException("WRONGTYPE")));
+            fail(new IllegalArgumentException("bad value"));
+        }
+        assertThat(breaker.isOpen()).isFalse();
+
+        fail(new RedisSystemException("pipeline", new QueryTimeoutException("timeout")));
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    @Test
+    void disabledBreakerNeverOpens() {
+        breaker = breaker(false);
+        for (int i = 0; i < 10; i++) {
+            fail(new RedisConnectionFailureException("refused"));
+        }
+
+        assertThat(breaker.isOpen()).isFalse();
+    }
+
+    @Test
+    void probeDoesNothingWhileClosed() {
+        breaker.probe();
+
+        verify(stringRedisTemplate, never()).execute(any(RedisCallback.class));
+    }
+
+    @Test
+    void failedProbeKeepsTheCircuitOpenWithoutRecovery() {
+        List<Boolean> runs = recordRecoveryRuns();
+        open();
+        when(stringRedisTemplate.execute(any(RedisCallback.class)))
+                .thenThrow(new RedisConnectionFailureException("refused"));
+
+        breaker.probe();
+
+        assertThat(breaker.isOpen()).isTrue();
+        assertThat(runs).isEmpty();
+    }
+
+    @Test
+    void recoveryTasksRunBeforeAndAfterTheCircuitCloses() {
+        List<Boolean> runs = recordRecoveryRuns();
+        open();
+        when(stringRedisTemplate.execute(any(RedisCallback.class))).thenReturn("PONG");
+
+        breaker.probe();
+
+        // circuit state seen by each run: open (write back), then closed (calls that raced the switch)
+        assertThat(runs).containsExactly(true, false);
+        assertThat(breaker.isOpen()).isFalse();
+        assertThat(breaker.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(breaker.execute(() -> "OK")).isEqualTo("OK");
+    }
+
+    @Test
+    void failedRecoveryTaskKeepsTheCircuitOpen() {
+        open();
+        when(stringRedisTemplate.execute(any(RedisCallback.class))).thenReturn("PONG");
+        AtomicInteger attempts = new AtomicInteger();
+        breaker.addRecoveryTask(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new RedisConnectionFailureException("reset during write back");
+            }
+        });
+
+        breaker.probe();
+        assertThat(breaker.isOpen()).isTrue();
+
+        // the next probe writes back again
+        breaker.probe();
+        assertThat(breaker.isOpen()).isFalse();
+        assertThat(attempts).hasValue(3);
+    }
+
+    private RedisCircuitBreaker breaker(boolean enabled) {
+        return new RedisCircuitBreaker(stringRedisTemplate,
+                new RedisCircuitBreakerProperties(enabled, 3, Duration.ofSeconds(5), 1000),
+                new SimpleMeterRegistry());
+    }
+
+    private List<Boolean> recordRecoveryRuns() {
+        List<Boolean> runs = new ArrayList<>();
+        breaker.addRecoveryTask(() -> runs.add(breaker.isOpen()));
+        return runs;
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            fail(new RedisConnectionFailureException("refused"));
+        }
+        assertThat(breaker.isOpen()).isTrue();
+    }
+
+    private void fail(RuntimeException e) {
+        Supplier<Object> call = () -> {
+            throw e;
+        };
+        assertThatThrownBy(() -> breaker.execute(call)).isSameAs(e);
+    }
+}
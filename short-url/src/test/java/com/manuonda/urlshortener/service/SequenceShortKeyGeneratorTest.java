@@ -0,0 +1,73 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ShortKeyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The cycle-walked permutation stays a bijection into the 7-character key space, and it is never
+ * keyed by a missing or placeholder secret.
+ */
+class SequenceShortKeyGeneratorTest {
+
+    private static final String SECRET = "test-secret-0123456789";
+
+    @Test
+    void permutationIsABijectionOverABlock() {
+        SequenceShortKeyGenerator generator = generator(SECRET);
+
+        // first block, one in the middle and the last one of the key space
+        for (long start : new long[]{0, SequenceShortKeyGenerator.KEY_SPACE / 2,
+                SequenceShortKeyGenerator.KEY_SPACE - SequenceShortKeyGenerator.BLOCK_SIZE}) {
+            Set<Long> permuted = new HashSet<>();
+            Set<String> keys = new HashSet<>();
+            for (long value = start; value < start + SequenceShortKeyGenerator.BLOCK_SIZE; value++) {
+                long x = generator.permute(value);
+                assertThat(x).isBetween(0L, SequenceShortKeyGenerator.KEY_SPACE - 1);
+                permuted.add(x);
+                String key = SequenceShortKeyGenerator.encode(x);
+                assertThat(key).hasSize(SequenceShortKeyGenerator.KEY_LENGTH).matches("[A-Za-z0-9]+");
+                keys.add(key);
+            }
+            assertThat(permuted).hasSize(SequenceShortKeyGenerator.BLOCK_SIZE);
+            assertThat(keys).hasSize(SequenceShortKeyGenerator.BLOCK_SIZE);
+        }
+    }
+
+    @Test
+    void permutationIsStableForASecretAndDependsOnIt() {
+        SequenceShortKeyGenerator generator = generator(SECRET);
+
+        assertThat(generator(SECRET).permute(42)).isEqualTo(generator.permute(42));
+        assertThat(generator("another-secret-9876543210").permute(42)).isNotEqualTo(generator.permute(42));
+        // neighbours are not neighbours after the permutation
+        assertThat(Math.abs(generator.permute(43) - generator.permute(42))).isGreaterThan(1);
+    }
+
+    @Test
+    void encodingCoversTheWholeKeySpaceWithSevenCharacters() {
+        assertThat(SequenceShortKeyGenerator.encode(0)).isEqualTo("AAAAAAA");
+        assertThat(SequenceShortKeyGenerator.encode(SequenceShortKeyGenerator.KEY_SPACE - 1)).isEqualTo("9999999");
+    }
+
+    @Test
+    void missingOrPlaceholderSecretFailsStartup() {
+        assertThatThrownBy(() -> generator(null)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> generator(" ")).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> generator("change-me-short-key-secret"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("placeholder");
+        assertThatThrownBy(() -> generator("ChangeMe")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static SequenceShortKeyGenerator generator(String secret) {
+        return new SequenceShortKeyGenerator(null, new ShortKeyProperties(ShortKeyProperties.Strategy.SEQUENCE, secret,
+                new ShortKeyProperties.Pool(10_000, 50_000, 1_000, Duration.ofSeconds(10))));
+    }
+}
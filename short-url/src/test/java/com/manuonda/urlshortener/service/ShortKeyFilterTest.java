@@ -0,0 +1,172 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.ShortKeyFilterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * New keys whose creation message never arrived are still let through: the filter catches up
+ * from short_urls in the background when the creation counter shows a gap, and never rejects what
+ * it cannot vouch for meanwhile.
+ */
+class ShortKeyFilterTest {
+
+    private final AtomicLong createdVersion = new AtomicLong();
+    private final ValueOperations<String, String> valueOperations = mockValueOperations();
+    // background catch-ups, run when the test says so
+    private final Queue<Runnable> catchUps = new ArrayDeque<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RedisCircuitBreaker circuitBreaker = mock(RedisCircuitBreaker.class);
+    private JdbcTemplate jdbcTemplate;
+    private ShortKeyFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1"));
+        jdbcTemplate.execute("""
+                CREATE TABLE short_urls (short_key VARCHAR(10) PRIMARY KEY,
+                                         created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)
+                """);
+        insert("existing");
+
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(circuitBreaker.execute(any())).thenAnswer(inv -> inv.<Supplier<?>>getArgument(0).get());
+
+        filter = new ShortKeyFilter(jdbcTemplate, stringRedisTemplate, circuitBreaker,
+                new ShortKeyFilterProperties(true, 1000, 0.01, Duration.ofHours(6), "shorturl:created",
+                        Duration.ofSeconds(30), Duration.ofMinutes(1), 1000, Duration.ofSeconds(30)),
+                catchUps::add, meterRegistry);
+        filter.rebuild();
+    }
+
+    @AfterEach
+    void dropDatabase() {
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Test
+    void keyWhoseMessageWasLostIsCaughtUpWhenTheNextMessageShowsTheGap() {
+        assertThat(filter.mightExist("existing")).isTrue();
+        assertThat(filter.mightExist("unknown")).isFalse();
+
+        // created by another instance, pub/sub message lost
+        insert("fresh");
+        createdVersion.incrementAndGet();
+        // the next one arrives: counter value 2, the filter only holds 0
+        insert("next");
+        filter.addCreated(ShortKeyFilter.VERSION_PREFIX + createdVersion.incrementAndGet() + "\nnext");
+
+        // not final until the background catch-up has run, the request never waits for it
+        assertThat(filter.mightExist("fresh")).isTrue();
+        assertThat(filter.mightExist("unknown")).isTrue();
+        assertThat(catchUps).hasSize(1);
+
+        catchUps.remove().run();
+        assertThat(filter.mightExist("fresh")).isTrue();
+        assertThat(filter.mightExist("next")).isTrue();
+        assertThat(filter.mightExist("unknown")).isFalse();
+        assertThat(counter("shorturl.keyfilter.unverified")).isEqualTo(2);
+    }
+
+    @Test
+    void consecutiveMessagesKeepTheFilterUpToDate() {
+        insert("first");
+        filter.addCreated(ShortKeyFilter.VERSION_PREFIX + createdVersion.incrementAndGet() + "\nfirst");
+        insert("bulk1");
+        insert("bulk2");
+        filter.addCreated(ShortKeyFilter.VERSION_PREFIX + createdVersion.incrementAndGet() + "\nbulk1\nbulk2");
+
+        assertThat(filter.mightExist("first")).isTrue();
+        assertThat(filter.mightExist("bulk2")).isTrue();
+        assertThat(filter.mightExist("unknown")).isFalse();
+        assertThat(catchUps).isEmpty();
+    }
+
+    @Test
+    void keyRecordedMissingIsLetThroughOnceCreated() {
+        filter.recordMissing("fresh");
+        assertThat(filter.mightExist("fresh")).isFalse();
+
+        insert("fresh");
+        filter.addCreated(ShortKeyFilter.VERSION_PREFIX + createdVersion.incrementAndGet() + "\nfresh");
+
+        assertThat(filter.mightExist("fresh")).isTrue();
+    }
+
+    @Test
+    void missIsLetThroughWhileRedisIsUnavailable() {
+        when(circuitBreaker.isOpen()).thenReturn(true);
+
+        assertThat(filter.mightExist("unknown")).isTrue();
+        // nothing to catch up with until Redis is back
+        assertThat(catchUps).isEmpty();
+    }
+
+    @Test
+    void periodicCatchUpAddsKeysWhoseCounterIncrementWasLost() {
+        insert("fresh");
+        filter.scheduledCatchUp();
+
+        assertThat(filter.mightExist("fresh")).isTrue();
+        assertThat(filter.mightExist("unknown")).isFalse();
+    }
+
+    @Test
+    void keyCreatedLocallyIsCountedForTheOtherInstances() {
+        insert("local");
+        filter.recordCreated("local");
+
+        assertThat(createdVersion.get()).isEqualTo(1);
+        assertThat(filter.mightExist("local")).isTrue();
+    }
+
+    @Test
+    void onlyKeysTheFilterLetThroughAreFalsePositives() {
+        // the filter rejects it: a miss confirmed by the database (as when sent unverified) is no false positive
+        assertThat(filter.mightExist("unknown")).isFalse();
+        filter.recordMissing("unknown");
+        assertThat(counter("shorturl.keyfilter.false_positives")).isZero();
+
+        // in the filter (deleted since the last rebuild) but not in the database
+        filter.addLocal("deleted");
+        filter.recordMissing("deleted");
+        assertThat(counter("shorturl.keyfilter.false_positives")).isEqualTo(1);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).functionCounter().count();
+    }
+
+    private void insert(String shortKey) {
+        jdbcTemplate.update("INSERT INTO short_urls (short_key) VALUES (?)", shortKey);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ValueOperations<String, String> mockValueOperations() {
+        ValueOperations<String, String> operations = mock(ValueOperations.class);
+        when(operations.get(ShortKeyFilter.CREATED_VERSION_KEY)).thenAnswer(inv -> Long.toString(createdVersion.get()));
+        when(operations.increment(ShortKeyFilter.CREATED_VERSION_KEY)).thenAnswer(inv -> createdVersion.incrementAndGet());
+        return operations;
+    }
+}
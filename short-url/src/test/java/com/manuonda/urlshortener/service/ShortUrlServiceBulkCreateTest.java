@@ -0,0 +1,149 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.ApplicationProperties;
+import com.manuonda.urlshortener.config.BulkCreateProperties;
+import com.manuonda.urlshortener.config.UrlValidationProperties;
+import com.manuonda.urlshortener.domain.models.BulkCreateResult;
+import com.manuonda.urlshortener.domain.models.CreateShortUrlCmd;
+import com.manuonda.urlshortener.repositorys.ShortUrlRepository;
+import com.manuonda.urlshortener.repositorys.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Bulk creation inserts every row at most once, whatever fails in the middle of the stream.
+ */
+class ShortUrlServiceBulkCreateTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // short keys of every inserted row, in insertion order
+    private final List<String> inserted = new ArrayList<>();
+    private ShortUrlService service;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ShortKeyGenerator shortKeyGenerator = mock(ShortKeyGenerator.class);
+        int[] nextKey = {0};
+        when(shortKeyGenerator.nextKeys(anyInt())).thenAnswer(inv -> IntStream.range(0, inv.<Integer>getArgument(0))
+                .mapToObj(i -> "key" + nextKey[0]++)
+                .toList());
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(inv -> {
+            inv.<Consumer<TransactionStatus>>getArgument(0).accept(mock(TransactionStatus.class));
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList(), any(int[].class))).thenAnswer(inv -> {
+            List<Object[]> rows = inv.getArgument(1);
+            rows.forEach(row -> inserted.add((String) row[0]));
+            return new int[rows.size()];
+        });
+
+        service = new ShortUrlService(mock(ShortUrlRepository.class), mock(EntityMapper.class),
+                new ApplicationProperties("http://localhost:8080", 30, false, 10, ApplicationProperties.PaginationMode.CURSOR),
+                mock(UserRepository.class), mock(UrlCacheService.class), shortKeyGenerator,
+                mock(ShortKeyFilter.class), mock(UrlExistenceValidator.class),
+                new UrlValidationProperties(true, 50, Duration.ofSeconds(3), Duration.ofSeconds(5),
+                        Duration.ofMinutes(10), 10000, Duration.ofMinutes(2)),
+                transactionTemplate, jdbcTemplate, new BulkCreateProperties(2),
+                mock(ApplicationEventPublisher.class), mock(HotKeyTracker.class), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void everyRowIsCreatedAndReportedOnce() {
+        List<BulkCreateResult> reported = new ArrayList<>();
+
+        service.createShortUrls(rows(5, -1), reported::addAll);
+
+        assertThat(inserted).containsExactly("key0", "key1", "key2", "key3", "key4");
+        assertThat(reported).extracting(BulkCreateResult::line).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(reported).extracting(BulkCreateResult::shortKey).containsExactlyElementsOf(inserted);
+    }
+
+    @Test
+    void failingConsumerStopsTheCreationWithoutInsertingTheBatchAgain() {
+        UncheckedIOException disconnected = new UncheckedIOException(new IOException("Broken pipe"));
+
+        assertThatThrownBy(() -> service.createShortUrls(rows(5, -1), results -> {
+            throw disconnected;
+        })).isSameAs(disconnected);
+
+        assertThat(inserted).containsExactly("key0", "key1");
+    }
+
+    @Test
+    void failingConsumerOnTheLastBatchDoesNotInsertItAgain() {
+        UncheckedIOException disconnected = new UncheckedIOException(new IOException("Broken pipe"));
+        List<BulkCreateResult> reported = new ArrayList<>();
+
+        assertThatThrownBy(() -> service.createShortUrls(rows(3, -1), results -> {
+            if (!reported.isEmpty()) {
+                throw disconnected;
+            }
+            reported.addAll(results);
+        })).isSameAs(disconnected);
+
+        assertThat(inserted).containsExactly("key0", "key1", "key2");
+        assertThat(reported).hasSize(2);
+    }
+
+    @Test
+    void malformedRowKeepsTheReportedBatchesAndDropsTheIncompleteOne() {
+        List<BulkCreateResult> reported = new ArrayList<>();
+
+        assertThatThrownBy(() -> service.createShortUrls(rows(5, 3), reported::addAll))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Malformed row 4");
+
+        assertThat(inserted).containsExactly("key0", "key1");
+        assertThat(reported).extracting(BulkCreateResult::line).containsExactly(1L, 2L);
+    }
+
+    // count rows, next() throws like BulkShortUrlReader on row malformedIndex + 1 (-1: none)
+    private static Iterator<CreateShortUrlCmd> rows(int count, int malformedIndex) {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public CreateShortUrlCmd next() {
+                if (next >= count) {
+                    throw new NoSuchElementException();
+                }
+                if (next == malformedIndex) {
+                    throw new IllegalArgumentException("Malformed row " + (next + 1));
+                }
+                return new CreateShortUrlCmd("https://example.com/" + next++, null, null, null, null);
+            }
+        };
+    }
+}
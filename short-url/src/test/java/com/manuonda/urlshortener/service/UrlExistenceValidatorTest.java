@@ -0,0 +1,78 @@
+package com.manuonda.urlshortener.service;
+
+import com.manuonda.urlshortener.config.UrlValidationProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A burst of links to one site sends one HEAD request, not one per link.
+ */
+class UrlExistenceValidatorTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private UrlExistenceValidator validator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            try {
+                // slow enough for the whole burst to arrive while the first check is in flight
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(exchange.getRequestURI().getPath().startsWith("/missing") ? 404 : 200, -1);
+            exchange.close();
+        });
+        server.start();
+        validator = new UrlExistenceValidator(new UrlValidationProperties(true, 50, Duration.ofSeconds(3),
+                Duration.ofSeconds(5), Duration.ofMinutes(10), 10_000, Duration.ofMinutes(2)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        validator.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void burstToOneHostIsCheckedOnce() {
+        List<CompletableFuture<Boolean>> checks = IntStream.range(0, 100)
+                .mapToObj(i -> validator.isUrlExistsAsync(baseUrl() + "/page/" + i))
+                .toList();
+
+        assertThat(checks).allSatisfy(check -> assertThat(check.join()).isTrue());
+        assertThat(requests.get()).isEqualTo(1);
+
+        // then from the reachable host cache
+        assertThat(validator.isUrlExists(baseUrl() + "/page/100")).isTrue();
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void failedCheckDoesNotFailTheOtherLinksOfTheHost() {
+        CompletableFuture<Boolean> missing = validator.isUrlExistsAsync(baseUrl() + "/missing");
+        CompletableFuture<Boolean> existing = validator.isUrlExistsAsync(baseUrl() + "/page");
+
+        assertThat(missing.join()).isFalse();
+        assertThat(existing.join()).isTrue();
+    }
+
+    private String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+}
@@ -0,0 +1,121 @@
+package com.manuonda.urlshortener.web;
+
+import com.manuonda.urlshortener.ApplicationProperties;
+import com.manuonda.urlshortener.config.RedirectFilterConfig;
+import com.manuonda.urlshortener.config.RedirectProperties;
+import com.manuonda.urlshortener.config.WebSecurityConfig;
+import com.manuonda.urlshortener.domain.entities.User;
+import com.manuonda.urlshortener.domain.models.Role;
+import com.manuonda.urlshortener.domain.models.ShortUrlDto;
+import com.manuonda.urlshortener.domain.models.ShortUrlStatus;
+import com.manuonda.urlshortener.repositorys.UserRepository;
+import com.manuonda.urlshortener.service.ClickAnalyticsService;
+import com.manuonda.urlshortener.service.PublicListingService;
+import com.manuonda.urlshortener.service.SecurityUserDetailsService;
+import com.manuonda.urlshortener.service.ShortUrlService;
+import com.manuonda.urlshortener.web.controller.HomeController;
+import com.manuonda.urlshortener.web.controller.SecurityUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code GET /s/{shortKey}} through the Spring Security filter chain and the redirect fast path: the
+ * redirect gets the current user from the session principal, users is only queried at login.
+ */
+@WebMvcTest(HomeController.class)
+@Import({WebSecurityConfig.class, RedirectFilterConfig.class, SecurityUserDetailsService.class, SecurityUtils.class})
+@EnableConfigurationProperties({ApplicationProperties.class, RedirectProperties.class})
+class ShortUrlRedirectFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @MockitoBean
+    private UserRepository userRepository;
+    @MockitoBean
+    private ShortUrlService shortUrlService;
+    @MockitoBean
+    private ClickAnalyticsService clickAnalyticsService;
+    @MockitoBean
+    private PublicListingService publicListingService;
+
+    @BeforeEach
+    void setUp() {
+        ShortUrlDto shortUrl = new ShortUrlDto(1L, "abc123", "https://example.com", false, null, null,
+                0L, Instant.now(), 0, ShortUrlStatus.ACTIVE);
+        when(shortUrlService.accessShortUrl(eq("abc123"), any())).thenReturn(Optional.of(shortUrl));
+    }
+
+    @Test
+    void redirectOfLoggedInUserSendsThePrincipalIdWithoutQueryingUsers() throws Exception {
+        User user = new User();
+        user.setId(42L);
+        user.setEmail("user@example.com");
+        user.setPassword(passwordEncoder.encode("secret"));
+        user.setRole(Role.ROLE_USER);
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(user));
+
+        // login: the only users query
+        MockHttpSession session = (MockHttpSession) mockMvc.perform(formLogin("/login").user("user@example.com").password("secret"))
+                .andExpect(authenticated().withUsername("user@example.com"))
+                .andReturn().getRequest().getSession();
+
+        for (int i = 0; i < 3; i++) {
+            // answered by the fast path filter: its status and Cache-Control
+            mockMvc.perform(get("/s/abc123").session(session))
+                    .andExpect(status().isFound())
+                    .andExpect(header().string("Location", "https://example.com"))
+                    .andExpect(header().string("Cache-Control", "no-store"));
+        }
+
+        verify(shortUrlService, times(3)).accessShortUrl("abc123", 42L);
+        verify(userRepository).findByEmail("user@example.com");
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void redirectOfAnonymousUserDoesNotQueryUsers() throws Exception {
+        mockMvc.perform(get("/s/abc123"))
+                .andExpect(status().isFound())
+                .andExpect(header().string("Location", "https://example.com"));
+
+        verify(shortUrlService).accessShortUrl(eq("abc123"), isNull());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void unknownShortKeyIsNotFound() throws Exception {
+        mockMvc.perform(get("/s/unknown1")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/s/not-a-key")).andExpect(status().isNotFound());
+
+        verify(shortUrlService).accessShortUrl(eq("unknown1"), isNull());
+        verifyNoMoreInteractions(shortUrlService);
+    }
+}